@@ -1,10 +1,12 @@
 package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.COptional;
@@ -34,6 +36,17 @@ public record Address(
 
     private static final long serialVersionUID = -4714168968119491955L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the address by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the address
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
 	/**
 	 * interface Command
 	 * <p>
@@ -44,8 +57,9 @@ public record Address(
 	 * @permits Update
 	 * @permits Get
 	 * @permits GetList
+	 * @permits GetListByIDList
 	 */
-	public static sealed interface Command extends Serializable permits Create, Delete, Update, Get, GetList{
+	public static sealed interface Command extends Serializable permits Create, Delete, Update, Get, GetList, GetListByIDList{
 	}
 
 	/**
@@ -59,9 +73,46 @@ public record Address(
 	 * @property Country
 	 * @property Postcode
 	 * @property City
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record Create(COptional<String> name, String streetName, String  houseNumber, 
-			String country, String postCode, String city) implements Command {
+			String country, String postCode, String city,
+			COptional<Id<Address>> id) implements Command {
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create an address.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public Create {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create an address.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param name - the optional name
+		 * @param streetName - the street
+		 * @param houseNumber - the house number
+		 * @param country - the country
+		 * @param postCode - the postcode
+		 * @param city - the city
+		 */
+		public Create(
+				COptional<String> name,
+				String streetName,
+				String houseNumber,
+				String country,
+				String postCode,
+				String city) {
+			this(name, streetName, houseNumber, country, postCode, city, COptional.empty());
+		}
 	}
 
 	/**
@@ -105,6 +156,16 @@ public record Address(
 	public static record GetList(Filter filter) implements Command {	
 	}
 	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of addresses by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<Address>> idList) implements Command {
+	}
+	
 	/**
 	 * record Filter
 	 * <p>
@@ -142,6 +203,33 @@ public record Address(
 		 */
 		Address process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found addresses instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the addresses to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<Address> - the addresses matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<Address> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<Address>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
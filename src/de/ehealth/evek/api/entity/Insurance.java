@@ -1,10 +1,12 @@
 package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.COptional;
@@ -27,6 +29,17 @@ public record Insurance(
 	
     private static final long serialVersionUID = -7469835782057358365L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the insurance by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the insurance
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
 	 * interface Command
 	 * <p>
@@ -38,8 +51,9 @@ public record Insurance(
 	 * @permits Update
 	 * @permits Get
 	 * @permits GetList
+	 * @permits GetListByIDList
 	 */
-	public static sealed interface Command extends Serializable permits Create, Delete, Move, Update, Get, GetList {
+	public static sealed interface Command extends Serializable permits Create, Delete, Move, Update, Get, GetList, GetListByIDList {
 	}
 	
 	/**
@@ -106,6 +120,16 @@ public record Insurance(
 	public static record GetList(Filter filter) implements Command {
 	}
 	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of insurances by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<Insurance>> idList) implements Command {
+	}
+	
 	/**
 	 * record Filter
 	 * <p>
@@ -142,6 +166,33 @@ public record Insurance(
 		 */
 		Insurance process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found insurances instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the insurances to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<Insurance> - the insurances matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<Insurance> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<Insurance>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
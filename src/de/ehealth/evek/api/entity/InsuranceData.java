@@ -1,10 +1,12 @@
 package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.COptional;
@@ -28,6 +30,17 @@ public record InsuranceData(
 	
     private static final long serialVersionUID = -946751378556315875L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the insurance data by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the insurance data
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
    	 * interface Command
    	 * <p>
@@ -37,8 +50,9 @@ public record InsuranceData(
    	 * @permits Delete
    	 * @permits Get
    	 * @permits GetList
+   	 * @permits GetListByIDList
    	 */
-	public static sealed interface Command extends Serializable permits Create, Delete, Get, GetList{
+	public static sealed interface Command extends Serializable permits Create, Delete, Get, GetList, GetListByIDList{
 	}
 	
 	/**
@@ -46,15 +60,45 @@ public record InsuranceData(
 	 * <p>
 	 * Command to create insurance data.
 	 * 
-	 * @property Id
 	 * @property Patient
 	 * @property Insutance
 	 * @property insurance status
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record Create(
 			Reference<Patient> patient,
 			Reference<Insurance> insurance, 
-			int insuranceStatus) implements Command {
+			int insuranceStatus,
+			COptional<Id<InsuranceData>> id) implements Command {
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create insurance data.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public Create {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create insurance data.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param patient - the patient
+		 * @param insurance - the insurance
+		 * @param insuranceStatus - the insurance status
+		 */
+		public Create(
+				Reference<Patient> patient,
+				Reference<Insurance> insurance,
+				int insuranceStatus) {
+			this(patient, insurance, insuranceStatus, COptional.empty());
+		}
 	}
 	
 	/**
@@ -86,6 +130,16 @@ public record InsuranceData(
 	 */
 	public static record GetList(Filter filter) implements Command {
 	}
+	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of insurance data by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<InsuranceData>> idList) implements Command {
+	}
 
 	/**
 	 * record Filter
@@ -122,6 +176,33 @@ public record InsuranceData(
 		 */
 		InsuranceData process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found insurance data instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the insurance data to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<InsuranceData> - the insurance data matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<InsuranceData> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<InsuranceData>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 	
 	@Override
@@ -2,10 +2,12 @@ package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
 import java.sql.Date;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.COptional;
@@ -33,6 +35,17 @@ public record Patient (
 
     private static final long serialVersionUID = -6734982562356986824L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the patient by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the patient
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
 	 * interface Command
 	 * <p>
@@ -46,9 +59,10 @@ public record Patient (
 	 * @permits UpdateInsuranceData
 	 * @permits Get
 	 * @permits GetList
+	 * @permits GetListByIDList
 	 */
 	public static sealed interface Command extends Serializable permits Create, 
-	CreateWithInsuranceData, Delete, Move, Update, UpdateInsuranceData, Get, GetList{
+	CreateWithInsuranceData, Delete, Move, Update, UpdateInsuranceData, Get, GetList, GetListByIDList{
 	}
 
 	/**
@@ -167,6 +181,16 @@ public record Patient (
 	public static record GetList(Filter filter) implements Command {
 	}
 	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of patients by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<Patient>> idList) implements Command {
+	}
+	
 	/**
 	 * record Filter
 	 * <p>
@@ -206,6 +230,33 @@ public record Patient (
 		 */
 		Patient process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found patients instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the patients to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<Patient> - the patients matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<Patient> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<Patient>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
@@ -1,10 +1,12 @@
 package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.COptional;
@@ -34,6 +36,17 @@ public record ServiceProvider(
 
     private static final long serialVersionUID = 625732975895345128L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the service provider by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the service provider
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
    	 * interface Command
    	 * <p>
@@ -47,8 +60,9 @@ public record ServiceProvider(
    	 * @permits UpdateService
    	 * @permits Get
    	 * @permits GetList
+   	 * @permits GetListByIDList
    	 */
-	public static sealed interface Command extends Serializable permits Create, CreateFull, Delete, Move, Update, UpdateService, Get, GetList {
+	public static sealed interface Command extends Serializable permits Create, CreateFull, Delete, Move, Update, UpdateService, Get, GetList, GetListByIDList {
 	}
 
 	/**
@@ -156,6 +170,16 @@ public record ServiceProvider(
 	 */
 	public static record GetList(Filter filter) implements Command {
 	}
+	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of service providers by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<ServiceProvider>> idList) implements Command {
+	}
 
 	/**
 	 * record Filter
@@ -195,6 +219,33 @@ public record ServiceProvider(
 		 */
 		ServiceProvider process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found service providers instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the service providers to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<ServiceProvider> - the service providers matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<ServiceProvider> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<ServiceProvider>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 	
 	
@@ -7,7 +7,9 @@ import java.util.List;
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Direction;
+import de.ehealth.evek.api.type.Expand;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.PatientCondition;
 import de.ehealth.evek.api.type.Reference;
@@ -52,6 +54,17 @@ public record TransportDetails (
 	
     private static final long serialVersionUID = 6359875465658792642L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the transport details by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the transport details
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
    	 * interface Command
    	 * <p>
@@ -65,6 +78,7 @@ public record TransportDetails (
    	 * @permits UpdateTransporterSignature
    	 * @permits Get
    	 * @permits GetList
+   	 * @permits GetListByIDList
    	 */
 	public static sealed interface Command extends Serializable permits 
 	AssignTransportProvider, Create, Delete, Update, UpdatePatientSignature, 
@@ -92,11 +106,38 @@ public record TransportDetails (
 	 * 
 	 * @property Transport document
 	 * @property Transport date
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record Create( 
 			Reference<TransportDocument> transportDocument, 
-			Date transportDate
+			Date transportDate,
+			COptional<Id<TransportDetails>> id
 			) implements Command {
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a transport.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public Create {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a transport.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param transportDocument - the transport document
+		 * @param transportDate - the transport date
+		 */
+		public Create(Reference<TransportDocument> transportDocument, Date transportDate) {
+			this(transportDocument, transportDate, COptional.empty());
+		}
 	}
 
 	/**
@@ -163,20 +204,48 @@ public record TransportDetails (
 	 * record Get
 	 * <p>
 	 * Command to get existing transport details by its Id.
+	 * With referenced entities to expand, the server responds with a ComGraph holding the transport details
+	 * and the expanded entities instead.
 	 * 
 	 * @property Id
+	 * @property {@link List}:Expand, null or empty to get the transport details only
 	 */
-	public static record Get(Id<TransportDetails> id) implements Command {
+	public static record Get(Id<TransportDetails> id, List<Expand> expand) implements Command {
+		
+		/**
+		 * Get
+		 * <p>
+		 * Command to get existing transport details by its Id.
+		 * 
+		 * @param id - the id of the transport details
+		 */
+		public Get(Id<TransportDetails> id) {
+			this(id, null);
+		}
 	}
 	
 	/**
 	 * record GetList
 	 * <p>
 	 * Command to get a List of transport details by a provided filter.
+	 * With referenced entities to expand, the server responds with a ComGraph holding the transport details
+	 * and the expanded entities instead.
 	 * 
 	 * @property Filter
+	 * @property {@link List}:Expand, null or empty to get the transport details only
 	 */
-	public static record GetList(Filter filter) implements Command {
+	public static record GetList(Filter filter, List<Expand> expand) implements Command {
+		
+		/**
+		 * GetList
+		 * <p>
+		 * Command to get a List of transport details by a provided filter.
+		 * 
+		 * @param filter - the filter of the transport details
+		 */
+		public GetList(Filter filter) {
+			this(filter, null);
+		}
 	}
 	
 	/**
@@ -231,6 +300,33 @@ public record TransportDetails (
 		 */
 		TransportDetails process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found transport details instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the transport details to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<TransportDetails> - the transport details matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<TransportDetails> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<TransportDetails>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
@@ -8,6 +8,8 @@ import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.IsNotArchivableException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
+import de.ehealth.evek.api.type.Expand;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.type.TransportReason;
@@ -48,6 +50,17 @@ public record TransportDocument(
 		) implements Serializable{
 	
     private static final long serialVersionUID = 956735861385487658L;
+
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the transport document by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the transport document
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
 	
     /**
    	 * interface Command
@@ -61,6 +74,7 @@ public record TransportDocument(
    	 * @permits Delete
    	 * @permits Get
    	 * @permits GetList
+   	 * @permits GetListByIDList
    	 */
 	public static sealed interface Command extends Serializable permits 
 	Create, Update, AssignPatient, Archive, Delete, Get, GetList, GetListByIDList {
@@ -81,6 +95,7 @@ public record TransportDocument(
 	 * @property Transportation type
 	 * @property Additional info
 	 * @property Signature
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record Create(
 			COptional<Reference<Patient>> patient,
@@ -92,7 +107,52 @@ public record TransportDocument(
 			Reference<ServiceProvider> healthcareServiceProvider,
 			TransportationType transportationType,
 			COptional<String> additionalInfo,
-			Reference<User> signature) implements Command {
+			Reference<User> signature,
+			COptional<Id<TransportDocument>> id) implements Command {
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a transport document.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public Create {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a transport document.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param patient - the optional patient
+		 * @param insuranceData - the optional insurance data
+		 * @param transportReason - the transport reason
+		 * @param startDate - the start date
+		 * @param endDate - the optional end date
+		 * @param weeklyFrequency - the optional weekly frequency
+		 * @param healthcareServiceProvider - the healthcare service provider
+		 * @param transportationType - the transportation type
+		 * @param additionalInfo - the optional additional info
+		 * @param signature - the signing user
+		 */
+		public Create(
+				COptional<Reference<Patient>> patient,
+				COptional<Reference<InsuranceData>> insuranceData,
+				TransportReason transportReason,
+				Date startDate,
+				COptional<Date> endDate,
+				COptional<Integer> weeklyFrequency,
+				Reference<ServiceProvider> healthcareServiceProvider,
+				TransportationType transportationType,
+				COptional<String> additionalInfo,
+				Reference<User> signature) {
+			this(patient, insuranceData, transportReason, startDate, endDate, weeklyFrequency,
+					healthcareServiceProvider, transportationType, additionalInfo, signature, COptional.empty());
+		}
 	}
 
 	/**
@@ -161,20 +221,48 @@ public record TransportDocument(
 	 * record Get
 	 * <p>
 	 * Command to get existing transport document by its Id.
+	 * With referenced entities to expand, the server responds with a ComGraph holding the transport document
+	 * and the expanded entities instead.
 	 * 
 	 * @property Id
+	 * @property {@link List}:Expand, null or empty to get the transport document only
 	 */
-	public static record Get(Id<TransportDocument> id) implements Command {
+	public static record Get(Id<TransportDocument> id, List<Expand> expand) implements Command {
+		
+		/**
+		 * Get
+		 * <p>
+		 * Command to get existing transport document by its Id.
+		 * 
+		 * @param id - the id of the transport document
+		 */
+		public Get(Id<TransportDocument> id) {
+			this(id, null);
+		}
 	}
 	
 	/**
 	 * record GetList
 	 * <p>
 	 * Command to get a List of transport documents by a provided filter.
+	 * With referenced entities to expand, the server responds with a ComGraph holding the transport documents
+	 * and the expanded entities instead.
 	 * 
 	 * @property Filter
+	 * @property {@link List}:Expand, null or empty to get the transport documents only
 	 */
-	public static record GetList(Filter filter) implements Command {
+	public static record GetList(Filter filter, List<Expand> expand) implements Command {
+		
+		/**
+		 * GetList
+		 * <p>
+		 * Command to get a List of transport documents by a provided filter.
+		 * 
+		 * @param filter - the filter of the transport documents
+		 */
+		public GetList(Filter filter) {
+			this(filter, null);
+		}
 	}
 	
 	/**
@@ -230,6 +318,33 @@ public record TransportDocument(
 		 */
 		TransportDocument process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;	
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found transport documents instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the transport documents to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<TransportDocument> - the transport documents matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<TransportDocument> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<TransportDocument>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
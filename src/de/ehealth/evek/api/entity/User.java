@@ -1,10 +1,12 @@
 package de.ehealth.evek.api.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import de.ehealth.evek.api.exception.GetListThrowable;
 import de.ehealth.evek.api.exception.IllegalProcessException;
 import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.ComSerialForm;
 import de.ehealth.evek.api.type.Id;
 import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.type.UserRole;
@@ -33,6 +35,17 @@ public record User(
 	
     private static final long serialVersionUID = -3485673255491246872L;
 
+	/**
+	 * private method writeReplace
+	 * <p>
+	 * Method replacing the user by its compact serial form when it is serialized.
+	 * 
+	 * @return Object - the ComSerialForm of the user
+	 */
+	private Object writeReplace() {
+		return ComSerialForm.of(this);
+	}
+
     /**
    	 * interface Command
    	 * <p>
@@ -47,9 +60,10 @@ public record User(
    	 * @permits LoginUser
    	 * @permits Get
    	 * @permits GetList
+   	 * @permits GetListByIDList
    	 */
 	public static sealed interface Command extends Serializable permits 
-	Create, CreateFull, Update, Delete, UpdateRole, UpdateCredentials, LoginUser, Get, GetList {		
+	Create, CreateFull, Update, Delete, UpdateRole, UpdateCredentials, LoginUser, Get, GetList, GetListByIDList {		
 	}
 	
 	/**
@@ -64,6 +78,7 @@ public record User(
 	 * @property Address
 	 * @property Service provider
 	 * @property Role
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record Create(
 			String userName,
@@ -72,7 +87,45 @@ public record User(
 			String firstName,
 			Reference<Address> address,
 			Reference<ServiceProvider> serviceProvider,
-			UserRole role) implements Command{	
+			UserRole role,
+			COptional<Id<User>> id) implements Command{	
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a user.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public Create {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * Create
+		 * <p>
+		 * Command to create a user.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param userName - the user name
+		 * @param password - the password
+		 * @param lastName - the last name
+		 * @param firstName - the first name
+		 * @param address - the address
+		 * @param serviceProvider - the service provider
+		 * @param role - the role
+		 */
+		public Create(
+				String userName,
+				String password,
+				String lastName,
+				String firstName,
+				Reference<Address> address,
+				Reference<ServiceProvider> serviceProvider,
+				UserRole role) {
+			this(userName, password, lastName, firstName, address, serviceProvider, role, COptional.empty());
+		}
 	}
 	
 	/**
@@ -87,6 +140,7 @@ public record User(
 	 * @property Address Create command
 	 * @property Service provider CreateFull command
 	 * @property Role
+	 * @property COptional:Id, generated by the client or empty to let the server assign it
 	 */
 	public static record CreateFull(
 			String userName,
@@ -95,7 +149,45 @@ public record User(
 			String firstName,
 			Address.Create addressCmd,
 			ServiceProvider.CreateFull serviceProviderCmd,
-			UserRole role) implements Command{	
+			UserRole role,
+			COptional<Id<User>> id) implements Command{	
+		
+		/**
+		 * CreateFull
+		 * <p>
+		 * Command to create a user including creating the address and service provider.
+		 * <p>
+		 * Compact constructor replacing a missing id by an empty COptional, i.E. of commands serialized by former versions.
+		 */
+		public CreateFull {
+			id = id == null ? COptional.empty() : id;
+		}
+		
+		/**
+		 * CreateFull
+		 * <p>
+		 * Command to create a user including creating the address and service provider.
+		 * <p>
+		 * Constructor leaving the id to be assigned by the server.
+		 * 
+		 * @param userName - the user name
+		 * @param password - the password
+		 * @param lastName - the last name
+		 * @param firstName - the first name
+		 * @param addressCmd - the command to create the address
+		 * @param serviceProviderCmd - the command to create the service provider
+		 * @param role - the role
+		 */
+		public CreateFull(
+				String userName,
+				String password,
+				String lastName,
+				String firstName,
+				Address.Create addressCmd,
+				ServiceProvider.CreateFull serviceProviderCmd,
+				UserRole role) {
+			this(userName, password, lastName, firstName, addressCmd, serviceProviderCmd, role, COptional.empty());
+		}
 	}
 	
 	/**
@@ -191,6 +283,16 @@ public record User(
 	public static record GetList(Filter filter) implements Command {
 	}
 	
+	/**
+	 * record GetListByIDList
+	 * <p>
+	 * Command to get a List of users by a provided {@link List} of {@link Id Id's}.
+	 * 
+	 * @property {@link List}
+	 */
+	public static record GetListByIDList(List<Id<User>> idList) implements Command {
+	}
+	
 	/**
 	 * record Filter
 	 * <p>
@@ -230,6 +332,33 @@ public record User(
 		 */
 		User process(Command cmd, Reference<User> processingUser) 
 				throws GetListThrowable, IllegalProcessException, ProcessingException;		
+		
+		/**
+		 * method processList
+		 * <p>
+		 * Method for processing GetList-Commands, returning the found users instead of throwing them by a GetListThrowable.
+		 * <p>
+		 * By default, the command is processed by process(Command, Reference) and the list of the thrown GetListThrowable is returned.
+		 * Implementations should override this method to return the list without throwing.
+		 *
+		 * @param filter - the filter of the users to get
+		 * @param processingUser - User to be used as processing User
+		 * 
+		 * @return List<User> - the users matching the filter
+		 * 
+		 * @throws IllegalProcessException - exception to be thrown when Arguments or State are not valid for an operation
+		 * @throws ProcessingException - exception to be thrown when a process fails by technical problems
+		 */
+		@SuppressWarnings("unchecked")
+		default List<User> processList(Filter filter, Reference<User> processingUser) 
+				throws IllegalProcessException, ProcessingException {
+			try {
+				process(new GetList(filter), processingUser);
+			} catch (GetListThrowable result) {
+				return (List<User>) result.getList();
+			}
+			throw new ProcessingException("GetList-Command has not been answered by a list!");
+		}
 	}
 
 	/**
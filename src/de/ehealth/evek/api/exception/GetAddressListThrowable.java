@@ -14,6 +14,7 @@ public class GetAddressListThrowable extends Throwable {
 	private final List<Address> list;
 	
 	public GetAddressListThrowable(List<Address> addresses) {
+		super(null, null, false, false);
 		this.list = addresses;
 	}
 	
@@ -14,6 +14,7 @@ public class GetInsuranceDataListThrowable extends Throwable {
 	private final List<InsuranceData> list;
 	
 	public GetInsuranceDataListThrowable(List<InsuranceData> insuranceData) {
+		super(null, null, false, false);
 		this.list = insuranceData;
 	}
 	
@@ -14,6 +14,7 @@ public class GetInsuranceListThrowable extends Throwable {
 	private final List<Insurance> list;
 	
 	public GetInsuranceListThrowable(List<Insurance> insurances) {
+		super(null, null, false, false);
 		this.list = insurances;
 	}
 	
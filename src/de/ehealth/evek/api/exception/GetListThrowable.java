@@ -1,12 +1,16 @@
 package de.ehealth.evek.api.exception;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * GetListThrowable
  * <p>
  * Throwable used for handling Lists as return of commands as a list is not the specified return parameter.
+ * <p>
+ * The throwable is created without stack trace and suppression, as it is used for control flow only.
+ * Lists should be returned by the processList methods of the Operations of the entities instead.
  * 
  * @extends Throwable
  */
@@ -17,7 +21,9 @@ public class GetListThrowable extends Throwable {
 	 */
 	private static final long serialVersionUID = -3271973190530539711L;
 	
-	private final List<?> list;
+	private List<?> list;
+	
+	private final transient Iterator<?> elements;
 	
 	/**
 	 * EncryprionException
@@ -29,7 +35,38 @@ public class GetListThrowable extends Throwable {
 	 * @param list - the list to be provided
 	 */
 	public GetListThrowable(List<?> list) {
+		super(null, null, false, false);
 		this.list = list;
+		this.elements = null;
+	}
+	
+	/**
+	 * GetListThrowable
+	 * <p>
+	 * To throw, when the elements of a List should be returned streamed, where no List is able to be returned.
+	 * <p>
+	 * Constructor requiring the iterator of the elements that should be returned,
+	 * i.E. to be sent by IComServerSender.sendListStream(Iterator) without holding all elements in memory.
+	 * 
+	 * @param elements - the iterator of the elements to be provided
+	 */
+	public GetListThrowable(Iterator<?> elements) {
+		super(null, null, false, false);
+		this.list = null;
+		this.elements = elements;
+	}
+	
+	/**
+	 * method getElements
+	 * <p>
+	 * Method used to get the provided elements for streamed handling.
+	 * 
+	 * @return Iterator<?> - the iterator of the provided elements
+	 */
+	public Iterator<?> getElements() {
+		if(elements != null)
+			return elements;
+		return list.iterator();
 	}
 	
 	/**
@@ -40,6 +77,11 @@ public class GetListThrowable extends Throwable {
 	 * @return List<?> - the provided List
 	 */
 	public List<?> getList() {
+		if(list == null) {
+			ArrayList<Object> collected = new ArrayList<>();
+			elements.forEachRemaining(collected::add);
+			list = collected;
+		}
 		return list;
 	}
 
@@ -51,7 +93,7 @@ public class GetListThrowable extends Throwable {
 	 * @return ArrayList<?> - the provided List as ArrayList
 	 */
 	public ArrayList<?> getArrayList(){
-		return new ArrayList<>(list);
+		return new ArrayList<>(getList());
 	}
 	
 }
@@ -14,6 +14,7 @@ public class GetPatientListThrowable extends Throwable {
 	private final List<Patient> list;
 	
 	public GetPatientListThrowable(List<Patient> patients) {
+		super(null, null, false, false);
 		this.list = patients;
 	}
 	
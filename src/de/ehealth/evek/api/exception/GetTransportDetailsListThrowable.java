@@ -15,6 +15,7 @@ public class GetTransportDetailsListThrowable extends Throwable {
 	private final List<TransportDetails> list;
 	
 	public GetTransportDetailsListThrowable(List<TransportDetails> transports) {
+		super(null, null, false, false);
 		this.list = transports;
 	}
 	
@@ -14,6 +14,7 @@ public class GetTransportDocumentListThrowable extends Throwable {
 	private final List<TransportDocument> list;
 	
 	public GetTransportDocumentListThrowable(List<TransportDocument> transportDocuments) {
+		super(null, null, false, false);
 		this.list = transportDocuments;
 	}
 	
@@ -14,6 +14,7 @@ public class GetUserListThrowable extends Throwable {
 	private final List<Patient> list;
 	
 	public GetUserListThrowable(List<Patient> patients) {
+		super(null, null, false, false);
 		this.list = patients;
 	}
 	
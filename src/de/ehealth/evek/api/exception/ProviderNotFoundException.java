@@ -11,6 +11,8 @@ public class ProviderNotFoundException extends ClassNotFoundException{
 
 	private static final long serialVersionUID = 5101669316701672426L;
 
+	private final String provider;
+
 	/**
 	 * ProviderNotFoundException
 	 * <p>
@@ -22,6 +24,18 @@ public class ProviderNotFoundException extends ClassNotFoundException{
 	 */
 	public ProviderNotFoundException(String provider) {
 		super(String.format("Class of type %s could not be provided!", provider));
+		this.provider = provider;
+	}
+	
+	/**
+	 * method getProvider
+	 * <p>
+	 * Method to get the provider that could not be found.
+	 * 
+	 * @return String - the provider that could not be found
+	 */
+	public String getProvider() {
+		return provider;
 	}
 	
 }
@@ -0,0 +1,682 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.WrongObjectTypeException;
+import de.ehealth.evek.api.type.Expand;
+import de.ehealth.evek.api.type.Id;
+
+/**
+ * ComAsyncClient
+ * <p>
+ * Asynchronous client, returning the response of every entity operation as CompletableFuture.
+ * <p>
+ * Commands are pipelined by a ComClientDemultiplexer, so any number of operations may be pending at once.
+ * The futures are completed by one reader thread, exceptions sent by the server complete them exceptionally.
+ * Dependent stages without executor are run on the reader thread, so they shall not block.
+ * <p>
+ * The handshake and the login have to be finished before the ComAsyncClient is created.
+ * <p>
+ * With an entity cache set, the entities requested by id are answered from the cache where possible,
+ * and the entries changed by sent commands are invalidated.
+ *
+ * @implements Closeable
+ */
+public final class ComAsyncClient implements Closeable {
+
+	private final ComClientDemultiplexer demultiplexer;
+
+	private volatile ComEntityCache entityCache;
+
+	/**
+	 * ComAsyncClient
+	 * <p>
+	 * Asynchronous client, returning the response of every entity operation as CompletableFuture.
+	 * <p>
+	 * Constructor requiring the sender and receiver of the connection.
+	 *
+	 * @param sender - the IComClientSender of the connection
+	 * @param receiver - the ComClientReceiver of the connection
+	 */
+	public ComAsyncClient(IComClientSender sender, ComClientReceiver receiver) {
+		this.demultiplexer = new ComClientDemultiplexer(sender, receiver);
+	}
+
+	/**
+	 * method setEntityCache
+	 * <p>
+	 * Method to set the cache of the entities requested by id.
+	 *
+	 * @param cache - the entity cache or null, to request every entity from the server
+	 */
+	public void setEntityCache(ComEntityCache cache) {
+		this.entityCache = cache;
+	}
+
+	/**
+	 * method request
+	 * <p>
+	 * Method to send the given command, expecting a response of the given type.
+	 *
+	 * @param <T> - the expected type of the response
+	 * @param command - the command to send
+	 * @param type - the expected type of the response
+	 *
+	 * @return CompletableFuture - the response, completed exceptionally with WrongObjectTypeException,
+	 * 		if the response is of another type
+	 */
+	public <T> CompletableFuture<T> request(Serializable command, Class<T> type) {
+		ComEntityCache cache = this.entityCache;
+		if(cache != null)
+			cache.invalidate(command);
+		return demultiplexer.request(command).thenApply(object -> {
+			if(!type.isInstance(object))
+				throw new CompletionException(new WrongObjectTypeException(type, object));
+			return type.cast(object);
+		});
+	}
+
+	/**
+	 * method requestList
+	 * <p>
+	 * Method to send the given command, expecting a list of elements of the given type as response.
+	 *
+	 * @param <T> - the expected type of the elements
+	 * @param command - the command to send
+	 * @param elementType - the expected type of the elements
+	 *
+	 * @return CompletableFuture - the list, completed exceptionally with WrongObjectTypeException,
+	 * 		if the response or one of its elements is of another type
+	 */
+	public <T> CompletableFuture<List<T>> requestList(Serializable command, Class<T> elementType) {
+		ComEntityCache cache = this.entityCache;
+		if(cache != null)
+			cache.invalidate(command);
+		return demultiplexer.request(command).thenApply(object -> {
+			if(!(object instanceof List<?>))
+				throw new CompletionException(new WrongObjectTypeException(List.class, object));
+			List<T> list = new ArrayList<>(((List<?>) object).size());
+			for(Object element : (List<?>) object) {
+				if(element != null && !elementType.isInstance(element))
+					throw new CompletionException(new WrongObjectTypeException(elementType, element));
+				list.add(elementType.cast(element));
+			}
+			return list;
+		});
+	}
+
+	/**
+	 * method sendAddress
+	 * <p>
+	 * Method to send a address command, answered with a address.
+	 *
+	 * @param cmd - the address command to send
+	 *
+	 * @return CompletableFuture - the address sent as response
+	 */
+	public CompletableFuture<Address> sendAddress(Address.Command cmd) {
+		return request(cmd, Address.class);
+	}
+
+	/**
+	 * method getAddress
+	 * <p>
+	 * Method to get the address with the given id, answered from the entity cache if set.
+	 *
+	 * @param id - the id of the address
+	 *
+	 * @return CompletableFuture - the requested address
+	 */
+	public CompletableFuture<Address> getAddress(Id<Address> id) {
+		return requestCached(Address.class, id, new Address.Get(id));
+	}
+
+	/**
+	 * method getAddressList
+	 * <p>
+	 * Method to get the list of address matching the given filter.
+	 *
+	 * @param filter - the filter of the address
+	 *
+	 * @return CompletableFuture - the list of the matching address
+	 */
+	public CompletableFuture<List<Address>> getAddressList(Address.Filter filter) {
+		return requestList(new Address.GetList(filter), Address.class);
+	}
+
+	/**
+	 * method getAddressListByIDList
+	 * <p>
+	 * Method to get the list of address with the given ids by one command.
+	 *
+	 * @param ids - the ids of the address
+	 *
+	 * @return CompletableFuture - the list of the found address
+	 */
+	public CompletableFuture<List<Address>> getAddressListByIDList(List<Id<Address>> ids) {
+		return requestList(new Address.GetListByIDList(ids), Address.class);
+	}
+
+	/**
+	 * method sendInsurance
+	 * <p>
+	 * Method to send a insurance command, answered with a insurance.
+	 *
+	 * @param cmd - the insurance command to send
+	 *
+	 * @return CompletableFuture - the insurance sent as response
+	 */
+	public CompletableFuture<Insurance> sendInsurance(Insurance.Command cmd) {
+		return request(cmd, Insurance.class);
+	}
+
+	/**
+	 * method getInsurance
+	 * <p>
+	 * Method to get the insurance with the given id, answered from the entity cache if set.
+	 *
+	 * @param id - the id of the insurance
+	 *
+	 * @return CompletableFuture - the requested insurance
+	 */
+	public CompletableFuture<Insurance> getInsurance(Id<Insurance> id) {
+		return requestCached(Insurance.class, id, new Insurance.Get(id));
+	}
+
+	/**
+	 * method getInsuranceList
+	 * <p>
+	 * Method to get the list of insurances matching the given filter.
+	 *
+	 * @param filter - the filter of the insurances
+	 *
+	 * @return CompletableFuture - the list of the matching insurances
+	 */
+	public CompletableFuture<List<Insurance>> getInsuranceList(Insurance.Filter filter) {
+		return requestList(new Insurance.GetList(filter), Insurance.class);
+	}
+
+	/**
+	 * method getInsuranceListByIDList
+	 * <p>
+	 * Method to get the list of insurances with the given ids by one command.
+	 *
+	 * @param ids - the ids of the insurances
+	 *
+	 * @return CompletableFuture - the list of the found insurances
+	 */
+	public CompletableFuture<List<Insurance>> getInsuranceListByIDList(List<Id<Insurance>> ids) {
+		return requestList(new Insurance.GetListByIDList(ids), Insurance.class);
+	}
+
+	/**
+	 * method sendInsuranceData
+	 * <p>
+	 * Method to send a insurance data command, answered with a insurance data.
+	 *
+	 * @param cmd - the insurance data command to send
+	 *
+	 * @return CompletableFuture - the insurance data sent as response
+	 */
+	public CompletableFuture<InsuranceData> sendInsuranceData(InsuranceData.Command cmd) {
+		return request(cmd, InsuranceData.class);
+	}
+
+	/**
+	 * method getInsuranceData
+	 * <p>
+	 * Method to get the insurance data with the given id.
+	 *
+	 * @param id - the id of the insurance data
+	 *
+	 * @return CompletableFuture - the requested insurance data
+	 */
+	public CompletableFuture<InsuranceData> getInsuranceData(Id<InsuranceData> id) {
+		return sendInsuranceData(new InsuranceData.Get(id));
+	}
+
+	/**
+	 * method getInsuranceDataList
+	 * <p>
+	 * Method to get the list of insurance data matching the given filter.
+	 *
+	 * @param filter - the filter of the insurance data
+	 *
+	 * @return CompletableFuture - the list of the matching insurance data
+	 */
+	public CompletableFuture<List<InsuranceData>> getInsuranceDataList(InsuranceData.Filter filter) {
+		return requestList(new InsuranceData.GetList(filter), InsuranceData.class);
+	}
+
+	/**
+	 * method getInsuranceDataListByIDList
+	 * <p>
+	 * Method to get the list of insurance data with the given ids by one command.
+	 *
+	 * @param ids - the ids of the insurance data
+	 *
+	 * @return CompletableFuture - the list of the found insurance data
+	 */
+	public CompletableFuture<List<InsuranceData>> getInsuranceDataListByIDList(List<Id<InsuranceData>> ids) {
+		return requestList(new InsuranceData.GetListByIDList(ids), InsuranceData.class);
+	}
+
+	/**
+	 * method sendPatient
+	 * <p>
+	 * Method to send a patient command, answered with a patient.
+	 *
+	 * @param cmd - the patient command to send
+	 *
+	 * @return CompletableFuture - the patient sent as response
+	 */
+	public CompletableFuture<Patient> sendPatient(Patient.Command cmd) {
+		return request(cmd, Patient.class);
+	}
+
+	/**
+	 * method getPatient
+	 * <p>
+	 * Method to get the patient with the given id.
+	 *
+	 * @param id - the id of the patient
+	 *
+	 * @return CompletableFuture - the requested patient
+	 */
+	public CompletableFuture<Patient> getPatient(Id<Patient> id) {
+		return sendPatient(new Patient.Get(id));
+	}
+
+	/**
+	 * method getPatientList
+	 * <p>
+	 * Method to get the list of patients matching the given filter.
+	 *
+	 * @param filter - the filter of the patients
+	 *
+	 * @return CompletableFuture - the list of the matching patients
+	 */
+	public CompletableFuture<List<Patient>> getPatientList(Patient.Filter filter) {
+		return requestList(new Patient.GetList(filter), Patient.class);
+	}
+
+	/**
+	 * method getPatientListByIDList
+	 * <p>
+	 * Method to get the list of patients with the given ids by one command.
+	 *
+	 * @param ids - the ids of the patients
+	 *
+	 * @return CompletableFuture - the list of the found patients
+	 */
+	public CompletableFuture<List<Patient>> getPatientListByIDList(List<Id<Patient>> ids) {
+		return requestList(new Patient.GetListByIDList(ids), Patient.class);
+	}
+
+	/**
+	 * method sendServiceProvider
+	 * <p>
+	 * Method to send a service provider command, answered with a service provider.
+	 *
+	 * @param cmd - the service provider command to send
+	 *
+	 * @return CompletableFuture - the service provider sent as response
+	 */
+	public CompletableFuture<ServiceProvider> sendServiceProvider(ServiceProvider.Command cmd) {
+		return request(cmd, ServiceProvider.class);
+	}
+
+	/**
+	 * method getServiceProvider
+	 * <p>
+	 * Method to get the service provider with the given id, answered from the entity cache if set.
+	 *
+	 * @param id - the id of the service provider
+	 *
+	 * @return CompletableFuture - the requested service provider
+	 */
+	public CompletableFuture<ServiceProvider> getServiceProvider(Id<ServiceProvider> id) {
+		return requestCached(ServiceProvider.class, id, new ServiceProvider.Get(id));
+	}
+
+	/**
+	 * method getServiceProviderList
+	 * <p>
+	 * Method to get the list of service providers matching the given filter.
+	 *
+	 * @param filter - the filter of the service providers
+	 *
+	 * @return CompletableFuture - the list of the matching service providers
+	 */
+	public CompletableFuture<List<ServiceProvider>> getServiceProviderList(ServiceProvider.Filter filter) {
+		return requestList(new ServiceProvider.GetList(filter), ServiceProvider.class);
+	}
+
+	/**
+	 * method getServiceProviderListByIDList
+	 * <p>
+	 * Method to get the list of service providers with the given ids by one command.
+	 *
+	 * @param ids - the ids of the service providers
+	 *
+	 * @return CompletableFuture - the list of the found service providers
+	 */
+	public CompletableFuture<List<ServiceProvider>> getServiceProviderListByIDList(List<Id<ServiceProvider>> ids) {
+		return requestList(new ServiceProvider.GetListByIDList(ids), ServiceProvider.class);
+	}
+
+	/**
+	 * method sendTransportDetails
+	 * <p>
+	 * Method to send a transport details command, answered with a transport details.
+	 *
+	 * @param cmd - the transport details command to send
+	 *
+	 * @return CompletableFuture - the transport details sent as response
+	 */
+	public CompletableFuture<TransportDetails> sendTransportDetails(TransportDetails.Command cmd) {
+		return request(cmd, TransportDetails.class);
+	}
+
+	/**
+	 * method getTransportDetails
+	 * <p>
+	 * Method to get the transport details with the given id.
+	 *
+	 * @param id - the id of the transport details
+	 *
+	 * @return CompletableFuture - the requested transport details
+	 */
+	public CompletableFuture<TransportDetails> getTransportDetails(Id<TransportDetails> id) {
+		return sendTransportDetails(new TransportDetails.Get(id));
+	}
+
+	/**
+	 * method getTransportDetailsList
+	 * <p>
+	 * Method to get the list of transport details matching the given filter.
+	 *
+	 * @param filter - the filter of the transport details
+	 *
+	 * @return CompletableFuture - the list of the matching transport details
+	 */
+	public CompletableFuture<List<TransportDetails>> getTransportDetailsList(TransportDetails.Filter filter) {
+		return requestList(new TransportDetails.GetList(filter), TransportDetails.class);
+	}
+
+	/**
+	 * method getTransportDetailsListByIDList
+	 * <p>
+	 * Method to get the list of transport details with the given ids by one command.
+	 *
+	 * @param ids - the ids of the transport details
+	 *
+	 * @return CompletableFuture - the list of the found transport details
+	 */
+	public CompletableFuture<List<TransportDetails>> getTransportDetailsListByIDList(List<Id<TransportDetails>> ids) {
+		return requestList(new TransportDetails.GetListByIDList(ids), TransportDetails.class);
+	}
+
+	/**
+	 * method getTransportDetailsExpanded
+	 * <p>
+	 * Method to get the transport details with the given id together with the given referenced entities.
+	 *
+	 * @param id - the id of the transport details
+	 * @param expand - the entity types to expand
+	 *
+	 * @return CompletableFuture - the graph holding the transport details as root and the expanded entities
+	 */
+	public CompletableFuture<ComGraph> getTransportDetailsExpanded(Id<TransportDetails> id, List<Expand> expand) {
+		return requestGraph(new TransportDetails.Get(id, expand));
+	}
+
+	/**
+	 * method getTransportDetailsListExpanded
+	 * <p>
+	 * Method to get the list of transport details matching the given filter together with the given referenced entities.
+	 *
+	 * @param filter - the filter of the transport details
+	 * @param expand - the entity types to expand
+	 *
+	 * @return CompletableFuture - the graph holding the matching transport details as roots and the expanded entities
+	 */
+	public CompletableFuture<ComGraph> getTransportDetailsListExpanded(TransportDetails.Filter filter, List<Expand> expand) {
+		return requestGraph(new TransportDetails.GetList(filter, expand));
+	}
+
+	/**
+	 * method sendTransportDocument
+	 * <p>
+	 * Method to send a transport document command, answered with a transport document.
+	 *
+	 * @param cmd - the transport document command to send
+	 *
+	 * @return CompletableFuture - the transport document sent as response
+	 */
+	public CompletableFuture<TransportDocument> sendTransportDocument(TransportDocument.Command cmd) {
+		return request(cmd, TransportDocument.class);
+	}
+
+	/**
+	 * method getTransportDocument
+	 * <p>
+	 * Method to get the transport document with the given id.
+	 *
+	 * @param id - the id of the transport document
+	 *
+	 * @return CompletableFuture - the requested transport document
+	 */
+	public CompletableFuture<TransportDocument> getTransportDocument(Id<TransportDocument> id) {
+		return sendTransportDocument(new TransportDocument.Get(id));
+	}
+
+	/**
+	 * method getTransportDocumentList
+	 * <p>
+	 * Method to get the list of transport documents matching the given filter.
+	 *
+	 * @param filter - the filter of the transport documents
+	 *
+	 * @return CompletableFuture - the list of the matching transport documents
+	 */
+	public CompletableFuture<List<TransportDocument>> getTransportDocumentList(TransportDocument.Filter filter) {
+		return requestList(new TransportDocument.GetList(filter), TransportDocument.class);
+	}
+
+	/**
+	 * method getTransportDocumentListByIDList
+	 * <p>
+	 * Method to get the list of transport documents with the given ids by one command.
+	 *
+	 * @param ids - the ids of the transport documents
+	 *
+	 * @return CompletableFuture - the list of the found transport documents
+	 */
+	public CompletableFuture<List<TransportDocument>> getTransportDocumentListByIDList(List<Id<TransportDocument>> ids) {
+		return requestList(new TransportDocument.GetListByIDList(ids), TransportDocument.class);
+	}
+
+	/**
+	 * method getTransportDocumentExpanded
+	 * <p>
+	 * Method to get the transport document with the given id together with the given referenced entities.
+	 *
+	 * @param id - the id of the transport document
+	 * @param expand - the entity types to expand
+	 *
+	 * @return CompletableFuture - the graph holding the transport document as root and the expanded entities
+	 */
+	public CompletableFuture<ComGraph> getTransportDocumentExpanded(Id<TransportDocument> id, List<Expand> expand) {
+		return requestGraph(new TransportDocument.Get(id, expand));
+	}
+
+	/**
+	 * method getTransportDocumentListExpanded
+	 * <p>
+	 * Method to get the list of transport documents matching the given filter together with the given referenced entities.
+	 *
+	 * @param filter - the filter of the transport documents
+	 * @param expand - the entity types to expand
+	 *
+	 * @return CompletableFuture - the graph holding the matching transport documents as roots and the expanded entities
+	 */
+	public CompletableFuture<ComGraph> getTransportDocumentListExpanded(TransportDocument.Filter filter, List<Expand> expand) {
+		return requestGraph(new TransportDocument.GetList(filter, expand));
+	}
+
+	/**
+	 * method sendUser
+	 * <p>
+	 * Method to send a user command, answered with a user.
+	 *
+	 * @param cmd - the user command to send
+	 *
+	 * @return CompletableFuture - the user sent as response
+	 */
+	public CompletableFuture<User> sendUser(User.Command cmd) {
+		return request(cmd, User.class);
+	}
+
+	/**
+	 * method getUser
+	 * <p>
+	 * Method to get the user with the given id, answered from the entity cache if set.
+	 *
+	 * @param id - the id of the user
+	 *
+	 * @return CompletableFuture - the requested user
+	 */
+	public CompletableFuture<User> getUser(Id<User> id) {
+		return requestCached(User.class, id, new User.Get(id));
+	}
+
+	/**
+	 * method getUserList
+	 * <p>
+	 * Method to get the list of users matching the given filter.
+	 *
+	 * @param filter - the filter of the users
+	 *
+	 * @return CompletableFuture - the list of the matching users
+	 */
+	public CompletableFuture<List<User>> getUserList(User.Filter filter) {
+		return requestList(new User.GetList(filter), User.class);
+	}
+
+	/**
+	 * method getUserListByIDList
+	 * <p>
+	 * Method to get the list of users with the given ids by one command.
+	 *
+	 * @param ids - the ids of the users
+	 *
+	 * @return CompletableFuture - the list of the found users
+	 */
+	public CompletableFuture<List<User>> getUserListByIDList(List<Id<User>> ids) {
+		return requestList(new User.GetListByIDList(ids), User.class);
+	}
+
+	/**
+	 * method sendBatch
+	 * <p>
+	 * Method to send the given batch of commands, processed by the server with one round trip.
+	 *
+	 * @param batch - the batch to send
+	 *
+	 * @return CompletableFuture - the result holding the outcome of every command
+	 */
+	public CompletableFuture<ComBatch.Result> sendBatch(ComBatch batch) {
+		return request(batch, ComBatch.Result.class);
+	}
+
+	/**
+	 * private method requestCached
+	 * <p>
+	 * Method to get the entity of the given type and id from the entity cache or else by sending the given Get-Command,
+	 * caching the response.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the id of the entity
+	 * @param command - the Get-Command of the entity
+	 *
+	 * @return CompletableFuture - the requested entity
+	 */
+	private <T> CompletableFuture<T> requestCached(Class<T> type, Id<T> id, Serializable command) {
+		ComEntityCache cache = this.entityCache;
+		if(cache == null)
+			return request(command, type);
+		T cached = cache.get(type, id);
+		if(cached != null)
+			return CompletableFuture.completedFuture(cached);
+		long stamp = cache.stamp();
+		return request(command, type).thenApply(entity -> {
+			cache.put(type, id, entity, stamp);
+			return entity;
+		});
+	}
+
+	/**
+	 * private method requestGraph
+	 * <p>
+	 * Method to send the given Get- or GetList-Command with entities to expand, expecting a ComGraph as response.
+	 * With an entity cache set, the entities of the graph are cached.
+	 *
+	 * @param command - the command to send
+	 *
+	 * @return CompletableFuture - the received graph
+	 */
+	private CompletableFuture<ComGraph> requestGraph(Serializable command) {
+		ComEntityCache cache = this.entityCache;
+		if(cache == null)
+			return request(command, ComGraph.class);
+		long stamp = cache.stamp();
+		return request(command, ComGraph.class).thenApply(graph -> {
+			cacheAll(cache, graph, TransportDocument.class, stamp);
+			cacheAll(cache, graph, Patient.class, stamp);
+			cacheAll(cache, graph, InsuranceData.class, stamp);
+			cacheAll(cache, graph, Insurance.class, stamp);
+			cacheAll(cache, graph, Address.class, stamp);
+			cacheAll(cache, graph, ServiceProvider.class, stamp);
+			cacheAll(cache, graph, User.class, stamp);
+			return graph;
+		});
+	}
+
+	/**
+	 * private method cacheAll
+	 * <p>
+	 * Method to cache the entities of the given type held by the given graph.
+	 *
+	 * @param <T> - the entity type
+	 * @param cache - the entity cache
+	 * @param graph - the received graph
+	 * @param type - the entity type
+	 * @param stamp - the invalidation stamp taken before the graph has been requested
+	 */
+	private static <T> void cacheAll(ComEntityCache cache, ComGraph graph, Class<T> type, long stamp) {
+		for(Map.Entry<Id<T>, T> entry : graph.index(type).entrySet())
+			cache.put(type, entry.getKey(), entry.getValue(), stamp);
+	}
+
+	@Override
+	public void close() throws IOException {
+		demultiplexer.close();
+	}
+}
@@ -0,0 +1,249 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.exception.UserNotAllowedException;
+import de.ehealth.evek.api.exception.UserNotProvidedException;
+
+/**
+ * record ComBatch
+ * <p>
+ * Batch of commands, processed by the server in their order with one round trip.
+ * <p>
+ * The server applies every command by apply(IComServerReceiver), checking the permission of the processing user
+ * per command, and sends back one Result holding the outcome of every command. A failing command
+ * does not stop the following commands from being applied.
+ * <p>
+ * While a command is applied, the objects sent by the applying thread are collected as its response
+ * instead of being written to the connection.
+ *
+ * @property Commands
+ */
+public record ComBatch(
+		ArrayList<Serializable> commands) implements Serializable {
+
+	private static final long serialVersionUID = 7720641503937428143L;
+
+	private static final ThreadLocal<Collector> COLLECTOR = new ThreadLocal<>();
+
+	/**
+	 * ComBatch
+	 * <p>
+	 * Batch of commands, processed by the server in their order with one round trip.
+	 * <p>
+	 * Constructor requiring the commands to process.
+	 *
+	 * @param commands - the commands to process in their order
+	 */
+	public ComBatch {
+		if(commands == null || commands.isEmpty())
+			throw new IllegalArgumentException("Batch shall contain commands!");
+		for(Serializable command : commands)
+			if(command == null || command instanceof ComBatch || command instanceof User.LoginUser
+					|| ComEncryption.isHandshake(command) || command instanceof ComSessionTicket.Request)
+				throw new IllegalArgumentException("Batch shall not contain null, batches, logins or handshakes!");
+	}
+
+	/**
+	 * method of
+	 * <p>
+	 * Method to get a batch of the given commands.
+	 *
+	 * @param commands - the commands to process in their order
+	 *
+	 * @return ComBatch - the batch of the commands
+	 */
+	public static ComBatch of(List<? extends Serializable> commands) {
+		return new ComBatch(new ArrayList<>(commands));
+	}
+
+	/**
+	 * method apply
+	 * <p>
+	 * Method to apply the commands of the batch by the given receiver, as called by IComServerReceiver.process(ComBatch).
+	 * <p>
+	 * Commands the role of the processing user is not allowed to perform fail with a UserNotAllowedException.
+	 * The batch is refused, when the receiver does not provide its processing user by IComServerReceiver.getProcessingUser().
+	 * Commands not handled by IComServerReceiver.processCommand(Serializable) fail with an IllegalProcessException.
+	 *
+	 * @param receiver - the receiver processing the commands
+	 *
+	 * @return Result - the outcomes of the commands in their order
+	 *
+	 * @throws IllegalProcessException - thrown when no processing user has been set or the receiver does not provide it
+	 */
+	public Result apply(IComServerReceiver receiver) throws IllegalProcessException {
+		if(!receiver.hasProcessingUser())
+			throw new IllegalProcessException(new UserNotProvidedException());
+		User user = receiver.getProcessingUser();
+		if(user == null || user.role() == null)
+			throw new IllegalProcessException("Batch can not be applied without the role of the processing user!");
+		ArrayList<Outcome> outcomes = new ArrayList<>(commands.size());
+		for(Serializable command : commands) {
+			Collector collector = new Collector();
+			COLLECTOR.set(collector);
+			try {
+				if(!user.role().isAllowed(command.getClass()))
+					throw new UserNotAllowedException(user);
+				if(!receiver.processCommand(command))
+					throw new IllegalProcessException(new IllegalArgumentException(
+							String.format("Object of Type %s is not a command!", command.getClass())));
+				outcomes.add(collector.outcome());
+			} catch (Exception e) {
+				outcomes.add(new Outcome(null, ComError.encode(e)));
+			} finally {
+				COLLECTOR.remove();
+			}
+		}
+		return new Result(outcomes);
+	}
+
+	/**
+	 * method collect
+	 * <p>
+	 * Method called by the senders, to collect the given object as response of the command applied by the current thread.
+	 *
+	 * @param object - the object to send
+	 *
+	 * @return boolean - true, if the object has been collected and must not be sent
+	 */
+	static boolean collect(Serializable object) {
+		Collector collector = COLLECTOR.get();
+		if(collector == null || ComEncryption.isHandshake(object))
+			return false;
+		collector.add(object);
+		return true;
+	}
+
+	/**
+	 * record Result
+	 * <p>
+	 * Result of a batch, holding the outcomes of its commands in their order.
+	 *
+	 * @property Outcomes
+	 */
+	public static record Result(
+			ArrayList<Outcome> outcomes) implements Serializable {
+
+		private static final long serialVersionUID = -2913577042862160634L;
+
+		/**
+		 * method failures
+		 * <p>
+		 * Method to get the number of failed commands.
+		 *
+		 * @return int - the number of failed commands
+		 */
+		public int failures() {
+			int failures = 0;
+			for(Outcome outcome : outcomes)
+				if(outcome.failed())
+					failures++;
+			return failures;
+		}
+	}
+
+	/**
+	 * record Outcome
+	 * <p>
+	 * Outcome of one command of a batch, holding its response or the exception it failed with.
+	 * <p>
+	 * The exception is held as sent by the senders, i.E. as ComError for the exceptions of de.ehealth.evek.api.exception,
+	 * and recreated by get().
+	 *
+	 * @property Response, null if the command failed or did not respond
+	 * @property Exception, as encoded by ComError.encode(Throwable), null if the command succeeded
+	 */
+	public static record Outcome(
+			Serializable response,
+			Serializable exception) implements Serializable {
+
+		private static final long serialVersionUID = 4153846298125476301L;
+
+		/**
+		 * method failed
+		 * <p>
+		 * Method to get if the command failed.
+		 *
+		 * @return boolean - true, if the command failed
+		 */
+		public boolean failed() {
+			return exception != null;
+		}
+
+		/**
+		 * method get
+		 * <p>
+		 * Method to get the response of the command, throwing the exception it failed with.
+		 *
+		 * @return Serializable - the response of the command
+		 *
+		 * @throws Exception - the exception the command failed with
+		 */
+		public Serializable get() throws Exception {
+			if(exception == null)
+				return response;
+			Object error = ComError.decode(exception);
+			if(error instanceof Exception)
+				throw (Exception) error;
+			throw new ProcessingException(String.format("Command failed with %s!", error));
+		}
+	}
+
+	/**
+	 * class Collector
+	 * <p>
+	 * Collector of the objects sent while applying one command.
+	 * Chunks of a streamed list are joined to one list, an exception sent marks the command as failed.
+	 */
+	private static final class Collector {
+
+		private Serializable response;
+
+		private Exception exception;
+
+		private ArrayList<Object> streamed;
+
+		/**
+		 * private method add
+		 * <p>
+		 * Method to add the given sent object.
+		 *
+		 * @param object - the sent object
+		 */
+		private void add(Serializable object) {
+			if(object instanceof ComListStream.Chunk) {
+				if(streamed == null)
+					streamed = new ArrayList<>();
+				streamed.addAll(((ComListStream.Chunk) object).elements());
+			} else if(object instanceof ComListStream.End) {
+				if(streamed == null)
+					streamed = new ArrayList<>();
+				response = streamed;
+				streamed = null;
+			} else if(object instanceof Exception) {
+				exception = (Exception) object;
+			} else {
+				response = object;
+			}
+		}
+
+		/**
+		 * private method outcome
+		 * <p>
+		 * Method to get the outcome of the collected objects.
+		 *
+		 * @return Outcome - the outcome of the command
+		 */
+		private Outcome outcome() {
+			if(exception != null)
+				return new Outcome(null, ComError.encode(exception));
+			return new Outcome(response, null);
+		}
+	}
+}
@@ -0,0 +1,772 @@
+package de.ehealth.evek.api.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.type.ComSerialForm;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.type.Reference;
+import de.ehealth.evek.api.util.COptional;
+
+/**
+ * ComBinaryCodec
+ * <p>
+ * Compact binary encoding of the e-VeK records, negotiated per connection as alternative to the Java serialization.
+ * <p>
+ * Every object is written with a type tag. Registered records are written by their components in declaration order:
+ * a varint bitmask of the present nullable components (null or empty COptional) is followed by the present values.
+ * Strings are written UTF-8 encoded with varint length, Id and Reference inline as their id string,
+ * the Id of a Reference being decoded to the canonical Id of Id.of(String),
+ * enums as varint ordinal, java.sql.Date and numbers as zigzag varint, nested records and lists inline by their declared type.
+ * Objects without own encoding (i.E. exceptions) are embedded by their Java serialization.
+ * The codec is installed as Codec of the ComSerialForm, the compact serial form of the entity records.
+ * A COptional component being null is decoded as empty COptional.
+ * <p>
+ * The type tags are part of the protocol: registered tags must never be changed or reused,
+ * new records get new tags. Every entity has a block of 16 tags, its record and its Filter first,
+ * followed by the permitted subtypes of its Command.
+ */
+final class ComBinaryCodec {
+
+	private static final int TAG_NULL = 0;
+
+	private static final int TAG_SERIALIZED = 1;
+
+	private static final int TAG_LIST = 2;
+
+	private static final int MAX_COMPONENTS = Long.SIZE;
+
+	private static final Map<Integer, Class<?>> TYPES_BY_TAG = new HashMap<>();
+
+	private static final Map<Class<?>, Integer> TAGS_BY_TYPE = new HashMap<>();
+
+	private static final ClassValue<RecordCodec> RECORD_CODECS = new ClassValue<>() {
+		@Override
+		protected RecordCodec computeValue(Class<?> type) {
+			return new RecordCodec(type);
+		}
+	};
+
+	private static final ComSerialForm.Codec SERIAL_FORM_CODEC = new ComSerialForm.Codec() {
+		@Override
+		public void write(OutputStream out, Serializable entity) throws IOException {
+			ComBinaryCodec.write(out, entity);
+		}
+
+		@Override
+		public Serializable read(byte[] data, int offset, int length) throws IOException {
+			return ComBinaryCodec.read(data, offset, length);
+		}
+
+		@Override
+		public int maxLength() {
+			return ComFrameCodec.MAX_FRAME_LENGTH;
+		}
+	};
+
+	static {
+		register(8, ComEnvelope.class);
+		register(9, ComSessionTicket.Request.class);
+		register(10, ComListStream.Chunk.class);
+		register(11, ComListStream.End.class);
+		register(12, ComBatch.class);
+		register(13, ComBatch.Result.class);
+		register(14, ComBatch.Outcome.class);
+		register(15, ComError.class);
+
+		register(16, Address.class);
+		register(17, Address.Filter.class);
+		register(18, Address.Create.class);
+		register(19, Address.Delete.class);
+		register(20, Address.Update.class);
+		register(21, Address.Get.class);
+		register(22, Address.GetList.class);
+		register(23, Address.GetListByIDList.class);
+
+		register(32, Insurance.class);
+		register(33, Insurance.Filter.class);
+		register(34, Insurance.Create.class);
+		register(35, Insurance.Delete.class);
+		register(36, Insurance.Move.class);
+		register(37, Insurance.Update.class);
+		register(38, Insurance.Get.class);
+		register(39, Insurance.GetList.class);
+		register(40, Insurance.GetListByIDList.class);
+
+		register(48, InsuranceData.class);
+		register(49, InsuranceData.Filter.class);
+		register(50, InsuranceData.Create.class);
+		register(51, InsuranceData.Delete.class);
+		register(52, InsuranceData.Get.class);
+		register(53, InsuranceData.GetList.class);
+		register(54, InsuranceData.GetListByIDList.class);
+
+		register(64, Patient.class);
+		register(65, Patient.Filter.class);
+		register(66, Patient.Create.class);
+		register(67, Patient.CreateWithInsuranceData.class);
+		register(68, Patient.Delete.class);
+		register(69, Patient.Move.class);
+		register(70, Patient.Update.class);
+		register(71, Patient.UpdateInsuranceData.class);
+		register(72, Patient.Get.class);
+		register(73, Patient.GetList.class);
+		register(74, Patient.GetListByIDList.class);
+
+		register(80, ServiceProvider.class);
+		register(81, ServiceProvider.Filter.class);
+		register(82, ServiceProvider.Create.class);
+		register(83, ServiceProvider.CreateFull.class);
+		register(84, ServiceProvider.Delete.class);
+		register(85, ServiceProvider.Move.class);
+		register(86, ServiceProvider.Update.class);
+		register(87, ServiceProvider.UpdateService.class);
+		register(88, ServiceProvider.Get.class);
+		register(89, ServiceProvider.GetList.class);
+		register(90, ServiceProvider.GetListByIDList.class);
+
+		register(96, TransportDetails.class);
+		register(97, TransportDetails.Filter.class);
+		register(98, TransportDetails.AssignTransportProvider.class);
+		register(99, TransportDetails.Create.class);
+		register(100, TransportDetails.Delete.class);
+		register(101, TransportDetails.Update.class);
+		register(102, TransportDetails.UpdatePatientSignature.class);
+		register(103, TransportDetails.UpdateTransporterSignature.class);
+		register(104, TransportDetails.Get.class);
+		register(105, TransportDetails.GetList.class);
+		register(106, TransportDetails.GetListByIDList.class);
+
+		register(112, TransportDocument.class);
+		register(113, TransportDocument.Filter.class);
+		register(114, TransportDocument.Create.class);
+		register(115, TransportDocument.Update.class);
+		register(116, TransportDocument.AssignPatient.class);
+		register(117, TransportDocument.Archive.class);
+		register(118, TransportDocument.Delete.class);
+		register(119, TransportDocument.Get.class);
+		register(120, TransportDocument.GetList.class);
+		register(121, TransportDocument.GetListByIDList.class);
+
+		register(128, User.class);
+		register(129, User.Filter.class);
+		register(130, User.Create.class);
+		register(131, User.CreateFull.class);
+		register(132, User.Update.class);
+		register(133, User.Delete.class);
+		register(134, User.UpdateRole.class);
+		register(135, User.UpdateCredentials.class);
+		register(136, User.LoginUser.class);
+		register(137, User.Get.class);
+		register(138, User.GetList.class);
+		register(139, User.GetListByIDList.class);
+
+		register(144, ComGraph.class);
+
+		ComSerialForm.install(SERIAL_FORM_CODEC);
+	}
+
+	private ComBinaryCodec() {
+	}
+
+	/**
+	 * method install
+	 * <p>
+	 * Method to install the codec as Codec of the ComSerialForm, called by the classes writing or reading Java serialization,
+	 * so the entity records are written by their compact serial form and read again.
+	 */
+	static void install() {
+		if(!ComSerialForm.isInstalled(SERIAL_FORM_CODEC))
+			ComSerialForm.install(SERIAL_FORM_CODEC);
+	}
+
+	/**
+	 * method write
+	 * <p>
+	 * Method to encode the given object.
+	 *
+	 * @param out - the output to write the encoded object to
+	 * @param object - the object to encode
+	 *
+	 * @throws IOException - thrown when the object could not be encoded
+	 */
+	static void write(OutputStream out, Serializable object) throws IOException {
+		TAGGED.write(out, object);
+	}
+
+	/**
+	 * method read
+	 * <p>
+	 * Method to decode the object of the given encoded data.
+	 *
+	 * @param data - the buffer holding the encoded object
+	 * @param offset - the offset of the encoded object in the buffer
+	 * @param length - the length of the encoded object
+	 *
+	 * @return Serializable - the decoded object
+	 *
+	 * @throws IOException - thrown when the object could not be decoded
+	 */
+	static Serializable read(byte[] data, int offset, int length) throws IOException {
+		Input in = new Input(data, offset, offset + length);
+		Object object = TAGGED.read(in);
+		if(in.position != in.limit)
+			throw new StreamCorruptedException(String.format("%d bytes left after decoding!", in.limit - in.position));
+		if(object != null && !(object instanceof Serializable))
+			throw new InvalidObjectException(String.format("Object of Type %s is not serializable!", object.getClass()));
+		return (Serializable) object;
+	}
+
+	/**
+	 * private method register
+	 * <p>
+	 * Method to register the tag of the given record.
+	 *
+	 * @param tag - the stable tag of the record
+	 * @param type - the record class
+	 */
+	private static void register(int tag, Class<? extends Record> type) {
+		if(TYPES_BY_TAG.putIfAbsent(tag, type) != null || TAGS_BY_TYPE.putIfAbsent(type, tag) != null)
+			throw new IllegalStateException(String.format("Tag %d of %s registered twice!", tag, type.getName()));
+	}
+
+	/**
+	 * private method codecFor
+	 * <p>
+	 * Method to get the codec of a value of the given declared type.
+	 *
+	 * @param type - the declared type of the value
+	 *
+	 * @return ValueCodec - the codec of the value
+	 */
+	private static ValueCodec codecFor(Type type) {
+		if(type instanceof ParameterizedType) {
+			ParameterizedType parameterized = (ParameterizedType) type;
+			Type raw = parameterized.getRawType();
+			Type argument = parameterized.getActualTypeArguments()[0];
+			if(raw == Id.class)
+				return Scalar.ID;
+			if(raw == Reference.class)
+				return Scalar.REFERENCE;
+			if(raw == COptional.class)
+				return new OptionalCodec(codecFor(argument));
+			if(raw == List.class || raw == ArrayList.class)
+				return new ListCodec(codecFor(argument));
+			return codecFor(raw);
+		}
+		if(!(type instanceof Class<?>))
+			return TAGGED;
+		Class<?> cls = (Class<?>) type;
+		if(cls == String.class)
+			return Scalar.STRING;
+		if(cls == boolean.class || cls == Boolean.class)
+			return Scalar.BOOLEAN;
+		if(cls == int.class || cls == Integer.class)
+			return Scalar.INT;
+		if(cls == long.class || cls == Long.class)
+			return Scalar.LONG;
+		if(cls == Date.class)
+			return Scalar.DATE;
+		if(cls == Id.class)
+			return Scalar.ID;
+		if(cls == Reference.class)
+			return Scalar.REFERENCE;
+		if(cls.isEnum())
+			return new EnumCodec(cls.getEnumConstants());
+		if(cls.isRecord() && cls.getRecordComponents().length <= MAX_COMPONENTS)
+			return new InlineRecordCodec(cls);
+		return TAGGED;
+	}
+
+	/**
+	 * private method writeVarLong
+	 * <p>
+	 * Method to write the given value as unsigned varint.
+	 *
+	 * @param out - the output to write to
+	 * @param value - the value to write
+	 *
+	 * @throws IOException - thrown when writing fails
+	 */
+	private static void writeVarLong(OutputStream out, long value) throws IOException {
+		while((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * private method writeSignedVarLong
+	 * <p>
+	 * Method to write the given value as zigzag encoded varint.
+	 *
+	 * @param out - the output to write to
+	 * @param value - the value to write
+	 *
+	 * @throws IOException - thrown when writing fails
+	 */
+	private static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+		writeVarLong(out, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * private method writeString
+	 * <p>
+	 * Method to write the given string UTF-8 encoded with its varint length.
+	 *
+	 * @param out - the output to write to
+	 * @param value - the string to write
+	 *
+	 * @throws IOException - thrown when writing fails
+	 */
+	private static void writeString(OutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * interface ValueCodec
+	 * <p>
+	 * Codec of the values of one declared type.
+	 */
+	private static interface ValueCodec {
+
+		void write(OutputStream out, Object value) throws IOException;
+
+		Object read(Input in) throws IOException;
+	}
+
+	/**
+	 * enum Scalar
+	 * <p>
+	 * Codecs of the values written inline without type tag.
+	 *
+	 * @implements ValueCodec
+	 */
+	private static enum Scalar implements ValueCodec {
+		STRING {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeString(out, (String) value);
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return in.readString();
+			}
+		},
+		BOOLEAN {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				out.write((Boolean) value ? 1 : 0);
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return in.readByte() != 0;
+			}
+		},
+		INT {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeSignedVarLong(out, (Integer) value);
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				long value = in.readSignedVarLong();
+				if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+					throw new StreamCorruptedException(String.format("Invalid int %d!", value));
+				return (int) value;
+			}
+		},
+		LONG {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeSignedVarLong(out, (Long) value);
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return in.readSignedVarLong();
+			}
+		},
+		DATE {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeSignedVarLong(out, ((Date) value).getTime());
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return new Date(in.readSignedVarLong());
+			}
+		},
+		ID {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeString(out, ((Id<?>) value).value());
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return new Id<>(in.readString());
+			}
+		},
+		REFERENCE {
+			@Override
+			public void write(OutputStream out, Object value) throws IOException {
+				writeString(out, ((Reference<?>) value).id().value());
+			}
+
+			@Override
+			public Object read(Input in) throws IOException {
+				return Reference.to(in.readString());
+			}
+		};
+	}
+
+	/**
+	 * record EnumCodec
+	 * <p>
+	 * Codec of enum constants, written as their varint ordinal.
+	 *
+	 * @property Constants
+	 *
+	 * @implements ValueCodec
+	 */
+	private static record EnumCodec(Object[] constants) implements ValueCodec {
+
+		@Override
+		public void write(OutputStream out, Object value) throws IOException {
+			writeVarLong(out, ((Enum<?>) value).ordinal());
+		}
+
+		@Override
+		public Object read(Input in) throws IOException {
+			long ordinal = in.readVarLong();
+			if(ordinal < 0 || ordinal >= constants.length)
+				throw new StreamCorruptedException(String.format("Invalid ordinal %d!", ordinal));
+			return constants[(int) ordinal];
+		}
+	}
+
+	/**
+	 * record OptionalCodec
+	 * <p>
+	 * Codec of the value of a present COptional, its presence is written by the bitmask of the record.
+	 *
+	 * @property Value codec
+	 *
+	 * @implements ValueCodec
+	 */
+	private static record OptionalCodec(ValueCodec valueCodec) implements ValueCodec {
+
+		@Override
+		public void write(OutputStream out, Object value) throws IOException {
+			valueCodec.write(out, ((COptional<?>) value).get());
+		}
+
+		@Override
+		public Object read(Input in) throws IOException {
+			return COptional.of(valueCodec.read(in));
+		}
+	}
+
+	/**
+	 * record ListCodec
+	 * <p>
+	 * Codec of a list with elements of one declared type, written with its varint size.
+	 *
+	 * @property Element codec
+	 *
+	 * @implements ValueCodec
+	 */
+	private static record ListCodec(ValueCodec elementCodec) implements ValueCodec {
+
+		@Override
+		public void write(OutputStream out, Object value) throws IOException {
+			List<?> list = (List<?>) value;
+			writeVarLong(out, list.size());
+			for(Object element : list) {
+				if(element == null && elementCodec != TAGGED)
+					throw new NotSerializableException("Null elements of typed lists can not be encoded!");
+				elementCodec.write(out, element);
+			}
+		}
+
+		@Override
+		public Object read(Input in) throws IOException {
+			int size = in.readLength();
+			ArrayList<Object> list = new ArrayList<>(Math.min(size, in.limit - in.position));
+			for(int i = 0; i < size; i++)
+				list.add(elementCodec.read(in));
+			return list;
+		}
+	}
+
+	/**
+	 * record InlineRecordCodec
+	 * <p>
+	 * Codec of a record of a declared record type, written without type tag.
+	 * The RecordCodec is looked up on first use, so records may contain themselves.
+	 *
+	 * @property Type
+	 *
+	 * @implements ValueCodec
+	 */
+	private static record InlineRecordCodec(Class<?> type) implements ValueCodec {
+
+		@Override
+		public void write(OutputStream out, Object value) throws IOException {
+			RECORD_CODECS.get(type).write(out, value);
+		}
+
+		@Override
+		public Object read(Input in) throws IOException {
+			return RECORD_CODECS.get(type).read(in);
+		}
+	}
+
+	/**
+	 * Codec of values of any type, written with type tag.
+	 */
+	private static final ValueCodec TAGGED = new ValueCodec() {
+
+		@Override
+		public void write(OutputStream out, Object value) throws IOException {
+			if(value == null) {
+				writeVarLong(out, TAG_NULL);
+				return;
+			}
+			Integer tag = TAGS_BY_TYPE.get(value.getClass());
+			if(tag != null) {
+				writeVarLong(out, tag);
+				RECORD_CODECS.get(value.getClass()).write(out, value);
+				return;
+			}
+			if(value instanceof List<?>) {
+				writeVarLong(out, TAG_LIST);
+				List<?> list = (List<?>) value;
+				writeVarLong(out, list.size());
+				for(Object element : list)
+					write(out, element);
+				return;
+			}
+			if(!(value instanceof Serializable))
+				throw new NotSerializableException(value.getClass().getName());
+			ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+			try(ObjectOutputStream objOut = new ObjectOutputStream(serialized)) {
+				objOut.writeObject(value);
+			}
+			writeVarLong(out, TAG_SERIALIZED);
+			writeVarLong(out, serialized.size());
+			serialized.writeTo(out);
+		}
+
+		@Override
+		public Object read(Input in) throws IOException {
+			long tag = in.readVarLong();
+			if(tag == TAG_NULL)
+				return null;
+			if(tag == TAG_LIST) {
+				int size = in.readLength();
+				ArrayList<Object> list = new ArrayList<>(Math.min(size, in.limit - in.position));
+				for(int i = 0; i < size; i++)
+					list.add(read(in));
+				return list;
+			}
+			if(tag == TAG_SERIALIZED) {
+				int length = in.readLength();
+				int offset = in.skip(length);
+				try(ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(in.data, offset, length))) {
+					return objIn.readObject();
+				} catch(ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			}
+			Class<?> type = tag > Integer.MAX_VALUE ? null : TYPES_BY_TAG.get((int) tag);
+			if(type == null)
+				throw new StreamCorruptedException(String.format("Unknown type tag %d!", tag));
+			return RECORD_CODECS.get(type).read(in);
+		}
+	};
+
+	/**
+	 * class RecordCodec
+	 * <p>
+	 * Codec of the components of one record class.
+	 */
+	private static final class RecordCodec {
+
+		private final Class<?> type;
+
+		private final Method[] accessors;
+
+		private final ValueCodec[] codecs;
+
+		private final boolean[] primitive;
+
+		private final boolean[] optional;
+
+		private final Constructor<?> constructor;
+
+		private RecordCodec(Class<?> type) {
+			RecordComponent[] components = type.getRecordComponents();
+			if(components == null || components.length > MAX_COMPONENTS)
+				throw new IllegalArgumentException(String.format("%s can not be encoded by its components!", type.getName()));
+			this.type = type;
+			this.accessors = new Method[components.length];
+			this.codecs = new ValueCodec[components.length];
+			this.primitive = new boolean[components.length];
+			this.optional = new boolean[components.length];
+			Class<?>[] componentTypes = new Class<?>[components.length];
+			for(int i = 0; i < components.length; i++) {
+				accessors[i] = components[i].getAccessor();
+				codecs[i] = codecFor(components[i].getGenericType());
+				componentTypes[i] = components[i].getType();
+				primitive[i] = componentTypes[i].isPrimitive();
+				optional[i] = componentTypes[i] == COptional.class;
+			}
+			try {
+				this.constructor = type.getDeclaredConstructor(componentTypes);
+				for(Method accessor : accessors)
+					accessor.setAccessible(true);
+				constructor.setAccessible(true);
+			} catch(NoSuchMethodException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+
+		private void write(OutputStream out, Object record) throws IOException {
+			Object[] values = new Object[accessors.length];
+			long presence = 0;
+			try {
+				for(int i = 0; i < accessors.length; i++) {
+					values[i] = accessors[i].invoke(record);
+					if(!primitive[i] && values[i] != null
+							&& !(optional[i] && ((COptional<?>) values[i]).isEmpty()))
+						presence |= 1L << i;
+				}
+			} catch(IllegalAccessException | InvocationTargetException e) {
+				throw new NotSerializableException(String.format("%s: %s", type.getName(), e));
+			}
+			writeVarLong(out, presence);
+			for(int i = 0; i < values.length; i++)
+				if(primitive[i] || (presence & (1L << i)) != 0)
+					codecs[i].write(out, values[i]);
+		}
+
+		private Object read(Input in) throws IOException {
+			long presence = in.readVarLong();
+			Object[] values = new Object[codecs.length];
+			for(int i = 0; i < codecs.length; i++) {
+				if(primitive[i] || (presence & (1L << i)) != 0)
+					values[i] = codecs[i].read(in);
+				else if(optional[i])
+					values[i] = COptional.empty();
+			}
+			try {
+				return constructor.newInstance(values);
+			} catch(InvocationTargetException e) {
+				InvalidObjectException invalid = new InvalidObjectException(
+						String.format("%s could not be created: %s", type.getName(), e.getCause()));
+				invalid.initCause(e.getCause());
+				throw invalid;
+			} catch(ReflectiveOperationException | IllegalArgumentException e) {
+				throw new InvalidObjectException(String.format("%s could not be created: %s", type.getName(), e));
+			}
+		}
+	}
+
+	/**
+	 * class Input
+	 * <p>
+	 * Bounds checked cursor on the encoded data.
+	 */
+	private static final class Input {
+
+		private final byte[] data;
+
+		private final int limit;
+
+		private int position;
+
+		private Input(byte[] data, int offset, int limit) {
+			this.data = data;
+			this.position = offset;
+			this.limit = limit;
+		}
+
+		private int readByte() throws IOException {
+			if(position >= limit)
+				throw new EOFException();
+			return data[position++] & 0xFF;
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < Long.SIZE; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if((b & 0x80) == 0)
+					return value;
+			}
+			throw new StreamCorruptedException("Malformed varint!");
+		}
+
+		private long readSignedVarLong() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private int readLength() throws IOException {
+			long length = readVarLong();
+			if(length < 0 || length > limit - position)
+				throw new StreamCorruptedException(String.format("Invalid length %d!", length));
+			return (int) length;
+		}
+
+		private int skip(int length) {
+			int offset = position;
+			position += length;
+			return offset;
+		}
+
+		private String readString() throws IOException {
+			int length = readLength();
+			return new String(data, skip(length), length, StandardCharsets.UTF_8);
+		}
+	}
+}
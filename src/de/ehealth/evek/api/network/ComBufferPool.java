@@ -0,0 +1,60 @@
+package de.ehealth.evek.api.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ComBufferPool
+ * <p>
+ * Class used for pooling the buffers received frames are read into by the ComChannelServer.
+ * <p>
+ * Frames up to CHUNK_SIZE share pooled buffers, larger frames get a buffer of their own.
+ * Idle connections do not hold any buffer.
+ */
+final class ComBufferPool {
+
+	static final int CHUNK_SIZE = 16 * 1024;
+
+	private static final int MAX_POOLED_BUFFERS = 1024;
+
+	private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+	/**
+	 * method acquire
+	 * <p>
+	 * Method to get a buffer for a frame of the given length.
+	 *
+	 * @param length - the length of the frame
+	 *
+	 * @return ByteBuffer - the buffer, limited to the length of the frame
+	 */
+	ByteBuffer acquire(int length) {
+		if(length > CHUNK_SIZE)
+			return ByteBuffer.allocate(length);
+		ByteBuffer buffer = buffers.poll();
+		if(buffer == null)
+			buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		else
+			pooledBuffers.decrementAndGet();
+		buffer.clear().limit(length);
+		return buffer;
+	}
+
+	/**
+	 * method release
+	 * <p>
+	 * Method to return a buffer acquired before, when the frame has been handled.
+	 *
+	 * @param buffer - the buffer to return
+	 */
+	void release(ByteBuffer buffer) {
+		if(buffer.capacity() != CHUNK_SIZE || pooledBuffers.get() >= MAX_POOLED_BUFFERS)
+			return;
+		pooledBuffers.incrementAndGet();
+		buffers.offer(buffer);
+	}
+}
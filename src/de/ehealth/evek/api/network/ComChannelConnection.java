@@ -0,0 +1,311 @@
+package de.ehealth.evek.api.network;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComChannelConnection
+ * <p>
+ * Class used for one client connection of the ComChannelServer.
+ * <p>
+ * The selector thread splits the received data into frames, which are decoded and handled in order
+ * by one worker at a time. Sent frames are queued and written by the selector thread.
+ * Connections with too many frames waiting to be handled are not read from, until the worker caught up.
+ * <p>
+ * Until the receiver has a processing user, frames are limited to MAX_UNAUTHENTICATED_FRAME_LENGTH,
+ * so peers not logged in can not make the server allocate large buffers.
+ * Connections with more than MAX_OUTBOUND_BYTES queued for writing are not read from, until the queue
+ * is written down to the half, and are closed when their queue exceeds MAX_QUEUED_BYTES,
+ * so clients not reading their responses can not make the server buffer without bound.
+ */
+final class ComChannelConnection {
+
+	private static final int MAX_PENDING_FRAMES = 64;
+
+	static final int MAX_UNAUTHENTICATED_FRAME_LENGTH = 64 * 1024;
+
+	static final long MAX_OUTBOUND_BYTES = 8L * 1024 * 1024;
+
+	static final long MAX_QUEUED_BYTES = 64L * 1024 * 1024;
+
+	private final ComChannelServer server;
+
+	private final SocketChannel channel;
+
+	private final SelectionKey key;
+
+	private final ComChannelSender sender;
+
+	private final IComServerReceiver receiver;
+
+	private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+
+	private ByteBuffer frame;
+
+	private final Queue<ByteBuffer> inbound = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingFrames = new AtomicInteger();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong outboundBytes = new AtomicLong();
+
+	private volatile boolean writeBlocked = false;
+
+	private volatile boolean authenticated = false;
+
+	private volatile boolean closed = false;
+
+	/**
+	 * ComChannelConnection
+	 * <p>
+	 * Class used for one client connection of the ComChannelServer.
+	 * <p>
+	 * Constructor requiring the server, the accepted channel and its registered key.
+	 *
+	 * @param server - the server the connection has been accepted by
+	 * @param channel - the channel of the connection
+	 * @param key - the key the channel is registered with at the selector of the server
+	 */
+	ComChannelConnection(ComChannelServer server, SocketChannel channel, SelectionKey key) {
+		this.server = server;
+		this.channel = channel;
+		this.key = key;
+		this.sender = new ComChannelSender(this);
+		this.receiver = server.createReceiver(sender);
+	}
+
+	/**
+	 * method read
+	 * <p>
+	 * Method called by the selector thread to read the available data and queue the completed frames.
+	 *
+	 * @param readBuffer - the read buffer of the selector thread
+	 *
+	 * @return boolean - false, if the end of the stream has been reached
+	 *
+	 * @throws IOException - thrown when reading fails or an invalid frame has been received
+	 */
+	boolean read(ByteBuffer readBuffer) throws IOException {
+		readBuffer.clear();
+		if(channel.read(readBuffer) < 0)
+			return false;
+		readBuffer.flip();
+
+		boolean received = false;
+		while(readBuffer.hasRemaining()) {
+			if(frame == null) {
+				transfer(readBuffer, header);
+				if(header.hasRemaining())
+					break;
+				int length = header.getInt(0);
+				header.clear();
+				int maxLength = authenticated ? ComFrameCodec.MAX_FRAME_LENGTH : MAX_UNAUTHENTICATED_FRAME_LENGTH;
+				if(length <= 0 || length > maxLength)
+					throw new IOException(String.format("Invalid frame length %d!", length));
+				frame = server.getBufferPool().acquire(length);
+			}
+			transfer(readBuffer, frame);
+			if(frame.hasRemaining())
+				break;
+
+			frame.flip();
+			inbound.add(frame);
+			frame = null;
+			received = true;
+			if(pendingFrames.incrementAndGet() >= MAX_PENDING_FRAMES)
+				updateReading();
+		}
+		if(received)
+			schedule();
+		return true;
+	}
+
+	/**
+	 * method write
+	 * <p>
+	 * Method called by the selector thread to write the queued frames, as far as the channel accepts them.
+	 *
+	 * @throws IOException - thrown when writing fails
+	 */
+	void write() throws IOException {
+		ByteBuffer buffer;
+		while((buffer = outbound.peek()) != null) {
+			int written = channel.write(buffer);
+			long queued = outboundBytes.addAndGet(-written);
+			if(writeBlocked && queued <= MAX_OUTBOUND_BYTES / 2) {
+				writeBlocked = false;
+				updateReading();
+			}
+			if(buffer.hasRemaining())
+				return;
+			outbound.poll();
+		}
+		key.interestOpsAnd(~SelectionKey.OP_WRITE);
+		if(!outbound.isEmpty())
+			key.interestOpsOr(SelectionKey.OP_WRITE);
+	}
+
+	/**
+	 * method send
+	 * <p>
+	 * Method called by the ComChannelSender to queue an encoded frame for writing.
+	 *
+	 * @param frame - the encoded frame including its length prefix
+	 *
+	 * @throws IOException - thrown when the connection has been closed
+	 * 		or has been closed for too many bytes queued, as the client does not read
+	 */
+	void send(ByteBuffer frame) throws IOException {
+		if(closed)
+			throw new IOException("Connection has been closed!");
+		long queued = outboundBytes.addAndGet(frame.remaining());
+		if(queued > MAX_QUEUED_BYTES) {
+			close();
+			throw new IOException(String.format("Connection closed with %d bytes queued for writing!", queued));
+		}
+		if(queued > MAX_OUTBOUND_BYTES && !writeBlocked) {
+			writeBlocked = true;
+			updateReading();
+		}
+		outbound.add(frame);
+		try {
+			key.interestOpsOr(SelectionKey.OP_WRITE);
+		} catch (CancelledKeyException e) {
+			throw new IOException("Connection has been closed!", e);
+		}
+		server.wakeup();
+	}
+
+	/**
+	 * method close
+	 * <p>
+	 * Method to close the connection.
+	 */
+	void close() {
+		closed = true;
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.sendException(e);
+		}
+	}
+
+	/**
+	 * private method schedule
+	 * <p>
+	 * Method to schedule handling of the queued frames, if no worker is handling them yet.
+	 */
+	private void schedule() {
+		if(scheduled.compareAndSet(false, true))
+			server.execute(this::process);
+	}
+
+	/**
+	 * private method process
+	 * <p>
+	 * Method run by a worker to handle the queued frames in order.
+	 */
+	private void process() {
+		while(true) {
+			ByteBuffer frame = inbound.poll();
+			if(frame == null) {
+				scheduled.set(false);
+				if(inbound.isEmpty() || !scheduled.compareAndSet(false, true))
+					return;
+				continue;
+			}
+			try {
+				if(!closed)
+					handle(frame);
+				if(!authenticated && receiver.hasProcessingUser())
+					authenticated = true;
+			} finally {
+				server.getBufferPool().release(frame);
+			}
+			if(pendingFrames.decrementAndGet() == MAX_PENDING_FRAMES - 1)
+				updateReading();
+		}
+	}
+
+	/**
+	 * private method handle
+	 * <p>
+	 * Method to decode the given frame and pass its object to the IComServerReceiver.
+	 * Exceptions of the processing are sent back to the client, failed decoding or decryption closes the connection.
+	 *
+	 * @param frame - the received frame
+	 */
+	private void handle(ByteBuffer frame) {
+		try {
+			ComEncryption encryption = sender.getEncryption();
+			Serializable object = encryption != null && encryption.usesFraming()
+					? encryption.decodeFrame(frame.array(), frame.limit())
+					: ComFrameCodec.deserialize(frame.array(), 0, frame.limit());
+			if(!receiver.receiveObject(object))
+				Log.sendMessage(String.format("	Object of Type %s could not be handled!", object.getClass()));
+		} catch(IOException e) {
+			Log.sendException(e);
+			close();
+		} catch(Exception e) {
+			Log.sendException(e);
+			try {
+				sender.send(e);
+			} catch (IOException ex) {
+				Log.sendException(ex);
+				close();
+			}
+		} finally {
+			ComEnvelope.clearCorrelation();
+		}
+	}
+
+	/**
+	 * private method updateReading
+	 * <p>
+	 * Method to stop reading, when too many frames are waiting to be handled or too many bytes are waiting to be written,
+	 * or to continue reading.
+	 */
+	private synchronized void updateReading() {
+		try {
+			if(pendingFrames.get() >= MAX_PENDING_FRAMES || writeBlocked) {
+				key.interestOpsAnd(~SelectionKey.OP_READ);
+				return;
+			}
+			key.interestOpsOr(SelectionKey.OP_READ);
+			server.wakeup();
+		} catch (CancelledKeyException e) {
+			return;
+		}
+	}
+
+	/**
+	 * private method transfer
+	 * <p>
+	 * Method to copy as much data from the source to the target buffer, as both buffers allow.
+	 *
+	 * @param source - the buffer to copy from
+	 * @param target - the buffer to copy to
+	 */
+	private static void transfer(ByteBuffer source, ByteBuffer target) {
+		int length = Math.min(source.remaining(), target.remaining());
+		int limit = source.limit();
+		source.limit(source.position() + length);
+		target.put(source);
+		source.limit(limit);
+	}
+}
@@ -0,0 +1,149 @@
+package de.ehealth.evek.api.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.EncryptionException;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComChannelSender
+ * <p>
+ * Implementation of IComServerSender for connections handled by the ComChannelServer.
+ * <p>
+ * Objects are encoded as length-prefixed frames and written back through the selector loop of the server.
+ * The encryption of the connection is set by ComEncryption, when the handshake has been finished.
+ *
+ * @implements IComServerSender
+ */
+public class ComChannelSender implements IComServerSender {
+
+	private final ComChannelConnection connection;
+
+	private volatile ComEncryption encryption;
+
+	/**
+	 * ComChannelSender
+	 * <p>
+	 * Implementation of IComServerSender for connections handled by the ComChannelServer.
+	 * <p>
+	 * Constructor requiring the connection to send the objects on.
+	 *
+	 * @param connection - the connection to send the objects on
+	 */
+	ComChannelSender(ComChannelConnection connection) {
+		this.connection = connection;
+	}
+
+	/**
+	 * method setEncryption
+	 * <p>
+	 * Method called by the ComEncryption of the connection, when encryption has been initialized.
+	 *
+	 * @param encryption - the ComEncryption used to encrypt sent and decrypt received objects
+	 */
+	void setEncryption(ComEncryption encryption) {
+		this.encryption = encryption;
+	}
+
+	/**
+	 * method getEncryption
+	 * <p>
+	 * Method to get the encryption of the connection.
+	 *
+	 * @return ComEncryption - the ComEncryption of the connection or null, if encryption is not in usage
+	 */
+	ComEncryption getEncryption() {
+		return encryption;
+	}
+
+	@Override
+	public synchronized void sendAsObject(Serializable object) throws IOException {
+		if(ComBatch.collect(object))
+			return;
+		if(object instanceof Throwable)
+			object = ComError.encode((Throwable) object);
+		try {
+			object = ComEnvelope.wrap(object);
+			ComEncryption encryption = this.encryption;
+			boolean plain = encryption == null || ComEncryption.isHandshake(object);
+			ByteArrayOutputStream frame = new ByteArrayOutputStream();
+			DataOutputStream frameOutput = new DataOutputStream(frame);
+			if(!plain && encryption.usesFraming())
+				encryption.writeObject(frameOutput, object);
+			else
+				ComFrameCodec.writePlainFrame(frameOutput, plain ? object : encryption.encryptObject(object));
+			connection.send(ByteBuffer.wrap(frame.toByteArray()));
+		}catch(IOException e) {
+			Log.sendException(e);
+			throw e;
+		}
+	}
+
+	@Override
+	public ComEncryption useEncryption(@SuppressWarnings("exports") IComReceiver receiver) throws EncryptionException {
+		throw new EncryptionException("Encryption of the server side is initialized by ComEncryption.useEncryption(ComEncryptionKey)!");
+	}
+
+	@Override
+	public void send(Address object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Insurance object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(InsuranceData object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Patient object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(ServiceProvider object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(TransportDetails object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(TransportDocument object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(User object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Throwable e) throws IOException {
+		sendAsObject(e);
+	}
+
+	@Override
+	public void send(ArrayList<?> list) throws IOException {
+		sendAsObject(list);
+	}
+}
@@ -0,0 +1,264 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComChannelServer
+ * <p>
+ * Non-blocking server transport, handling all client connections with one selector thread and a bounded worker pool.
+ * <p>
+ * Clients have to use the frame transport (i.E. ComClientSender(Socket, true) and ComClientReceiver(Socket, true)),
+ * sending every object as length-prefixed frame. Received frames are passed in order to the IComServerReceiver
+ * of their connection, responses are sent by its ComChannelSender through the selector thread.
+ * <p>
+ * The IComServerReceiver initializes encryption as usual by ComEncryption.useEncryption(ComEncryptionKey)
+ * and may allow framing by ComEncryption.allowFraming(boolean) and the binary codec by ComEncryption.allowBinaryCodec(boolean).
+ *
+ * @implements Closeable
+ */
+public class ComChannelServer implements Closeable {
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private static final int BACKLOG = 1024;
+
+	private final ServerSocketChannel serverChannel;
+
+	private final Selector selector;
+
+	private final ExecutorService workers;
+
+	private final Function<ComChannelSender, IComServerReceiver> receiverFactory;
+
+	private final ComBufferPool bufferPool = new ComBufferPool();
+
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+	private Thread selectorThread;
+
+	private volatile boolean running = false;
+
+	/**
+	 * ComChannelServer
+	 * <p>
+	 * Non-blocking server transport, handling all client connections with one selector thread and a bounded worker pool.
+	 * <p>
+	 * Constructor requiring the port to listen on, the number of worker threads and the factory for the receivers of the connections.
+	 *
+	 * @param port - the port to listen on, 0 for any free port
+	 * @param workerThreads - the number of worker threads handling the received objects
+	 * @param receiverFactory - the factory creating the IComServerReceiver of a new connection with its ComChannelSender
+	 *
+	 * @throws IOException - thrown when the server channel can not be opened
+	 */
+	public ComChannelServer(int port, int workerThreads,
+			Function<ComChannelSender, IComServerReceiver> receiverFactory) throws IOException {
+		if(workerThreads < 1)
+			throw new IllegalArgumentException("At least one worker thread is required!");
+		if(receiverFactory == null)
+			throw new IllegalArgumentException("Receiver factory shall not be null!");
+		this.receiverFactory = receiverFactory;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			serverChannel.close();
+			selector.close();
+			throw e;
+		}
+
+		AtomicInteger workerCount = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workerThreads, task -> {
+			Thread worker = new Thread(task, "ComChannelServer-Worker-" + workerCount.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+	}
+
+	/**
+	 * method start
+	 * <p>
+	 * Method to start accepting and handling connections.
+	 */
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		selectorThread = new Thread(this::run, "ComChannelServer-Selector");
+		selectorThread.start();
+		Log.sendMessage(String.format("Channel server listening on port %d", getLocalPort()));
+	}
+
+	/**
+	 * method getLocalPort
+	 * <p>
+	 * Method to get the port the server is listening on.
+	 *
+	 * @return int - the port of the server or -1, if the server has been closed
+	 */
+	public int getLocalPort() {
+		try {
+			return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+		} catch (IOException | NullPointerException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		Thread selectorThread;
+		synchronized(this) {
+			running = false;
+			selectorThread = this.selectorThread;
+		}
+		selector.wakeup();
+		try {
+			if(selectorThread != null && Thread.currentThread() != selectorThread)
+				selectorThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		workers.shutdown();
+		for(SelectionKey key : selector.keys())
+			if(key.attachment() instanceof ComChannelConnection)
+				((ComChannelConnection) key.attachment()).close();
+		serverChannel.close();
+		selector.close();
+	}
+
+	/**
+	 * method createReceiver
+	 * <p>
+	 * Method to create the IComServerReceiver of a new connection.
+	 *
+	 * @param sender - the ComChannelSender of the connection
+	 *
+	 * @return IComServerReceiver - the receiver of the connection
+	 */
+	IComServerReceiver createReceiver(ComChannelSender sender) {
+		IComServerReceiver receiver = receiverFactory.apply(sender);
+		if(receiver == null)
+			throw new IllegalStateException("Receiver factory returned null!");
+		return receiver;
+	}
+
+	/**
+	 * method getBufferPool
+	 * <p>
+	 * Method to get the pool of the buffers the received frames are read into.
+	 *
+	 * @return ComBufferPool - the buffer pool of the server
+	 */
+	ComBufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * method execute
+	 * <p>
+	 * Method to run the given task on the worker pool.
+	 *
+	 * @param task - the task to run
+	 */
+	void execute(Runnable task) {
+		try {
+			workers.execute(task);
+		} catch (RejectedExecutionException e) {
+			Log.sendMessage("Channel server has been closed, task rejected!");
+		}
+	}
+
+	/**
+	 * method wakeup
+	 * <p>
+	 * Method to wake up the selector thread, i.E. when frames have been queued for writing.
+	 */
+	void wakeup() {
+		selector.wakeup();
+	}
+
+	/**
+	 * private method run
+	 * <p>
+	 * Selector loop accepting new connections and reading and writing the frames of all connections.
+	 */
+	private void run() {
+		while(running) {
+			try {
+				selector.select();
+			} catch (IOException e) {
+				Log.sendException(e);
+				return;
+			}
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while(keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if(key.isValid() && key.isAcceptable()) {
+					accept();
+					continue;
+				}
+				ComChannelConnection connection = (ComChannelConnection) key.attachment();
+				try {
+					if(key.isValid() && key.isReadable() && !connection.read(readBuffer)) {
+						connection.close();
+						continue;
+					}
+					if(key.isValid() && key.isWritable())
+						connection.write();
+				} catch (IOException | CancelledKeyException e) {
+					Log.sendException(e);
+					connection.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * private method accept
+	 * <p>
+	 * Method to accept a new connection and register it at the selector.
+	 */
+	private void accept() {
+		SocketChannel channel = null;
+		try {
+			channel = serverChannel.accept();
+			if(channel == null)
+				return;
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new ComChannelConnection(this, channel, key));
+		} catch (Exception e) {
+			Log.sendMessage("Connection could not be accepted!");
+			Log.sendException(e);
+			if(channel != null) {
+				try {
+					channel.close();
+				} catch (IOException ex) {
+					Log.sendException(ex);
+				}
+			}
+		}
+	}
+}
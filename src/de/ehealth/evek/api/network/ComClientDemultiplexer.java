@@ -0,0 +1,311 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.ehealth.evek.api.exception.WrongObjectTypeException;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComClientDemultiplexer
+ * <p>
+ * Client for pipelining commands, without waiting for the response of the previous command.
+ * <p>
+ * Every command is sent in a ComEnvelope with a new correlation id.
+ * The responses are read by a reader thread and routed by their correlation id to the caller waiting for it,
+ * exceptions sent by the server are thrown to that caller. Responses of correlation ids given up by receive(long, long, TimeUnit)
+ * are dropped. Once the connection failed or has been closed, all pending responses fail with an IOException.
+ * Lists streamed by the server as ComListStream are collected until their End and received as one ArrayList.
+ * <p>
+ * Alternatively request(Serializable) returns a CompletableFuture, completed by the reader thread.
+ * Dependent stages without executor are run on the reader thread, so they shall not block.
+ * <p>
+ * The handshake (i.E. ComClientSender.useEncryption(IComReceiver)) has to be finished before the ComClientDemultiplexer is created,
+ * afterwards the ComClientReceiver shall not be used directly anymore.
+ *
+ * @implements Closeable
+ */
+public final class ComClientDemultiplexer implements Closeable {
+
+	private final IComClientSender sender;
+
+	private final ComClientReceiver receiver;
+
+	private final AtomicLong nextCorrelationId = new AtomicLong();
+
+	private final ConcurrentHashMap<Long, CompletableFuture<Object>> responses = new ConcurrentHashMap<>();
+
+	private final ReentrantLock sendLock = new ReentrantLock();
+
+	private final Thread readerThread;
+
+	private volatile IOException failure;
+
+	/**
+	 * ComClientDemultiplexer
+	 * <p>
+	 * Client for pipelining commands, without waiting for the response of the previous command.
+	 * <p>
+	 * Constructor requiring the sender and receiver of the connection, starting the reader thread.
+	 *
+	 * @param sender - the IComClientSender of the connection
+	 * @param receiver - the ComClientReceiver of the connection
+	 */
+	public ComClientDemultiplexer(IComClientSender sender, ComClientReceiver receiver) {
+		if(sender == null || receiver == null)
+			throw new IllegalArgumentException("Sender and receiver shall not be null!");
+		this.sender = sender;
+		this.receiver = receiver;
+		this.readerThread = Thread.ofVirtual().name("ComClientDemultiplexer-Reader").start(this::run);
+	}
+
+	/**
+	 * method send
+	 * <p>
+	 * Method to send the given command without waiting for its response.
+	 *
+	 * @param command - the command to send
+	 *
+	 * @return long - the correlation id to receive the response with
+	 *
+	 * @throws IOException - thrown when sending failed or the connection has been closed
+	 */
+	public long send(Serializable command) throws IOException {
+		if(command == null)
+			throw new IllegalArgumentException("Command shall not be null!");
+		if(failure != null)
+			throw failure;
+		sendLock.lock();
+		long correlationId = nextCorrelationId.incrementAndGet();
+		CompletableFuture<Object> response = new CompletableFuture<>();
+		responses.put(correlationId, response);
+		try {
+			sender.sendAsObject(new ComEnvelope(correlationId, command));
+		} catch (IOException e) {
+			responses.remove(correlationId);
+			throw e;
+		} finally {
+			sendLock.unlock();
+		}
+		if(failure != null)
+			response.completeExceptionally(failure);
+		return correlationId;
+	}
+
+	/**
+	 * method request
+	 * <p>
+	 * Method to send the given command, returning its response as CompletableFuture.
+	 * <p>
+	 * The future is completed exceptionally with the exception sent by the server or with an IOException,
+	 * when sending failed or the connection has been closed.
+	 *
+	 * @param command - the command to send
+	 *
+	 * @return CompletableFuture - the pending response to the command
+	 */
+	public CompletableFuture<Object> request(Serializable command) {
+		if(command == null)
+			throw new IllegalArgumentException("Command shall not be null!");
+		CompletableFuture<Object> response = new CompletableFuture<>();
+		sendLock.lock();
+		try {
+			long correlationId = nextCorrelationId.incrementAndGet();
+			responses.put(correlationId, response);
+			response.whenComplete((object, e) -> responses.remove(correlationId));
+			if(failure != null)
+				throw failure;
+			sender.sendAsObject(new ComEnvelope(correlationId, command));
+		} catch (IOException e) {
+			response.completeExceptionally(e);
+		} finally {
+			sendLock.unlock();
+		}
+		if(failure != null)
+			response.completeExceptionally(failure);
+		return response;
+	}
+
+	/**
+	 * method receive
+	 * <p>
+	 * Method to wait for the response of the command sent with the given correlation id.
+	 *
+	 * @param correlationId - the correlation id returned by send(Serializable)
+	 *
+	 * @return Object - the response to the command
+	 *
+	 * @throws Exception - the exception sent by the server or thrown, when the connection failed
+	 */
+	public Object receive(long correlationId) throws Exception {
+		return receive(correlationId, 0, null);
+	}
+
+	/**
+	 * method receive
+	 * <p>
+	 * Method to wait for the response of the command sent with the given correlation id, at most for the given time.
+	 * The correlation id is given up on timeout, so a response received later is dropped.
+	 *
+	 * @param correlationId - the correlation id returned by send(Serializable)
+	 * @param timeout - the maximum time to wait, not positive to wait without limit
+	 * @param unit - the unit of the timeout
+	 *
+	 * @return Object - the response to the command
+	 *
+	 * @throws Exception - the exception sent by the server, thrown when the connection failed,
+	 * 		TimeoutException, if the response has not been received in time,
+	 * 		or IllegalArgumentException, if no response of the correlation id is pending
+	 */
+	public Object receive(long correlationId, long timeout, TimeUnit unit) throws Exception {
+		CompletableFuture<Object> response = responses.get(correlationId);
+		if(response == null) {
+			if(failure != null)
+				throw failure;
+			throw new IllegalArgumentException(
+					String.format("No response of correlation id %d is pending!", correlationId));
+		}
+		if(failure != null && !response.isDone())
+			response.completeExceptionally(failure);
+		Object object;
+		try {
+			object = timeout > 0 && unit != null ? response.get(timeout, unit) : response.get();
+		} catch (TimeoutException e) {
+			response.cancel(false);
+			throw e;
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		} finally {
+			responses.remove(correlationId);
+		}
+		return object;
+	}
+
+	/**
+	 * method receive
+	 * <p>
+	 * Method to wait for the response of the command sent with the given correlation id, expecting the given type.
+	 *
+	 * @param <T> - the expected type of the response
+	 * @param correlationId - the correlation id returned by send(Serializable)
+	 * @param type - the expected type of the response
+	 *
+	 * @return T - the response to the command
+	 *
+	 * @throws Exception - the exception sent by the server, thrown when the connection failed
+	 * 		or WrongObjectTypeException, if the response is of another type
+	 */
+	public <T> T receive(long correlationId, Class<T> type) throws Exception {
+		Object object = receive(correlationId);
+		if(!type.isInstance(object))
+			throw new WrongObjectTypeException(type, object);
+		return type.cast(object);
+	}
+
+	@Override
+	public void close() throws IOException {
+		fail(new IOException("Demultiplexer has been closed!"));
+		readerThread.interrupt();
+	}
+
+	/**
+	 * private method run
+	 * <p>
+	 * Reader loop routing the received responses by their correlation id.
+	 */
+	private void run() {
+		HashMap<Long, ArrayList<Object>> streamedLists = new HashMap<>();
+		try {
+			while(failure == null) {
+				Object object = receiver.receiveObject();
+				if(object instanceof ComEnvelope) {
+					ComEnvelope envelope = (ComEnvelope) object;
+					Object payload = ComError.decode(envelope.payload());
+					CompletableFuture<Object> response = responses.get(envelope.correlationId());
+					if(payload instanceof ComListStream.Chunk) {
+						if(response != null)
+							streamedLists.computeIfAbsent(envelope.correlationId(), id -> new ArrayList<>())
+									.addAll(((ComListStream.Chunk) payload).elements());
+						else
+							streamedLists.remove(envelope.correlationId());
+						continue;
+					}
+					ArrayList<Object> streamedList = streamedLists.remove(envelope.correlationId());
+					if(payload instanceof ComListStream.End)
+						payload = collected(streamedList, (ComListStream.End) payload);
+					if(response == null)
+						Log.sendMessage(String.format("	Response of correlation id %d received, that is not waited for!",
+								envelope.correlationId()));
+					else if(payload instanceof Exception)
+						response.completeExceptionally((Exception) payload);
+					else
+						response.complete(payload);
+				} else if(object instanceof Throwable) {
+					Log.sendMessage("Uncorrelated exception received:");
+					Log.sendException((Throwable) object);
+				} else {
+					Log.sendMessage(String.format("	Uncorrelated object of Type %s received!", object.getClass()));
+				}
+			}
+		} catch (EOFException | SocketException e) {
+			fail(new IOException("Connection has been closed!", e));
+		} catch (IOException e) {
+			if(failure == null)
+				Log.sendException(e);
+			fail(e);
+		} catch (RuntimeException e) {
+			Log.sendException(e);
+			fail(new IOException("Received response could not be read!", e));
+		}
+	}
+
+	/**
+	 * private method collected
+	 * <p>
+	 * Method to get the list collected from the chunks of a streamed list on receiving its End.
+	 *
+	 * @param streamedList - the collected elements, null if no chunk has been received
+	 * @param end - the received End of the streamed list
+	 *
+	 * @return Object - the collected list or the StreamCorruptedException, if its size differs from the count of the End
+	 */
+	private static Object collected(ArrayList<Object> streamedList, ComListStream.End end) {
+		if(streamedList == null)
+			streamedList = new ArrayList<>();
+		if(streamedList.size() != end.count())
+			return new StreamCorruptedException(String.format("Streamed list of %d elements ended with count %d!",
+					streamedList.size(), end.count()));
+		return streamedList;
+	}
+
+	/**
+	 * private method fail
+	 * <p>
+	 * Method to fail all pending and further responses with the given exception,
+	 * removing the responses of commands sent by send(Serializable) that are not waited for.
+	 *
+	 * @param e - the cause of the failure
+	 */
+	private void fail(IOException e) {
+		if(failure == null)
+			failure = e;
+		for(CompletableFuture<Object> response : responses.values())
+			response.completeExceptionally(failure);
+		responses.clear();
+	}
+}
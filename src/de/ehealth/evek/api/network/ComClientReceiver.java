@@ -1,12 +1,13 @@
 package de.ehealth.evek.api.network;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.reflect.Type;
 import java.net.Socket;
 import java.util.List;
-
-import javax.crypto.Cipher;
+import java.util.concurrent.Flow;
 
 import de.ehealth.evek.api.entity.Address;
 import de.ehealth.evek.api.entity.Insurance;
@@ -32,7 +33,15 @@ public class ComClientReceiver implements IComClientReceiver{
 
 	private final ObjectInputStream objReader;
 	
-	private Cipher decryptionCipher;
+	private final DataInputStream frameReader;
+	
+	private ComEncryption encryption;
+	
+	private ComListPublisher<?> listStream;
+	
+	static {
+		ComBinaryCodec.install();
+	}
 	
 	/**
 	 * ComClientReceiver
@@ -45,7 +54,82 @@ public class ComClientReceiver implements IComClientReceiver{
 	 * @throws IOException - Exception thrown, when ObjectInputStream cannot be created
 	 */
 	public ComClientReceiver(Socket server) throws IOException {
-		objReader = new ObjectInputStream(server.getInputStream());
+		this(server, false);
+	}
+	
+	/**
+	 * ComClientReceiver
+	 * <p>
+	 * Creating InputStream for receiving objects.
+	 * Constructor requiring Socket for its stream and if the frame transport shall be used.
+	 * 
+	 * @param server - Socket with the server connection
+	 * @param frameTransport - if objects are received as length-prefixed frames, as sent by ComChannelServer
+	 * 
+	 * @throws IOException - Exception thrown, when the input stream cannot be created
+	 */
+	public ComClientReceiver(Socket server, boolean frameTransport) throws IOException {
+		this(server, frameTransport, ComTransportOptions.DEFAULT, false);
+	}
+	
+	/**
+	 * ComClientReceiver
+	 * <p>
+	 * Creating InputStream for receiving objects.
+	 * Constructor requiring Socket for its stream, if the frame transport shall be used and the transport options,
+	 * setting the socket options of the socket.
+	 * <p>
+	 * With a read timeout, receiving fails by a SocketTimeoutException, when the server does not respond in time.
+	 * 
+	 * @param server - Socket with the server connection
+	 * @param frameTransport - if objects are received as length-prefixed frames, as sent by ComChannelServer
+	 * @param options - the transport options of the connection
+	 * 
+	 * @throws IOException - Exception thrown, when the input stream cannot be created or the socket options cannot be set
+	 */
+	public ComClientReceiver(Socket server, boolean frameTransport, ComTransportOptions options) throws IOException {
+		this(server, frameTransport, options, true);
+	}
+	
+	/**
+	 * private ComClientReceiver
+	 * <p>
+	 * Creating InputStream for receiving objects.
+	 * Constructor requiring Socket for its stream, if the frame transport shall be used, the transport options
+	 * and if the socket options shall be set, as the socket options of the other constructors are kept.
+	 * 
+	 * @param server - Socket with the server connection
+	 * @param frameTransport - if objects are received as length-prefixed frames, as sent by ComChannelServer
+	 * @param options - the transport options of the connection
+	 * @param applySocketOptions - if the socket options shall be set
+	 * 
+	 * @throws IOException - Exception thrown, when the input stream cannot be created or the socket options cannot be set
+	 */
+	private ComClientReceiver(Socket server, boolean frameTransport, ComTransportOptions options, 
+			boolean applySocketOptions) throws IOException {
+		if(options == null)
+			throw new IllegalArgumentException("Transport options shall not be null!");
+		if(applySocketOptions)
+			options.applyTo(server);
+		BufferedInputStream input = new BufferedInputStream(server.getInputStream(), options.inputBufferSize());
+		if(frameTransport) {
+			objReader = null;
+			frameReader = new DataInputStream(input);
+		} else {
+			objReader = new ObjectInputStream(input);
+			frameReader = null;
+		}
+	}
+	
+	/**
+	 * method setEncryption
+	 * <p>
+	 * Method called by the ComEncryption of the connection, when encryption has been initialized.
+	 * 
+	 * @param encryption - the ComEncryption used to decrypt received objects
+	 */
+	void setEncryption(ComEncryption encryption) {
+		this.encryption = encryption;
 	}
 	
 	/**
@@ -67,27 +151,67 @@ public class ComClientReceiver implements IComClientReceiver{
 	/**
 	 * private method readObject
 	 * <p>
-	 * Method for reading an object from the input and returning it or throwing an exception.
+	 * Method for reading an object from the input and returning it or throwing an exception,
+	 * awaiting the end of a previously received list stream first.
 	 * 
 	 * @return Object - the received Object
 	 * 
 	 * @throws IOException - when decryption or connection failed 
 	 */
 	private Object readObject() throws IOException {
+		ComListPublisher<?> pending = listStream;
+		if(pending != null) {
+			pending.awaitEnd();
+			listStream = null;
+		}
+		return readPart();
+	}
+	
+	/**
+	 * private method readPart
+	 * <p>
+	 * Method for reading the next object from the input, as used for the parts of a list stream.
+	 * 
+	 * @return Object - the received Object
+	 * 
+	 * @throws IOException - when decryption or connection failed 
+	 */
+	private Object readPart() throws IOException {
 		Object object;
 		try {
-			object = objReader.readObject();
+			if(frameReader != null) {
+				if(encryption != null && encryption.usesFraming())
+					return ComError.decode(encryption.readFrame(frameReader));
+				object = ComFrameCodec.readPlainFrame(frameReader);
+			} else {
+				if(encryption != null && encryption.usesFraming())
+					return ComError.decode(encryption.readObject(objReader));
+				object = objReader.readObject();
+			}
 			if(!(object instanceof ComEncryptedObject))
-				return object;
-			if(decryptionCipher == null)
+				return ComError.decode(object);
+			if(encryption == null)
 				throw new EncryptionException("Cipher not found!");
-			return ((ComEncryptedObject) object).decryptObject(decryptionCipher);
+			return ComError.decode(encryption.getObject((ComEncryptedObject) object));
 		} catch (ClassNotFoundException e) {
 			throw new IOException(e); 
 		}
 	}
 	
 	
+	/**
+	 * method receiveObject
+	 * <p>
+	 * Method for receiving the next object of any type, i.E. by the ComClientDemultiplexer.
+	 * 
+	 * @return Object - the received Object
+	 * 
+	 * @throws IOException - when decryption or connection failed 
+	 */
+	Object receiveObject() throws IOException {
+		return readObject();
+	}
+	
 	@Override
 	public Address receiveAddress() throws Exception {
 		Object object = readObject();
@@ -182,6 +306,16 @@ public class ComClientReceiver implements IComClientReceiver{
 		throw wrongObjectType(List.class, object);
 	}
 	
+	@Override
+	public <T> Flow.Publisher<T> receiveListStream(Class<T> elementType) throws IOException {
+		ComListPublisher<?> pending = listStream;
+		if(pending != null)
+			pending.awaitEnd();
+		ComListPublisher<T> publisher = new ComListPublisher<>(this::readPart, elementType);
+		listStream = publisher;
+		return publisher;
+	}
+	
 	@Override
 	public ComEncryptionKey receivePublicKey() throws Exception {
 		Object object = readObject();
@@ -189,4 +323,38 @@ public class ComClientReceiver implements IComClientReceiver{
 			return (ComEncryptionKey) object;
 		throw wrongObjectType(ComEncryptionKey.class, object);
 	}
+	
+	@Override
+	public ComBatch.Result receiveBatchResult() throws Exception {
+		Object object = readObject();
+		if(object instanceof ComBatch.Result) 
+			return (ComBatch.Result) object;
+		throw wrongObjectType(ComBatch.Result.class, object);
+	}
+	
+	@Override
+	public ComGraph receiveGraph() throws Exception {
+		Object object = readObject();
+		if(object instanceof ComGraph) 
+			return (ComGraph) object;
+		throw wrongObjectType(ComGraph.class, object);
+	}
+	
+	@Override
+	public ComSessionTicket receiveSessionTicket() throws Exception {
+		Object object = readObject();
+		if(!(object instanceof ComSessionTicket)) 
+			throw wrongObjectType(ComSessionTicket.class, object);
+		if(encryption == null)
+			throw new EncryptionException("Cipher not found!");
+		return encryption.acceptTicket((ComSessionTicket) object);
+	}
+	
+	@Override
+	public ComSessionTicket.Resumed receiveResumption() throws Exception {
+		Object object = readObject();
+		if(object instanceof ComSessionTicket.Resumed) 
+			return (ComSessionTicket.Resumed) object;
+		throw wrongObjectType(ComSessionTicket.Resumed.class, object);
+	}
 }
@@ -1,14 +1,22 @@
 package de.ehealth.evek.api.network;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.net.Socket;
 
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.UserNotAllowedException;
+import de.ehealth.evek.api.type.UserRole;
+
 /**
  * ComClientSender
  * <p>
  * Standard implementation of IComClientSender.
  * <p>
  * For Client sided Output of e-VeK objects.
+ * <p>
+ * When the logged in user has been set by setLoggedInUser(User), commands its role is not allowed to process
+ * are refused before being serialized, instead of being sent to be refused by the server.
  * 
  * @extends ComSender
  * 
@@ -16,6 +24,10 @@ import java.net.Socket;
  */
 public class ComClientSender extends ComSender implements IComClientSender {
 	
+	private volatile User loggedInUser;
+	
+	private volatile ComEntityCache entityCache;
+	
 	/**
 	 * ComClientSender
 	 * <p>
@@ -29,4 +41,108 @@ public class ComClientSender extends ComSender implements IComClientSender {
 	public ComClientSender(Socket client) throws IOException {
 		super(client);
 	}
-}
+	
+	/**
+	 * ComClientSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream and if the frame transport shall be used.
+	 * 
+	 * @param server - Socket with the server connection
+	 * @param frameTransport - if objects shall be sent as length-prefixed frames, as required by ComChannelServer
+	 * 
+	 * @throws IOException - Exception thrown, when the output stream cannot be created
+	 */
+	public ComClientSender(Socket client, boolean frameTransport) throws IOException {
+		super(client, frameTransport);
+	}
+	
+	/**
+	 * ComClientSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream, if the frame transport shall be used and the transport options,
+	 * setting the socket options of the socket.
+	 * 
+	 * @param client - Socket with the server connection
+	 * @param frameTransport - if objects shall be sent as length-prefixed frames, as required by ComChannelServer
+	 * @param options - the transport options of the connection
+	 * 
+	 * @throws IOException - Exception thrown, when the output stream cannot be created or the socket options cannot be set
+	 */
+	public ComClientSender(Socket client, boolean frameTransport, ComTransportOptions options) throws IOException {
+		super(client, frameTransport, options);
+	}
+	
+	/**
+	 * method setLoggedInUser
+	 * <p>
+	 * Method to set the user logged in by this connection, whose role the sent commands are checked against.
+	 * 
+	 * @param user - the logged in user or null, to send all commands unchecked
+	 */
+	public void setLoggedInUser(User user) {
+		this.loggedInUser = user;
+	}
+	
+	/**
+	 * method getLoggedInUser
+	 * <p>
+	 * Method to get the user logged in by this connection.
+	 * 
+	 * @return User - the logged in user or null, if not set
+	 */
+	public User getLoggedInUser() {
+		return loggedInUser;
+	}
+	
+	/**
+	 * method setEntityCache
+	 * <p>
+	 * Method to set the entity cache, whose entries are invalidated by the commands sent changing an entity.
+	 * 
+	 * @param cache - the entity cache or null, to not invalidate any cache
+	 */
+	public void setEntityCache(ComEntityCache cache) {
+		this.entityCache = cache;
+	}
+	
+	@Override
+	public void sendAsObject(Serializable object) throws IOException {
+		User user = this.loggedInUser;
+		if(user != null && object != null)
+			checkAllowed(user, object);
+		ComEntityCache cache = this.entityCache;
+		if(cache != null)
+			cache.invalidate(object);
+		super.sendAsObject(object);
+	}
+	
+	/**
+	 * private method checkAllowed
+	 * <p>
+	 * Method to check if the role of the given user is allowed to process the given command, 
+	 * checking the payload of a ComEnvelope and every command of a batch. Objects that are no commands of an entity are not checked.
+	 * 
+	 * @param user - the logged in user
+	 * @param object - the object to send
+	 * 
+	 * @throws IOException - thrown with a UserNotAllowedException as cause, when the command is not allowed
+	 */
+	private static void checkAllowed(User user, Serializable object) throws IOException {
+		if(object instanceof ComEnvelope) {
+			Serializable payload = ((ComEnvelope) object).payload();
+			if(payload != null)
+				checkAllowed(user, payload);
+			return;
+		}
+		if(object instanceof ComBatch) {
+			for(Serializable command : ((ComBatch) object).commands())
+				checkAllowed(user, command);
+			return;
+		}
+		int ordinal = UserRole.commandOrdinal(object.getClass());
+		if(ordinal >= 0 && !user.role().isAllowed(ordinal))
+			throw new IOException(new UserNotAllowedException(user));
+	}
+}
\ No newline at end of file
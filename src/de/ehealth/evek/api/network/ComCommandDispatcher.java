@@ -0,0 +1,249 @@
+package de.ehealth.evek.api.network;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.ProcessingException;
+
+/**
+ * ComCommandDispatcher
+ * <p>
+ * Dispatch table of the commands received by an IComServerReceiver, mapping each command class to its handler.
+ * <p>
+ * The handler of a class is resolved once by ClassValue, so dispatching a command costs one lookup instead of
+ * a chain of type checks. Handlers registered for a concrete command record take precedence over handlers
+ * registered for its entity Command interface. Every dispatcher starts with the entity Command interfaces
+ * routed to the process methods of the receiver.
+ * <p>
+ * A dispatcher is meant to be created once per receiver class and shared by all its connections,
+ * returned by IComServerReceiver.getCommandDispatcher().
+ *
+ * @param <R> - the type of the receiver the handlers are called with
+ */
+public final class ComCommandDispatcher<R extends IComServerReceiver> {
+
+	private static final ComCommandDispatcher<IComServerReceiver> DEFAULT = new ComCommandDispatcher<>(IComServerReceiver.class);
+
+	private static final ClassValue<Kind> KINDS = new ClassValue<>() {
+		@Override
+		protected Kind computeValue(Class<?> type) {
+			if(ConnectionTest.class.isAssignableFrom(type))
+				return Kind.CONNECTION_TEST;
+			if(ComEncryptionKey.class.isAssignableFrom(type))
+				return Kind.ENCRYPTION_KEY;
+			if(ComSessionTicket.Resume.class.isAssignableFrom(type))
+				return Kind.RESUME;
+			if(User.LoginUser.class.isAssignableFrom(type))
+				return Kind.LOGIN;
+			if(User.CreateFull.class.isAssignableFrom(type))
+				return Kind.CREATE_FULL;
+			if(ComSessionTicket.Request.class.isAssignableFrom(type))
+				return Kind.TICKET_REQUEST;
+			if(ComBatch.class.isAssignableFrom(type))
+				return Kind.BATCH;
+			return Kind.COMMAND;
+		}
+	};
+
+	private final Class<R> receiverType;
+
+	private final Map<Class<?>, Handler<R, ?>> handlers = new ConcurrentHashMap<>();
+
+	private volatile ClassValue<Handler<R, Object>> resolved = newResolver();
+
+	/**
+	 * private ComCommandDispatcher
+	 * <p>
+	 * Dispatch table of the commands received by an IComServerReceiver.
+	 * <p>
+	 * Constructor requiring the type of the receivers, routing the entity Command interfaces to their process methods.
+	 *
+	 * @param receiverType - the type of the receivers the handlers are called with
+	 */
+	private ComCommandDispatcher(Class<R> receiverType) {
+		this.receiverType = receiverType;
+		handlers.put(Address.Command.class, (Handler<R, Address.Command>) IComServerReceiver::process);
+		handlers.put(Insurance.Command.class, (Handler<R, Insurance.Command>) IComServerReceiver::process);
+		handlers.put(InsuranceData.Command.class, (Handler<R, InsuranceData.Command>) IComServerReceiver::process);
+		handlers.put(Patient.Command.class, (Handler<R, Patient.Command>) IComServerReceiver::process);
+		handlers.put(ServiceProvider.Command.class, (Handler<R, ServiceProvider.Command>) IComServerReceiver::process);
+		handlers.put(TransportDetails.Command.class, (Handler<R, TransportDetails.Command>) IComServerReceiver::process);
+		handlers.put(TransportDocument.Command.class, (Handler<R, TransportDocument.Command>) IComServerReceiver::process);
+		handlers.put(User.Command.class, (Handler<R, User.Command>) IComServerReceiver::process);
+	}
+
+	/**
+	 * method create
+	 * <p>
+	 * Method to create a dispatcher for receivers of the given type,
+	 * with the entity Command interfaces routed to their process methods.
+	 *
+	 * @param <R> - the type of the receivers
+	 * @param receiverType - the type of the receivers the handlers are called with
+	 *
+	 * @return ComCommandDispatcher - the created dispatcher
+	 */
+	public static <R extends IComServerReceiver> ComCommandDispatcher<R> create(Class<R> receiverType) {
+		if(receiverType == null)
+			throw new IllegalArgumentException("Receiver type shall not be null!");
+		return new ComCommandDispatcher<>(receiverType);
+	}
+
+	/**
+	 * method register
+	 * <p>
+	 * Method to register the handler of the given command type, replacing its previous handler.
+	 * Handlers should be registered before the first command is dispatched, as registering clears the resolved handlers.
+	 *
+	 * @param <C> - the type of the command
+	 * @param commandType - the command record or the Command interface of an entity
+	 * @param handler - the handler of the commands of the type
+	 *
+	 * @return ComCommandDispatcher - this dispatcher, for chaining registrations
+	 */
+	public <C> ComCommandDispatcher<R> register(Class<C> commandType, Handler<R, ? super C> handler) {
+		if(commandType == null || handler == null)
+			throw new IllegalArgumentException("Command type and handler shall not be null!");
+		handlers.put(commandType, handler);
+		resolved = newResolver();
+		return this;
+	}
+
+	/**
+	 * method dispatch
+	 * <p>
+	 * Method to pass the given command to its handler.
+	 *
+	 * @param receiver - the receiver that received the command
+	 * @param command - the received command
+	 *
+	 * @return boolean - true, if a handler has been found for the command
+	 *
+	 * @throws IllegalProcessException - thrown when a process can not be performed due to unmatched requirements
+	 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+	 */
+	public boolean dispatch(IComServerReceiver receiver, Object command)
+			throws IllegalProcessException, ProcessingException {
+		if(command == null)
+			return false;
+		Handler<R, Object> handler = resolved.get(command.getClass());
+		if(handler == null)
+			return false;
+		handler.handle(receiverType.cast(receiver), command);
+		return true;
+	}
+
+	/**
+	 * method defaultDispatcher
+	 * <p>
+	 * Method to get the dispatcher used for receivers not providing their own.
+	 *
+	 * @return ComCommandDispatcher - the default dispatcher
+	 */
+	static ComCommandDispatcher<IComServerReceiver> defaultDispatcher() {
+		return DEFAULT;
+	}
+
+	/**
+	 * method kindOf
+	 * <p>
+	 * Method to get how a received object of the given type is handled by IComServerReceiver.receiveObject(Object).
+	 *
+	 * @param type - the type of the received object
+	 *
+	 * @return Kind - the kind of the received object
+	 */
+	static Kind kindOf(Class<?> type) {
+		return KINDS.get(type);
+	}
+
+	/**
+	 * private method newResolver
+	 * <p>
+	 * Method to create the ClassValue resolving the handler of a command class from the registered handlers.
+	 *
+	 * @return ClassValue - the resolver of the handlers
+	 */
+	private ClassValue<Handler<R, Object>> newResolver() {
+		return new ClassValue<>() {
+			@Override
+			protected Handler<R, Object> computeValue(Class<?> type) {
+				return resolve(type);
+			}
+		};
+	}
+
+	/**
+	 * private method resolve
+	 * <p>
+	 * Method to find the handler of the given class, searching the class, its interfaces and its super classes.
+	 *
+	 * @param type - the class to find the handler of
+	 *
+	 * @return Handler - the handler of the class or null, if no handler has been registered
+	 */
+	@SuppressWarnings("unchecked")
+	private Handler<R, Object> resolve(Class<?> type) {
+		if(type == null)
+			return null;
+		Handler<R, ?> handler = handlers.get(type);
+		if(handler != null)
+			return (Handler<R, Object>) handler;
+		for(Class<?> implemented : type.getInterfaces()) {
+			handler = resolve(implemented);
+			if(handler != null)
+				return (Handler<R, Object>) handler;
+		}
+		return resolve(type.getSuperclass());
+	}
+
+	/**
+	 * enum Kind
+	 * <p>
+	 * Kinds of objects received by an IComServerReceiver.
+	 */
+	static enum Kind {
+		CONNECTION_TEST,
+		ENCRYPTION_KEY,
+		RESUME,
+		LOGIN,
+		CREATE_FULL,
+		TICKET_REQUEST,
+		BATCH,
+		COMMAND
+	}
+
+	/**
+	 * interface Handler
+	 * <p>
+	 * Handler of the received commands of one type.
+	 *
+	 * @param <R> - the type of the receiver
+	 * @param <C> - the type of the command
+	 */
+	@FunctionalInterface
+	public static interface Handler<R extends IComServerReceiver, C> {
+
+		/**
+		 * method handle
+		 * <p>
+		 * Method called to handle a received command.
+		 *
+		 * @param receiver - the receiver that received the command
+		 * @param command - the received command
+		 *
+		 * @throws IllegalProcessException - thrown when a process can not be performed due to unmatched requirements
+		 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+		 */
+		void handle(R receiver, C command) throws IllegalProcessException, ProcessingException;
+	}
+}
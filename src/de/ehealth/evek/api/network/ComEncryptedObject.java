@@ -1,5 +1,9 @@
 package de.ehealth.evek.api.network;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Base64;
 
@@ -16,6 +20,9 @@ import de.ehealth.evek.api.util.Log;
  * ComEncryptionObject
  * <p>
  * Class used for symmetrical encryption and transmission of objects and their asymmetrical encrypted key.
+ * <p>
+ * When a session key has been agreed on handshake, the object is encrypted with the session key instead 
+ * and only its sequence number is transmitted alongside.
  * 
  * @implements Serializable
  */
@@ -27,6 +34,14 @@ public class ComEncryptedObject implements Serializable {
 	
 	private final String aesKey;
 	
+	private final long sequence;
+	
+	private final byte[] encryptedData;
+	
+	static {
+		ComBinaryCodec.install();
+	}
+	
 	/**
 	 * ComEncryptedObject
 	 * <p>
@@ -54,6 +69,8 @@ public class ComEncryptedObject implements Serializable {
 			
 			// Rückgabe: Base64-kodierter AES-Schlüssel und verschlüsselte Daten
 			this.aesKey = Base64.getEncoder().encodeToString(encryptedAesKey);
+			this.sequence = 0;
+			this.encryptedData = null;
 		} catch(Exception e) {
 			Log.sendException(e);
 			Log.sendMessage("Object could not be encrypted!");
@@ -62,6 +79,46 @@ public class ComEncryptedObject implements Serializable {
 
 	}
 	
+	/**
+	 * ComEncryptedObject
+	 * <p>
+	 * Class used for symmetrical encryption and transmission of objects with the session key of the connection.
+	 * <p>
+	 * Constructor requires the session cipher of the connection and the object to symmetricaly encrypt
+	 * 
+	 * @param sessionCipher - the session cipher agreed on handshake
+	 * @param object - the object to encrypt symmetricaly
+	 * 
+	 * @throws EncryptionException - thrown when the encryption process fails
+	 */
+	ComEncryptedObject(ComSessionCipher sessionCipher, Serializable object) throws EncryptionException {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try(ObjectOutputStream objOut = new ObjectOutputStream(bytes)) {
+				objOut.writeObject(object);
+			}
+			this.sealedObject = null;
+			this.aesKey = null;
+			this.sequence = sessionCipher.nextSendSequence();
+			this.encryptedData = sessionCipher.encrypt(sequence, bytes.toByteArray());
+		} catch(Exception e) {
+			Log.sendException(e);
+			Log.sendMessage("Object could not be encrypted!");
+			throw new EncryptionException(e);
+		}
+	}
+	
+	/**
+	 * method isSessionEncrypted
+	 * <p>
+	 * Method to get if the object was encrypted with the session key of the connection.
+	 * 
+	 * @return boolean - true, if the object has to be decrypted with the session cipher
+	 */
+	boolean isSessionEncrypted() {
+		return encryptedData != null;
+	}
+	
 	/**
 	 * method decryptObject
 	 * <p>
@@ -75,7 +132,7 @@ public class ComEncryptedObject implements Serializable {
 	 */
 	Serializable decryptObject(Cipher rsaDecryptionCipher) throws EncryptionException {
 
-		if(rsaDecryptionCipher == null)
+		if(rsaDecryptionCipher == null || sealedObject == null)
 			throw new EncryptionException(sealedObject, "No valid Cipher!");
 		
 		try {
@@ -97,4 +154,31 @@ public class ComEncryptedObject implements Serializable {
 		}
 	}
 	
+	/**
+	 * method decryptObject
+	 * <p>
+	 * Method to get the decrypted Object when provided with the session cipher of the connection
+	 * 
+	 * @param sessionCipher - the session cipher agreed on handshake
+	 * 
+	 * @return Serializable - the Object that was transmitted and encrypted
+	 * 
+	 * @throws EncryptionException - thrown when the decryption process fails
+	 */
+	Serializable decryptObject(ComSessionCipher sessionCipher) throws EncryptionException {
+		
+		if(sessionCipher == null || encryptedData == null)
+			throw new EncryptionException(this, "No valid Cipher!");
+		
+		try {
+			byte[] data = sessionCipher.decrypt(sequence, encryptedData);
+			try(ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(data))) {
+				return (Serializable) objIn.readObject();
+			}
+		} catch (Exception e) {
+			Log.sendException(e);
+			Log.sendMessage("Object could not be decrypted!");
+			throw new EncryptionException(this, e);
+		}
+	}
 }
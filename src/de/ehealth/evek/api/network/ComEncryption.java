@@ -1,5 +1,10 @@
 package de.ehealth.evek.api.network;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -7,17 +12,35 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.MGF1ParameterSpec;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.OAEPParameterSpec;
 import javax.crypto.spec.PSource;
 
+import de.ehealth.evek.api.entity.User;
 import de.ehealth.evek.api.exception.EncryptionException;
 import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.type.Reference;
 import de.ehealth.evek.api.util.Log;
 
 /**
  * ComEncryption
  * <p>
  * Class used for the encryption handling of the IComSender and IComReceiver.
+ * <p>
+ * The client requests a session key on handshake, so every message only has to be encrypted once 
+ * with AES-GCM. Connections with opposit sides not agreeing on a session key fall back to 
+ * encrypting a new AES key with RSA for every message.
+ * <p>
+ * Instead of the RSA handshake, the client may choose an ephemeral X25519 key agreement, 
+ * which skips the expensive generation of RSA key pairs on both sides.
+ * <p>
+ * After a successful handshake and login, the server may issue a ComSessionTicket. A reconnecting client 
+ * presents it by resumeSession(ComSessionTicket) to get its session back without any asymmetric encryption.
+ * <p>
+ * Servers reading their input by readObject(ObjectInputStream) may allow framing. Session encrypted objects 
+ * are then written as length-prefixed frames instead of being serialized again as ComEncryptedObject.
+ * Servers allowing the binary codec additionally encode the objects of the frames by the compact ComBinaryCodec 
+ * instead of the Java serialization.
  */
 public class ComEncryption {
 	
@@ -26,6 +49,16 @@ public class ComEncryption {
 	private Cipher decryptionCipher;
 	private Cipher encryptionCipher;
 	
+	private ComSessionCipher sessionCipher;
+	
+	private ComFrameCodec frameCodec;
+	
+	private boolean allowFraming = false;
+	
+	private boolean allowBinaryCodec = false;
+	
+	private boolean resumed = false;
+	
 	private boolean isServer;
 	
 	private IComSender sender;
@@ -74,8 +107,26 @@ public class ComEncryption {
 	 * @throws EncryptionException - thrown when initializing of the encryption fails
 	 */
 	public void useEncryption() throws EncryptionException {
+		useEncryption(ComEncryptionKey.KeyType.RSA);
+	}
+	
+	/**
+	 * !CLIENT ONLY!
+	 * <p>
+	 * method useEncryption
+	 * <p>
+	 * Method to initialize and activate encryption of the connection with the given handshake mode.
+	 * 
+	 * @param keyType - the type of key to use for the handshake
+	 * 
+	 * @throws EncryptionException - thrown when initializing of the encryption fails
+	 */
+	public void useEncryption(ComEncryptionKey.KeyType keyType) throws EncryptionException {
 		try {
-			useEncryption(getCipherRSAInstance());
+			if(keyType == ComEncryptionKey.KeyType.X25519)
+				useKeyAgreement();
+			else
+				useEncryption(getCipherRSAInstance());
 		} catch (NoSuchAlgorithmException e) {
 			Log.sendMessage("Encryption handler could not be initialized!");
 			Log.sendException(e);
@@ -108,13 +159,65 @@ public class ComEncryption {
 			decryptionCipher = Cipher.getInstance(algorithm);
 			decryptionCipher.init(Cipher.DECRYPT_MODE, keys.getPrivate(), ComEncryption.defaultOAEPParams());
 			
-			sender.sendKey(new ComEncryptionKey(keys.getPublic()));
+			sender.sendKey(new ComEncryptionKey(keys.getPublic(), true, true, true));
 			ComEncryptionKey receivedKey = receiver.receivePublicKey();
 			
-			encryptionCipher = Cipher.getInstance(algorithm);
-			encryptionCipher.init(Cipher.ENCRYPT_MODE, receivedKey.getKey(), ComEncryption.defaultOAEPParams());
+			if(receivedKey.hasSessionKey()) {
+				sessionCipher = new ComSessionCipher(
+						decryptionCipher.doFinal(receivedKey.getEncryptedSessionKey()), false);
+				if(receivedKey.usesFraming())
+					frameCodec = new ComFrameCodec(sessionCipher, receivedKey.usesBinaryCodec());
+			} else {
+				encryptionCipher = Cipher.getInstance(algorithm);
+				encryptionCipher.init(Cipher.ENCRYPT_MODE, receivedKey.getKey(), ComEncryption.defaultOAEPParams());
+			}
 			
-			useEncryption = !(decryptionCipher == null || encryptionCipher == null);
+			useEncryption = sessionCipher != null || !(decryptionCipher == null || encryptionCipher == null);
+			
+			if(useEncryption && receiver instanceof ComClientReceiver)
+				((ComClientReceiver) receiver).setEncryption(this);
+			
+		}catch(EncryptionException | NoSuchAlgorithmException e) {
+			throw e;
+		}catch(Exception e) {
+			Log.sendMessage("Encryption handler could not be initialized!");
+			Log.sendException(e);
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * !CLIENT ONLY!
+	 * <p>
+	 * private method useKeyAgreement
+	 * <p>
+	 * Method to initialize and activate encryption of the connection by X25519 key agreement.
+	 * 
+	 * @throws EncryptionException - thrown when initializing of the encryption fails
+	 * @throws NoSuchAlgorithmException - thrown when X25519 is not available
+	 */
+	private void useKeyAgreement() throws EncryptionException, NoSuchAlgorithmException {
+		try {
+			if(isServer)
+				throw new EncryptionException("This method is explicitly for Clients! Use useEncryption([ComEncryptionKey serverPublicKey]) instead!");
+			Log.sendMessage("Initializing encryption handler...");
+			
+			KeyPair keys = KeyPairGenerator.getInstance(ComEncryptionKey.KeyType.X25519.getKeyPairAlgorithm())
+					.generateKeyPair();
+			
+			sender.sendKey(new ComEncryptionKey(keys.getPublic(), true, true, true));
+			ComEncryptionKey receivedKey = receiver.receivePublicKey();
+			if(receivedKey.getKeyType() != ComEncryptionKey.KeyType.X25519)
+				throw new EncryptionException(receivedKey, "Key agreement not supported by the server!");
+			
+			sessionCipher = new ComSessionCipher(ComSessionCipher.agreeKey(
+					keys.getPrivate(), keys.getPublic(), receivedKey.getKey(), false), false);
+			if(receivedKey.usesFraming())
+				frameCodec = new ComFrameCodec(sessionCipher, receivedKey.usesBinaryCodec());
+			
+			useEncryption = true;
+			if(receiver instanceof ComClientReceiver)
+				((ComClientReceiver) receiver).setEncryption(this);
 			
 		}catch(EncryptionException | NoSuchAlgorithmException e) {
 			throw e;
@@ -163,10 +266,39 @@ public class ComEncryption {
 		try {
 			if(!isServer)
 				throw new EncryptionException("This method is explicitly for Servers! Use useEncryption() instead!");
+			
+			if(serverPublicKey.getKeyType() == ComEncryptionKey.KeyType.X25519) {
+				KeyPair keys = KeyPairGenerator.getInstance(ComEncryptionKey.KeyType.X25519.getKeyPairAlgorithm())
+						.generateKeyPair();
+				boolean useFraming = allowFraming && serverPublicKey.requestsFraming();
+				boolean useBinaryCodec = useFraming && allowBinaryCodec && serverPublicKey.requestsBinaryCodec();
+				sessionCipher = new ComSessionCipher(ComSessionCipher.agreeKey(
+						keys.getPrivate(), serverPublicKey.getKey(), keys.getPublic(), true), true);
+				sender.sendKey(ComEncryptionKey.agreementReply(keys.getPublic(), useFraming, useBinaryCodec));
+				if(useFraming)
+					frameCodec = new ComFrameCodec(sessionCipher, useBinaryCodec);
+				useEncryption = true;
+				attachToSender();
+				return;
+			}
 
 			encryptionCipher = Cipher.getInstance(algorithm);
 			encryptionCipher.init(Cipher.ENCRYPT_MODE, serverPublicKey.getKey(), ComEncryption.defaultOAEPParams());
 			
+			if(serverPublicKey.requestsSessionKey()) {
+				SecretKey sessionKey = ComSessionCipher.generateKey();
+				boolean useFraming = allowFraming && serverPublicKey.requestsFraming();
+				boolean useBinaryCodec = useFraming && allowBinaryCodec && serverPublicKey.requestsBinaryCodec();
+				sessionCipher = new ComSessionCipher(sessionKey, true);
+				sender.sendKey(new ComEncryptionKey(encryptionCipher.doFinal(sessionKey.getEncoded()), 
+						useFraming, useBinaryCodec));
+				if(useFraming)
+					frameCodec = new ComFrameCodec(sessionCipher, useBinaryCodec);
+				useEncryption = true;
+				attachToSender();
+				return;
+			}
+			
 			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
 			generator.initialize(2048);
 			KeyPair keys = generator.generateKeyPair();
@@ -178,6 +310,9 @@ public class ComEncryption {
 			
 			useEncryption = !(decryptionCipher == null || encryptionCipher == null);
 			
+			if(useEncryption)
+				attachToSender();
+			
 		}catch(EncryptionException | NoSuchAlgorithmException e) {
 			throw e;	
 		}catch(Exception e) {
@@ -187,6 +322,313 @@ public class ComEncryption {
 		}
 	}
 	
+	/**
+	 * !CLIENT ONLY!
+	 * <p>
+	 * method resumeSession
+	 * <p>
+	 * Method to resume the encrypted, logged in session of the given ticket instead of a new handshake.
+	 * <p>
+	 * When the server rejects the ticket, encryption stays inactive and a full handshake by useEncryption() 
+	 * and a new login are required.
+	 * 
+	 * @param ticket - the ticket issued by the server on a previous connection
+	 * 
+	 * @return boolean - true, if the session has been resumed
+	 * 
+	 * @throws EncryptionException - thrown when resuming the session fails
+	 */
+	public boolean resumeSession(ComSessionTicket ticket) throws EncryptionException {
+		try {
+			if(isServer)
+				throw new EncryptionException("This method is explicitly for Clients! Use resumeSession([ComSessionTicketKey ticketKey], [ComSessionTicket.Resume resume]) instead!");
+			if(useEncryption)
+				throw new EncryptionException("Encryption already in usage!");
+			if(ticket == null || ticket.isExpired() || ticket.getResumptionSecret() == null)
+				return false;
+			
+			byte[] clientNonce = ComSessionCipher.randomBytes(ComSessionCipher.KEY_SIZE / 8);
+			sender.sendAsObject(new ComSessionTicket.Resume(ticket.getSealedTicket(), clientNonce, true, true));
+			ComSessionTicket.Resumed resumed = receiver.receiveResumption();
+			if(!resumed.accepted())
+				return false;
+			
+			sessionCipher = new ComSessionCipher(ComSessionCipher.deriveKey(
+					ticket.getResumptionSecret(), clientNonce, resumed.serverNonce()), false);
+			if(resumed.usesFraming())
+				frameCodec = new ComFrameCodec(sessionCipher, resumed.usesBinaryCodec());
+			
+			useEncryption = true;
+			this.resumed = true;
+			if(receiver instanceof ComClientReceiver)
+				((ComClientReceiver) receiver).setEncryption(this);
+			return true;
+		}catch(EncryptionException e) {
+			throw e;
+		}catch(Exception e) {
+			Log.sendMessage("Session could not be resumed!");
+			Log.sendException(e);
+			throw new EncryptionException(e);
+		}
+	}
+	
+	/**
+	 * !SERVER ONLY!
+	 * <p>
+	 * method resumeSession
+	 * <p>
+	 * Method to resume the session of the ticket presented by the client.
+	 * Replies to the client and activates encryption, if the ticket is valid.
+	 * <p>
+	 * The returned user has been authenticated on the connection the ticket was issued on, 
+	 * so it has to be set as processing user without a password check.
+	 * 
+	 * @param ticketKey - the ticket key of the server the ticket was issued with
+	 * @param resume - the Resume received from the client
+	 * 
+	 * @return Reference - the user logged in on the resumed session or null, if the ticket has been rejected
+	 * 
+	 * @throws EncryptionException - thrown when resuming the session fails
+	 */
+	public Reference<User> resumeSession(ComSessionTicketKey ticketKey, ComSessionTicket.Resume resume) 
+			throws EncryptionException {
+		try {
+			if(!isServer)
+				throw new EncryptionException("This method is explicitly for Servers! Use resumeSession([ComSessionTicket ticket]) instead!");
+			if(useEncryption)
+				throw new EncryptionException("Encryption already in usage!");
+			
+			ComSessionTicketKey.Contents contents;
+			try {
+				contents = ticketKey.open(resume.sealedTicket());
+			}catch(EncryptionException e) {
+				Log.sendMessage("Session ticket has been rejected!");
+				Log.sendException(e);
+				sender.sendAsObject(new ComSessionTicket.Resumed(false, null, false, false));
+				return null;
+			}
+			
+			byte[] serverNonce = ComSessionCipher.randomBytes(ComSessionCipher.KEY_SIZE / 8);
+			boolean useFraming = allowFraming && resume.requestsFraming();
+			boolean useBinaryCodec = useFraming && allowBinaryCodec && resume.requestsBinaryCodec();
+			sessionCipher = new ComSessionCipher(ComSessionCipher.deriveKey(
+					contents.sessionKey(), resume.clientNonce(), serverNonce), true);
+			sender.sendAsObject(new ComSessionTicket.Resumed(true, serverNonce, useFraming, useBinaryCodec));
+			if(useFraming)
+				frameCodec = new ComFrameCodec(sessionCipher, useBinaryCodec);
+			
+			useEncryption = true;
+			resumed = true;
+			attachToSender();
+			return contents.user();
+		}catch(EncryptionException e) {
+			throw e;
+		}catch(Exception e) {
+			Log.sendMessage("Session could not be resumed!");
+			Log.sendException(e);
+			throw new EncryptionException(e);
+		}
+	}
+	
+	/**
+	 * !SERVER ONLY!
+	 * <p>
+	 * method issueTicket
+	 * <p>
+	 * Method to issue and send a session ticket for the logged in user of the connection.
+	 * Requires a session key to be agreed on handshake.
+	 * 
+	 * @param ticketKey - the ticket key of the server to seal the ticket with
+	 * @param user - the reference to the logged in user
+	 * 
+	 * @return ComSessionTicket - the sent ticket
+	 * 
+	 * @throws IOException - thrown when the ticket can not be sealed or sent
+	 */
+	public ComSessionTicket issueTicket(ComSessionTicketKey ticketKey, Reference<User> user) throws IOException {
+		if(!isServer)
+			throw new EncryptionException("This method is explicitly for Servers!");
+		if(user == null)
+			throw new EncryptionException("User shall not be null!");
+		ComSessionTicket ticket = ticketKey.seal(getSessionCipher().getResumptionSecret(), user);
+		sender.sendAsObject(ticket);
+		return ticket;
+	}
+	
+	/**
+	 * !CLIENT ONLY!
+	 * <p>
+	 * method acceptTicket
+	 * <p>
+	 * Method to bind the resumption secret of the session to the received ticket.
+	 * 
+	 * @param ticket - the ticket received from the server
+	 * 
+	 * @return ComSessionTicket - the ticket to resume the session with
+	 * 
+	 * @throws EncryptionException - thrown when no session key is agreed or encryption not in usage
+	 */
+	ComSessionTicket acceptTicket(ComSessionTicket ticket) throws EncryptionException {
+		if(isServer)
+			throw new EncryptionException("This method is explicitly for Clients!");
+		return new ComSessionTicket(ticket.getSealedTicket(), ticket.getExpiresAt(), 
+				getSessionCipher().getResumptionSecret());
+	}
+	
+	/**
+	 * method isResumed
+	 * <p>
+	 * Method to get if the connection has been resumed by a session ticket.
+	 * 
+	 * @return boolean - true, if the session has been resumed
+	 */
+	public boolean isResumed() {
+		return useEncryption && resumed;
+	}
+	
+	/**
+	 * !SERVER ONLY!
+	 * <p>
+	 * method allowFraming
+	 * <p>
+	 * Method to allow session encrypted objects to be transmitted as frames, if requested by the client.
+	 * Has to be called before useEncryption(ComEncryptionKey) and requires the input of the connection
+	 * to be read by readObject(ObjectInputStream) or the connection to be handled by ComChannelServer.
+	 * 
+	 * @param allowFraming - if framing shall be allowed
+	 */
+	public void allowFraming(boolean allowFraming) {
+		this.allowFraming = allowFraming;
+	}
+	
+	/**
+	 * method usesFraming
+	 * <p>
+	 * Method to get if session encrypted objects are transmitted as frames.
+	 * 
+	 * @return boolean - true, if the objects are transmitted as frames
+	 */
+	public boolean usesFraming() {
+		return useEncryption && frameCodec != null;
+	}
+	
+	/**
+	 * !SERVER ONLY!
+	 * <p>
+	 * method allowBinaryCodec
+	 * <p>
+	 * Method to allow the objects of the frames to be encoded by the ComBinaryCodec, if requested by the client.
+	 * Has to be called before useEncryption(ComEncryptionKey) and only takes effect, if framing is allowed too.
+	 * 
+	 * @param allowBinaryCodec - if the binary codec shall be allowed
+	 */
+	public void allowBinaryCodec(boolean allowBinaryCodec) {
+		this.allowBinaryCodec = allowBinaryCodec;
+	}
+	
+	/**
+	 * method usesBinaryCodec
+	 * <p>
+	 * Method to get if the objects of the frames are encoded by the ComBinaryCodec.
+	 * 
+	 * @return boolean - true, if the objects are encoded by the binary codec
+	 */
+	public boolean usesBinaryCodec() {
+		return usesFraming() && frameCodec.usesBinaryCodec();
+	}
+	
+	/**
+	 * method readObject
+	 * <p>
+	 * Method to read the next object of the connection, decrypting it if it was transmitted as frame.
+	 * 
+	 * @param input - the ObjectInputStream of the connection
+	 * 
+	 * @return Serializable - the received object, still encrypted, if it was not transmitted as frame
+	 * 
+	 * @throws IOException - thrown when reading or decryption of the object fails
+	 */
+	public Serializable readObject(ObjectInputStream input) throws IOException {
+		if(usesFraming())
+			return frameCodec.readFrame(input);
+		try {
+			Object object = input.readObject();
+			if(!(object instanceof Serializable))
+				throw new IOException(String.format("Object of Type %s is not serializable!", object.getClass()));
+			return (Serializable) object;
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * method readFrame
+	 * <p>
+	 * Method to read and decrypt the next frame of a connection using the frame transport.
+	 * 
+	 * @param input - the input of the connection
+	 * 
+	 * @return Serializable - the received, decrypted object
+	 * 
+	 * @throws IOException - thrown when reading or decryption of the object fails
+	 */
+	Serializable readFrame(DataInput input) throws IOException {
+		if(!usesFraming())
+			throw new EncryptionException("Framing not in usage!");
+		return frameCodec.readFrame(input);
+	}
+	
+	/**
+	 * method decodeFrame
+	 * <p>
+	 * Method to decrypt the content of a frame that has already been read by the ComChannelServer.
+	 * 
+	 * @param frame - the buffer holding the encrypted content of the frame
+	 * @param length - the length of the encrypted content
+	 * 
+	 * @return Serializable - the received, decrypted object
+	 * 
+	 * @throws IOException - thrown when decryption of the object fails
+	 */
+	Serializable decodeFrame(byte[] frame, int length) throws IOException {
+		if(!usesFraming())
+			throw new EncryptionException("Framing not in usage!");
+		return frameCodec.decodeFrame(frame, length);
+	}
+	
+	/**
+	 * method writeObject
+	 * <p>
+	 * Method to write the given object to the connection as frame.
+	 * 
+	 * @param output - the output of the connection, i.E. its ObjectOutputStream
+	 * @param object - the object to write
+	 * 
+	 * @throws IOException - thrown when encryption or writing of the object fails
+	 */
+	void writeObject(DataOutput output, Serializable object) throws IOException {
+		writeFrame(output, object);
+		if(output instanceof Flushable)
+			((Flushable) output).flush();
+	}
+	
+	/**
+	 * method writeFrame
+	 * <p>
+	 * Method to write the given object to the connection as frame without flushing it,
+	 * i.E. to coalesce several frames into one write.
+	 * 
+	 * @param output - the output of the connection, i.E. its ObjectOutputStream
+	 * @param object - the object to write
+	 * 
+	 * @throws IOException - thrown when encryption or writing of the object fails
+	 */
+	void writeFrame(DataOutput output, Serializable object) throws IOException {
+		if(!usesFraming())
+			throw new EncryptionException("Framing not in usage!");
+		frameCodec.writeFrame(output, object);
+	}
+	
 	/**
 	 * method getObject
 	 * <p>
@@ -202,7 +644,10 @@ public class ComEncryption {
 		if(!(inputObject instanceof ComEncryptedObject)
 				|| !useEncryption)
 			return inputObject;
-		return ((ComEncryptedObject)inputObject).decryptObject(getDecryptionCipher());
+		ComEncryptedObject encryptedObject = (ComEncryptedObject) inputObject;
+		if(encryptedObject.isSessionEncrypted())
+			return encryptedObject.decryptObject(getSessionCipher());
+		return encryptedObject.decryptObject(getDecryptionCipher());
 	}
 	
 	/**
@@ -217,9 +662,49 @@ public class ComEncryption {
 	 * @throws EncryptionException - thrown when encryption of the object fails
 	 */
 	public ComEncryptedObject encryptObject(Serializable object) throws EncryptionException {
+		if(sessionCipher != null)
+			return new ComEncryptedObject(getSessionCipher(), object);
 		return new ComEncryptedObject(getEncryptionCipher(), object);
 	}
 	
+	/**
+	 * method usesSessionKey
+	 * <p>
+	 * Method to get if a session key has been agreed for the connection.
+	 * 
+	 * @return boolean - true, if the objects are encrypted with the session key
+	 */
+	public boolean usesSessionKey() {
+		return useEncryption && sessionCipher != null;
+	}
+	
+	/**
+	 * !SERVER ONLY!
+	 * <p>
+	 * private method attachToSender
+	 * <p>
+	 * Method to set this encryption for the sender of the connection, when the handshake has been finished.
+	 */
+	private void attachToSender() {
+		if(sender instanceof ComSender)
+			((ComSender) sender).setEncryption(this);
+		else if(sender instanceof ComChannelSender)
+			((ComChannelSender) sender).setEncryption(this);
+	}
+	
+	/**
+	 * method isHandshake
+	 * <p>
+	 * Method to get if the given object belongs to a handshake and has to be transmitted unencrypted.
+	 * 
+	 * @param object - the object to send
+	 * 
+	 * @return boolean - true, if the object is a ComEncryptionKey or ComSessionTicket.Handshake
+	 */
+	static boolean isHandshake(Serializable object) {
+		return object instanceof ComEncryptionKey || object instanceof ComSessionTicket.Handshake;
+	}
+	
 	/**
 	 * method getDecryptionCipher
 	 * <p>
@@ -237,6 +722,23 @@ public class ComEncryption {
 		return decryptionCipher;
 	}
 	
+	/**
+	 * method getSessionCipher
+	 * <p>
+	 * Method to get the session cipher
+	 * 
+	 * @return ComSessionCipher - the session cipher agreed on handshake
+	 * 
+	 * @throws EncryptionException - thrown when no session key is agreed or encryption not in usage
+	 */
+	private ComSessionCipher getSessionCipher() throws EncryptionException {
+		if(sessionCipher == null)
+			throw new EncryptionException("Session key not yet agreed!");
+		if(!useEncryption)
+			throw new EncryptionException("Encryption not in usage!");
+		return sessionCipher;
+	}
+	
 	/**
 	 * method getEncryptionCipher
 	 * <p>
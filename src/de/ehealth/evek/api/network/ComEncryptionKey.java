@@ -13,6 +13,15 @@ import de.ehealth.evek.api.util.Log;
  * ComEncryptionKey
  * <p>
  * Class used for transmitting public encryption key.
+ * <p>
+ * On handshake the client may request a session key, which is then sent back by the server 
+ * encrypted with the public key of the client. Alongside, the client may request session encrypted 
+ * objects to be transmitted as frames, which the server confirms, if it reads its input by ComEncryption.
+ * With framing, the client may further request the objects to be encoded by the ComBinaryCodec
+ * instead of the Java serialization, which the server confirms, if it allows the binary codec.
+ * <p>
+ * Keys of the KeyType X25519 are used for an ephemeral key agreement instead: both sides derive the 
+ * session key from their own private key and the public key of the opposit side, no session key is transmitted.
  * 
  * @implements Serializable
  */
@@ -22,6 +31,20 @@ public class ComEncryptionKey implements Serializable {
 
 	private final String encodedKey;
 	
+	private final KeyType keyType;
+	
+	private final boolean requestsSessionKey;
+	
+	private final String encryptedSessionKey;
+	
+	private final boolean requestsFraming;
+	
+	private final boolean usesFraming;
+	
+	private final boolean requestsBinaryCodec;
+	
+	private final boolean usesBinaryCodec;
+	
 	/**
 	 * ComEncryptionKey
 	 * <p>
@@ -32,7 +55,123 @@ public class ComEncryptionKey implements Serializable {
 	 * @param publicKey - the public key to use by the opposit connection side
 	 */
 	public ComEncryptionKey(PublicKey publicKey) {
+		this(publicKey, false);
+	}
+	
+	/**
+	 * ComEncryptionKey
+	 * <p>
+	 * Class used for transmitting public encryption key.
+	 * <p>
+	 * Constructor requires the public key for the encryption and if a session key is requested.
+	 * 
+	 * @param publicKey - the public key to use by the opposit connection side
+	 * @param requestSessionKey - if the opposit connection side shall agree on a session key
+	 */
+	public ComEncryptionKey(PublicKey publicKey, boolean requestSessionKey) {
+		this(publicKey, requestSessionKey, false);
+	}
+	
+	/**
+	 * ComEncryptionKey
+	 * <p>
+	 * Class used for transmitting public encryption key.
+	 * <p>
+	 * Constructor requires the public key for the encryption, if a session key is requested and if framing is requested.
+	 * 
+	 * @param publicKey - the public key to use by the opposit connection side
+	 * @param requestSessionKey - if the opposit connection side shall agree on a session key
+	 * @param requestFraming - if session encrypted objects shall be transmitted as frames
+	 */
+	public ComEncryptionKey(PublicKey publicKey, boolean requestSessionKey, boolean requestFraming) {
+		this(publicKey, requestSessionKey, requestFraming, false);
+	}
+	
+	/**
+	 * ComEncryptionKey
+	 * <p>
+	 * Class used for transmitting public encryption key.
+	 * <p>
+	 * Constructor requires the public key for the encryption, if a session key is requested, if framing is requested
+	 * and if the ComBinaryCodec is requested for the frames.
+	 * 
+	 * @param publicKey - the public key to use by the opposit connection side
+	 * @param requestSessionKey - if the opposit connection side shall agree on a session key
+	 * @param requestFraming - if session encrypted objects shall be transmitted as frames
+	 * @param requestBinaryCodec - if the objects of the frames shall be encoded by the ComBinaryCodec
+	 */
+	public ComEncryptionKey(PublicKey publicKey, boolean requestSessionKey, boolean requestFraming, 
+			boolean requestBinaryCodec) {
 		this.encodedKey = Base64.getEncoder().encodeToString(publicKey.getEncoded());
+		this.keyType = KeyType.of(publicKey);
+		this.requestsSessionKey = requestSessionKey || keyType == KeyType.X25519;
+		this.encryptedSessionKey = null;
+		this.requestsFraming = this.requestsSessionKey && requestFraming;
+		this.usesFraming = false;
+		this.requestsBinaryCodec = this.requestsFraming && requestBinaryCodec;
+		this.usesBinaryCodec = false;
+	}
+	
+	/**
+	 * ComEncryptionKey
+	 * <p>
+	 * Class used for transmitting the agreed session key.
+	 * <p>
+	 * Constructor requires the session key, encrypted with the public key of the opposit connection side, 
+	 * and if session encrypted objects are transmitted as frames encoded by the ComBinaryCodec.
+	 * 
+	 * @param encryptedSessionKey - the encrypted session key
+	 * @param useFraming - if session encrypted objects are transmitted as frames
+	 * @param useBinaryCodec - if the objects of the frames are encoded by the ComBinaryCodec
+	 */
+	ComEncryptionKey(byte[] encryptedSessionKey, boolean useFraming, boolean useBinaryCodec) {
+		this(null, KeyType.RSA, false, Base64.getEncoder().encodeToString(encryptedSessionKey), 
+				false, useFraming, false, useBinaryCodec);
+	}
+	
+	/**
+	 * private ComEncryptionKey
+	 * <p>
+	 * Class used for transmitting public encryption key.
+	 * <p>
+	 * Constructor requiring all properties of the key.
+	 * 
+	 * @param encodedKey - the Base64 encoded public key or null
+	 * @param keyType - the type of the public key
+	 * @param requestsSessionKey - if the opposit connection side shall agree on a session key
+	 * @param encryptedSessionKey - the Base64 encoded, encrypted session key or null
+	 * @param requestsFraming - if session encrypted objects shall be transmitted as frames
+	 * @param usesFraming - if session encrypted objects are transmitted as frames
+	 * @param requestsBinaryCodec - if the objects of the frames shall be encoded by the ComBinaryCodec
+	 * @param usesBinaryCodec - if the objects of the frames are encoded by the ComBinaryCodec
+	 */
+	private ComEncryptionKey(String encodedKey, KeyType keyType, boolean requestsSessionKey, 
+			String encryptedSessionKey, boolean requestsFraming, boolean usesFraming, 
+			boolean requestsBinaryCodec, boolean usesBinaryCodec) {
+		this.encodedKey = encodedKey;
+		this.keyType = keyType;
+		this.requestsSessionKey = requestsSessionKey;
+		this.encryptedSessionKey = encryptedSessionKey;
+		this.requestsFraming = requestsFraming;
+		this.usesFraming = usesFraming;
+		this.requestsBinaryCodec = requestsBinaryCodec;
+		this.usesBinaryCodec = usesBinaryCodec;
+	}
+	
+	/**
+	 * method agreementReply
+	 * <p>
+	 * Method to create the reply of the server on a key agreement.
+	 * 
+	 * @param agreementKey - the ephemeral public key of the server
+	 * @param useFraming - if session encrypted objects are transmitted as frames
+	 * @param useBinaryCodec - if the objects of the frames are encoded by the ComBinaryCodec
+	 * 
+	 * @return ComEncryptionKey - the key to send back to the client
+	 */
+	static ComEncryptionKey agreementReply(PublicKey agreementKey, boolean useFraming, boolean useBinaryCodec) {
+		return new ComEncryptionKey(Base64.getEncoder().encodeToString(agreementKey.getEncoded()), 
+				KeyType.of(agreementKey), false, null, false, useFraming, false, useBinaryCodec);
 	}
 	
 	/**
@@ -44,14 +183,173 @@ public class ComEncryptionKey implements Serializable {
 	 * @throws EncryptionException - thrown when an exception occures
 	 */
 	public PublicKey getKey() throws EncryptionException {
+		if(encodedKey == null)
+			throw new EncryptionException(this, "No public Key provided!");
 		try {
 			byte[] decodedKey = Base64.getDecoder().decode(encodedKey);
 			X509EncodedKeySpec keySpec = new X509EncodedKeySpec(decodedKey);
-			return KeyFactory.getInstance("RSA").generatePublic(keySpec);	
+			return KeyFactory.getInstance(getKeyType().getKeyFactoryAlgorithm()).generatePublic(keySpec);	
 		} catch(Exception e) {
 			Log.sendException(e);
 			Log.sendMessage("Could not read public Key!");
 			throw new EncryptionException(e);
 		}
 	}
+	
+	/**
+	 * method getKeyType
+	 * <p>
+	 * Method to get the type of the transmitted public key.
+	 * 
+	 * @return KeyType - the type of the public key
+	 */
+	public KeyType getKeyType() {
+		return keyType == null ? KeyType.RSA : keyType;
+	}
+	
+	/**
+	 * method requestsSessionKey
+	 * <p>
+	 * Method to get if the opposit connection side requested a session key.
+	 * 
+	 * @return boolean - true, if a session key shall be agreed
+	 */
+	public boolean requestsSessionKey() {
+		return requestsSessionKey;
+	}
+	
+	/**
+	 * method hasSessionKey
+	 * <p>
+	 * Method to get if the opposit connection side provided a session key.
+	 * 
+	 * @return boolean - true, if an encrypted session key is provided
+	 */
+	public boolean hasSessionKey() {
+		return encryptedSessionKey != null;
+	}
+	
+	/**
+	 * method requestsFraming
+	 * <p>
+	 * Method to get if the opposit connection side requested session encrypted objects to be transmitted as frames.
+	 * 
+	 * @return boolean - true, if framing is requested
+	 */
+	public boolean requestsFraming() {
+		return requestsFraming;
+	}
+	
+	/**
+	 * method usesFraming
+	 * <p>
+	 * Method to get if the opposit connection side confirmed session encrypted objects to be transmitted as frames.
+	 * 
+	 * @return boolean - true, if framing is used
+	 */
+	public boolean usesFraming() {
+		return usesFraming;
+	}
+	
+	/**
+	 * method requestsBinaryCodec
+	 * <p>
+	 * Method to get if the opposit connection side requested the objects of the frames to be encoded by the ComBinaryCodec.
+	 * 
+	 * @return boolean - true, if the binary codec is requested
+	 */
+	public boolean requestsBinaryCodec() {
+		return requestsBinaryCodec;
+	}
+	
+	/**
+	 * method usesBinaryCodec
+	 * <p>
+	 * Method to get if the opposit connection side confirmed the objects of the frames to be encoded by the ComBinaryCodec.
+	 * 
+	 * @return boolean - true, if the binary codec is used
+	 */
+	public boolean usesBinaryCodec() {
+		return usesBinaryCodec;
+	}
+	
+	/**
+	 * method getEncryptedSessionKey
+	 * <p>
+	 * Method to get the session key, encrypted with the own public key.
+	 * 
+	 * @return byte[] - the encrypted session key
+	 * 
+	 * @throws EncryptionException - thrown when no session key is provided
+	 */
+	byte[] getEncryptedSessionKey() throws EncryptionException {
+		if(encryptedSessionKey == null)
+			throw new EncryptionException(this, "No session Key provided!");
+		return Base64.getDecoder().decode(encryptedSessionKey);
+	}
+	
+	/**
+	 * enum KeyType
+	 * <p>
+	 * Enum for defining the type of the transmitted public key and by that the handshake mode.
+	 */
+	public static enum KeyType {
+		/**
+		 * RSA key, the session key is encrypted with the public key of the client
+		 */
+		RSA("RSA", "RSA"),
+		/**
+		 * ephemeral X25519 key, the session key is derived by key agreement
+		 */
+		X25519("X25519", "XDH");
+		
+		private final String keyPairAlgorithm;
+		
+		private final String keyFactoryAlgorithm;
+		
+		private KeyType(String keyPairAlgorithm, String keyFactoryAlgorithm) {
+			this.keyPairAlgorithm = keyPairAlgorithm;
+			this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+		}
+		
+		/**
+		 * method getKeyPairAlgorithm
+		 * <p>
+		 * Method to get the algorithm used to generate key pairs of this type.
+		 * 
+		 * @return String - the KeyPairGenerator algorithm
+		 */
+		public String getKeyPairAlgorithm() {
+			return keyPairAlgorithm;
+		}
+		
+		/**
+		 * method getKeyFactoryAlgorithm
+		 * <p>
+		 * Method to get the algorithm used to read public keys of this type.
+		 * 
+		 * @return String - the KeyFactory algorithm
+		 */
+		public String getKeyFactoryAlgorithm() {
+			return keyFactoryAlgorithm;
+		}
+		
+		/**
+		 * method of
+		 * <p>
+		 * Method to get the type of the given public key.
+		 * 
+		 * @param publicKey - the public key
+		 * 
+		 * @return KeyType - the type of the public key
+		 */
+		static KeyType of(PublicKey publicKey) {
+			for(KeyType type : values())
+				if(type.keyPairAlgorithm.equals(publicKey.getAlgorithm()) 
+						|| type.keyFactoryAlgorithm.equals(publicKey.getAlgorithm()))
+					return type;
+			throw new IllegalArgumentException(
+					String.format("Key algorithm %s is not supported!", publicKey.getAlgorithm()));
+		}
+	}
 }
@@ -0,0 +1,512 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.RecordComponent;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComEntityCache
+ * <p>
+ * Client sided cache of entities received by Get-Commands, keyed by their type and Id.
+ * <p>
+ * Every entity type has its own time to live, types without time to live are not cached.
+ * By default, the rarely changing reference data (Address, Insurance, ServiceProvider and User) is cached.
+ * The cache is bounded by its maximum size, evicting the least recently used entry.
+ * <p>
+ * Entries are invalidated, when a command changing the entity of the same Id is sent by the same client,
+ * so the cache has to be set to the sender by ComClientSender.setEntityCache(ComEntityCache)
+ * or to the client by ComAsyncClient.setEntityCache(ComEntityCache).
+ * A response loaded while an entry has been invalidated is not cached, as it may be outdated.
+ */
+public final class ComEntityCache {
+
+	private static final ClassValue<MethodHandle> CHANGED_ID = new ClassValue<>() {
+		@Override
+		protected MethodHandle computeValue(Class<?> type) {
+			return changedId(type);
+		}
+	};
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Map<Key, Entry> entries;
+
+	private final Map<Class<?>, Long> timesToLive = new ConcurrentHashMap<>();
+
+	private final int maxSize;
+
+	private long invalidationCount = 0;
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	private long evictions = 0;
+
+	private long expirations = 0;
+
+	/**
+	 * ComEntityCache
+	 * <p>
+	 * Client sided cache of entities received by Get-Commands.
+	 * <p>
+	 * Constructor requiring the maximum number of entries and the time to live of the reference data types
+	 * Address, Insurance, ServiceProvider and User.
+	 *
+	 * @param maxSize - the maximum number of cached entities
+	 * @param timeToLive - the time to live of the cached reference data
+	 */
+	public ComEntityCache(int maxSize, Duration timeToLive) {
+		if(maxSize <= 0)
+			throw new IllegalArgumentException("Cache size has to be positive!");
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		setTimeToLive(Address.class, timeToLive);
+		setTimeToLive(Insurance.class, timeToLive);
+		setTimeToLive(ServiceProvider.class, timeToLive);
+		setTimeToLive(User.class, timeToLive);
+	}
+
+	/**
+	 * method setTimeToLive
+	 * <p>
+	 * Method to set the time to live of the entities of the given type.
+	 *
+	 * @param type - the entity type
+	 * @param timeToLive - the time to live, null or not positive to not cache the type
+	 *
+	 * @return ComEntityCache - this cache, for chaining
+	 */
+	public ComEntityCache setTimeToLive(Class<?> type, Duration timeToLive) {
+		if(timeToLive == null || timeToLive.isZero() || timeToLive.isNegative()) {
+			timesToLive.remove(type);
+			invalidateAll(type);
+		} else {
+			timesToLive.put(type, timeToLive.toNanos());
+		}
+		return this;
+	}
+
+	/**
+	 * method get
+	 * <p>
+	 * Method to get the cached entity of the given type and Id.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 *
+	 * @return T - the cached entity or null, if it is not cached or expired
+	 */
+	public <T> T get(Class<T> type, Id<T> id) {
+		if(id == null || !timesToLive.containsKey(type))
+			return null;
+		Key key = new Key(type, id.value());
+		lock.lock();
+		try {
+			Entry entry = entries.get(key);
+			if(entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+				entries.remove(key);
+				expirations++;
+				entry = null;
+			}
+			if(entry == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+			return type.cast(entry.value());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method put
+	 * <p>
+	 * Method to cache the given entity, if its type has a time to live.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 * @param entity - the entity to cache
+	 */
+	public <T> void put(Class<T> type, Id<T> id, T entity) {
+		put(type, id, entity, -1);
+	}
+
+	/**
+	 * method getOrLoad
+	 * <p>
+	 * Method to get the cached entity of the given type and Id, loading and caching it on a miss.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 * @param loader - the loader of the entity, i.E. sending a Get-Command and receiving its response
+	 *
+	 * @return T - the cached or loaded entity
+	 *
+	 * @throws Exception - thrown by the loader
+	 */
+	public <T> T getOrLoad(Class<T> type, Id<T> id, Loader<T> loader) throws Exception {
+		T entity = get(type, id);
+		if(entity != null)
+			return entity;
+		long stamp = stamp();
+		entity = loader.load();
+		put(type, id, entity, stamp);
+		return entity;
+	}
+
+	/**
+	 * method getAddress
+	 * <p>
+	 * Method to get the address with the given id from the cache or else by the given sender and receiver.
+	 *
+	 * @param id - the id of the address
+	 * @param sender - the sender of the connection
+	 * @param receiver - the receiver of the connection
+	 *
+	 * @return Address - the requested address
+	 *
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public Address getAddress(Id<Address> id, IComClientSender sender, IComClientReceiver receiver) throws Exception {
+		return getOrLoad(Address.class, id, () -> {
+			sender.sendAddress(new Address.Get(id));
+			return receiver.receiveAddress();
+		});
+	}
+
+	/**
+	 * method getInsurance
+	 * <p>
+	 * Method to get the insurance with the given id from the cache or else by the given sender and receiver.
+	 *
+	 * @param id - the id of the insurance
+	 * @param sender - the sender of the connection
+	 * @param receiver - the receiver of the connection
+	 *
+	 * @return Insurance - the requested insurance
+	 *
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public Insurance getInsurance(Id<Insurance> id, IComClientSender sender, IComClientReceiver receiver) throws Exception {
+		return getOrLoad(Insurance.class, id, () -> {
+			sender.sendInsurance(new Insurance.Get(id));
+			return receiver.receiveInsurance();
+		});
+	}
+
+	/**
+	 * method getServiceProvider
+	 * <p>
+	 * Method to get the service provider with the given id from the cache or else by the given sender and receiver.
+	 *
+	 * @param id - the id of the service provider
+	 * @param sender - the sender of the connection
+	 * @param receiver - the receiver of the connection
+	 *
+	 * @return ServiceProvider - the requested service provider
+	 *
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public ServiceProvider getServiceProvider(Id<ServiceProvider> id, IComClientSender sender, IComClientReceiver receiver)
+			throws Exception {
+		return getOrLoad(ServiceProvider.class, id, () -> {
+			sender.sendServiceProvider(new ServiceProvider.Get(id));
+			return receiver.receiveServiceProvider();
+		});
+	}
+
+	/**
+	 * method getUser
+	 * <p>
+	 * Method to get the user with the given id from the cache or else by the given sender and receiver.
+	 *
+	 * @param id - the id of the user
+	 * @param sender - the sender of the connection
+	 * @param receiver - the receiver of the connection
+	 *
+	 * @return User - the requested user
+	 *
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public User getUser(Id<User> id, IComClientSender sender, IComClientReceiver receiver) throws Exception {
+		return getOrLoad(User.class, id, () -> {
+			sender.sendUser(new User.Get(id));
+			return receiver.receiveUser();
+		});
+	}
+
+	/**
+	 * method invalidate
+	 * <p>
+	 * Method to invalidate the entry of the given entity type and Id.
+	 *
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 */
+	public void invalidate(Class<?> type, Id<?> id) {
+		if(id == null)
+			return;
+		lock.lock();
+		try {
+			invalidationCount++;
+			entries.remove(new Key(type, id.value()));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method invalidate
+	 * <p>
+	 * Method to invalidate the entry changed by the given sent command.
+	 * Commands changing an entity are all commands of an entity except for the Create- and Get-Commands,
+	 * the payload of a ComEnvelope is unwrapped and the commands of a ComBatch are invalidated one by one.
+	 *
+	 * @param command - the sent command
+	 */
+	public void invalidate(Serializable command) {
+		if(command == null)
+			return;
+		if(command instanceof ComEnvelope) {
+			invalidate(((ComEnvelope) command).payload());
+			return;
+		}
+		if(command instanceof ComBatch) {
+			for(Serializable batched : ((ComBatch) command).commands())
+				invalidate(batched);
+			return;
+		}
+		MethodHandle changedId = CHANGED_ID.get(command.getClass());
+		if(changedId == null)
+			return;
+		try {
+			invalidate(command.getClass().getEnclosingClass(), (Id<?>) changedId.invoke(command));
+		} catch (Throwable e) {
+			Log.sendException(e);
+		}
+	}
+
+	/**
+	 * method invalidateAll
+	 * <p>
+	 * Method to invalidate all entries.
+	 */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			invalidationCount++;
+			entries.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method getMetrics
+	 * <p>
+	 * Method to get the hit and miss counters of the cache.
+	 *
+	 * @return Metrics - the current metrics of the cache
+	 */
+	public Metrics getMetrics() {
+		lock.lock();
+		try {
+			return new Metrics(hits, misses, evictions, expirations, invalidationCount, entries.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method stamp
+	 * <p>
+	 * Method to get the number of invalidations, taken before loading an entity,
+	 * so the loaded entity is not cached, when an entry has been invalidated meanwhile.
+	 *
+	 * @return long - the current stamp
+	 */
+	long stamp() {
+		lock.lock();
+		try {
+			return invalidationCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method put
+	 * <p>
+	 * Method to cache the given loaded entity, if no entry has been invalidated since the given stamp.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 * @param entity - the entity to cache
+	 * @param stamp - the stamp taken before loading or -1, to cache unconditionally
+	 */
+	<T> void put(Class<T> type, Id<T> id, T entity, long stamp) {
+		Long timeToLive = timesToLive.get(type);
+		if(id == null || entity == null || timeToLive == null)
+			return;
+		Key key = new Key(type, id.value());
+		lock.lock();
+		try {
+			if(stamp >= 0 && stamp != invalidationCount)
+				return;
+			entries.put(key, new Entry(entity, System.nanoTime() + timeToLive));
+			Iterator<Entry> eldest = entries.values().iterator();
+			while(entries.size() > maxSize) {
+				eldest.next();
+				eldest.remove();
+				evictions++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * private method invalidateAll
+	 * <p>
+	 * Method to invalidate all entries of the given entity type.
+	 *
+	 * @param type - the entity type
+	 */
+	private void invalidateAll(Class<?> type) {
+		lock.lock();
+		try {
+			invalidationCount++;
+			entries.keySet().removeIf(key -> key.type() == type);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * private method changedId
+	 * <p>
+	 * Method to get the accessor of the Id changed by commands of the given class,
+	 * being the first component of the command records except for the Create- and Get-Commands.
+	 *
+	 * @param type - the class of the command
+	 *
+	 * @return MethodHandle - the accessor of the Id or null, if the command does not change an entity
+	 */
+	private static MethodHandle changedId(Class<?> type) {
+		if(!type.isRecord() || type.getEnclosingClass() == null)
+			return null;
+		String name = type.getSimpleName();
+		if(name.startsWith("Create") || name.startsWith("Get") || type == User.LoginUser.class)
+			return null;
+		RecordComponent[] components = type.getRecordComponents();
+		if(components.length == 0 || components[0].getType() != Id.class)
+			return null;
+		try {
+			return MethodHandles.publicLookup().unreflect(components[0].getAccessor());
+		} catch (IllegalAccessException e) {
+			Log.sendException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * interface Loader
+	 * <p>
+	 * Loader of an entity missing in the cache.
+	 *
+	 * @param <T> - the entity type
+	 */
+	@FunctionalInterface
+	public static interface Loader<T> {
+
+		/**
+		 * method load
+		 * <p>
+		 * Method called to load the entity.
+		 *
+		 * @return T - the loaded entity
+		 *
+		 * @throws Exception - when loading the entity fails
+		 */
+		T load() throws Exception;
+	}
+
+	/**
+	 * record Metrics
+	 * <p>
+	 * Counters of the cache since its creation.
+	 *
+	 * @property Hits
+	 * @property Misses, including expired entries
+	 * @property Evictions of the least recently used entries
+	 * @property Expirations
+	 * @property Invalidations
+	 * @property Size, the number of cached entries
+	 */
+	public static record Metrics(
+			long hits,
+			long misses,
+			long evictions,
+			long expirations,
+			long invalidations,
+			int size) {
+
+		/**
+		 * method hitRate
+		 * <p>
+		 * Method to get the share of the requests answered from the cache.
+		 *
+		 * @return double - the hit rate between 0 and 1
+		 */
+		public double hitRate() {
+			long requests = hits + misses;
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+	}
+
+	/**
+	 * record Key
+	 * <p>
+	 * Key of an entry, the entity type and the value of its Id.
+	 *
+	 * @property Type
+	 * @property Id
+	 */
+	private static record Key(
+			Class<?> type,
+			String id) {
+	}
+
+	/**
+	 * record Entry
+	 * <p>
+	 * Cached entity with its expiry time.
+	 *
+	 * @property Value
+	 * @property Expiry time in nanoseconds of System.nanoTime()
+	 */
+	private static record Entry(
+			Object value,
+			long expiresAt) {
+	}
+}
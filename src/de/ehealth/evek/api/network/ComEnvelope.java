@@ -0,0 +1,63 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+
+/**
+ * record ComEnvelope
+ * <p>
+ * Envelope correlating a pipelined command and its response.
+ * <p>
+ * The client wraps every command with a new correlation id. When the server receives an envelope,
+ * the correlation id is set for the receiving thread and every object sent by the server on that thread,
+ * including thrown exceptions, is wrapped with the same id, until the next object is received.
+ *
+ * @property Correlation id
+ * @property Payload
+ */
+public record ComEnvelope(
+		long correlationId,
+		Serializable payload) implements Serializable {
+
+	private static final long serialVersionUID = 2085375139216473468L;
+
+	private static final ThreadLocal<ComEnvelope> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * method correlate
+	 * <p>
+	 * Method called on receiving an object, to correlate the responses sent by the current thread with it.
+	 *
+	 * @param received - the received object, correlated if it is a ComEnvelope
+	 */
+	static void correlate(Serializable received) {
+		if(received instanceof ComEnvelope)
+			CURRENT.set((ComEnvelope) received);
+		else
+			CURRENT.remove();
+	}
+
+	/**
+	 * method clearCorrelation
+	 * <p>
+	 * Method called, when the received object has been handled completely.
+	 */
+	static void clearCorrelation() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * method wrap
+	 * <p>
+	 * Method to wrap the given object to send with the correlation id of the current thread.
+	 *
+	 * @param object - the object to send
+	 *
+	 * @return Serializable - the wrapped object or the given object, if it is not correlated
+	 */
+	static Serializable wrap(Serializable object) {
+		ComEnvelope current = CURRENT.get();
+		if(current == null || object instanceof ComEnvelope || ComEncryption.isHandshake(object))
+			return object;
+		return new ComEnvelope(current.correlationId(), object);
+	}
+}
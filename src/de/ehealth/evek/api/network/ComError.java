@@ -0,0 +1,331 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.EncryptionException;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.IsArchivedException;
+import de.ehealth.evek.api.exception.IsNotArchivableException;
+import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.exception.ProviderNotFoundException;
+import de.ehealth.evek.api.exception.UserNameAlreadyUsedException;
+import de.ehealth.evek.api.exception.UserNotAllowedException;
+import de.ehealth.evek.api.exception.UserNotFoundException;
+import de.ehealth.evek.api.exception.UserNotProvidedException;
+import de.ehealth.evek.api.exception.WrongCredentialsException;
+import de.ehealth.evek.api.exception.WrongObjectTypeException;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.type.UserRole;
+
+/**
+ * record ComError
+ * <p>
+ * Compact error frame, sent instead of the serialized exception for the exceptions of de.ehealth.evek.api.exception.
+ * <p>
+ * The frame holds the code of the exception class, the id of the entity it refers to, its message
+ * and one additional value, i.E. the role of a UserNotAllowedException. Stack trace and cause chain are not sent,
+ * the message of the exception is kept. The receiver recreates the exception by toException().
+ * Exceptions of other classes, including subclasses of the mapped ones, are sent serialized as before.
+ *
+ * @property Code of the exception class
+ * @property Entity id, null if the exception does not refer to an entity
+ * @property Message
+ * @property Detail, the additional value of the exception
+ */
+public record ComError(
+		int code,
+		String entityId,
+		String message,
+		String detail) implements Serializable {
+
+	private static final long serialVersionUID = -3360851747413806288L;
+
+	/**
+	 * method encode
+	 * <p>
+	 * Method to get the object to send for the given throwable, as called by the senders.
+	 *
+	 * @param e - the throwable to send
+	 *
+	 * @return Serializable - the error frame of the throwable or the throwable itself, if its class is not mapped
+	 */
+	static Serializable encode(Throwable e) {
+		ComError error = of(e);
+		if(error == null)
+			return e;
+		return error;
+	}
+
+	/**
+	 * method decode
+	 * <p>
+	 * Method to get the received object, recreating the exception of an error frame, as called by the receivers.
+	 *
+	 * @param object - the received object
+	 *
+	 * @return Object - the recreated exception or the given object, if it is no error frame
+	 */
+	static Object decode(Object object) {
+		if(object instanceof ComError)
+			return ((ComError) object).toException();
+		return object;
+	}
+
+	/**
+	 * method of
+	 * <p>
+	 * Method to get the error frame of the given throwable.
+	 *
+	 * @param e - the throwable to get the error frame of
+	 *
+	 * @return ComError - the error frame or null, if the class of the throwable is not mapped
+	 */
+	public static ComError of(Throwable e) {
+		if(e == null)
+			return null;
+		Code code = Code.of(e.getClass());
+		if(code == null)
+			return null;
+		String entityId = null;
+		String detail = null;
+		switch(code) {
+		case IS_NOT_ARCHIVABLE:
+		case IS_ARCHIVED:
+			entityId = value(((IsNotArchivableException) e).getTransportDocument());
+			break;
+		case USER_NOT_ALLOWED:
+			UserNotAllowedException notAllowed = (UserNotAllowedException) e;
+			entityId = value(notAllowed.getProcessingUser());
+			if(notAllowed.getProcessingUserRole() != null)
+				detail = notAllowed.getProcessingUserRole().name();
+			break;
+		case USER_NOT_FOUND:
+			entityId = value(((UserNotFoundException) e).getUserID());
+			break;
+		case USER_NAME_ALREADY_USED:
+			detail = ((UserNameAlreadyUsedException) e).getUserName();
+			break;
+		case PROVIDER_NOT_FOUND:
+			detail = ((ProviderNotFoundException) e).getProvider();
+			break;
+		case WRONG_OBJECT_TYPE:
+			Type expectedType = ((WrongObjectTypeException) e).getExpectedType();
+			if(expectedType != null)
+				detail = expectedType.getTypeName();
+			break;
+		default:
+			break;
+		}
+		return new ComError(code.getCode(), entityId, e.getMessage(), detail);
+	}
+
+	/**
+	 * method toException
+	 * <p>
+	 * Method to recreate the exception of the error frame.
+	 * Codes not known by this version of the API are recreated as ProcessingException.
+	 *
+	 * @return Exception - the recreated exception
+	 */
+	public Exception toException() {
+		Code code = Code.of(this.code);
+		if(code == null)
+			return new ProcessingException(String.format("Error %d: %s", this.code, message));
+		switch(code) {
+		case ILLEGAL_PROCESS:
+			return new IllegalProcessException(message);
+		case PROCESSING:
+			return new ProcessingException(message);
+		case ENCRYPTION:
+			return new EncryptionException(message);
+		case IS_NOT_ARCHIVABLE:
+			return new IsNotArchivableException(this.<TransportDocument>id(), message);
+		case IS_ARCHIVED:
+			return new IsArchivedException(this.<TransportDocument>id(), message);
+		case PROVIDER_NOT_FOUND:
+			return new ProviderNotFoundException(detail);
+		case USER_NAME_ALREADY_USED:
+			return new UserNameAlreadyUsedException(detail);
+		case USER_NOT_ALLOWED:
+			return new UserNotAllowedException(message, this.<User>id(), role());
+		case USER_NOT_FOUND:
+			return new UserNotFoundException(this.<User>id(), message);
+		case USER_NOT_PROVIDED:
+			return new UserNotProvidedException(message);
+		case WRONG_CREDENTIALS:
+			return message == null ? new WrongCredentialsException() : new WrongCredentialsException(message);
+		case WRONG_OBJECT_TYPE:
+			return new WrongObjectTypeException(message, expectedType(), null);
+		default:
+			return new ProcessingException(message);
+		}
+	}
+
+	/**
+	 * private method id
+	 * <p>
+	 * Method to get the entity id of the error frame as Id.
+	 *
+	 * @param <T> - the type of the entity
+	 *
+	 * @return Id - the id of the entity or null, if not set
+	 */
+	private <T> Id<T> id() {
+		if(entityId == null)
+			return null;
+		return new Id<>(entityId);
+	}
+
+	/**
+	 * private method role
+	 * <p>
+	 * Method to get the role of a UserNotAllowedException from the detail of the error frame.
+	 *
+	 * @return UserRole - the role or null, if it is not set or not known by the receiver
+	 */
+	private UserRole role() {
+		if(detail == null)
+			return null;
+		try {
+			return UserRole.valueOf(detail);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * private method expectedType
+	 * <p>
+	 * Method to get the expected type of a WrongObjectTypeException from the detail of the error frame.
+	 *
+	 * @return Type - the expected type or null, if it is not a class known by the receiver
+	 */
+	private Type expectedType() {
+		if(detail == null)
+			return null;
+		try {
+			return Class.forName(detail, false, ComError.class.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * private method value
+	 * <p>
+	 * Method to get the value of the given id.
+	 *
+	 * @param id - the id
+	 *
+	 * @return String - the value of the id or null, if the id is null
+	 */
+	private static String value(Id<?> id) {
+		if(id == null)
+			return null;
+		return id.value();
+	}
+
+	/**
+	 * enum Code
+	 * <p>
+	 * Codes of the exception classes sent as error frame.
+	 * The codes are part of the protocol and must never be changed or reused.
+	 */
+	public static enum Code {
+		ILLEGAL_PROCESS(1, IllegalProcessException.class),
+		PROCESSING(2, ProcessingException.class),
+		ENCRYPTION(3, EncryptionException.class),
+		IS_NOT_ARCHIVABLE(4, IsNotArchivableException.class),
+		IS_ARCHIVED(5, IsArchivedException.class),
+		PROVIDER_NOT_FOUND(6, ProviderNotFoundException.class),
+		USER_NAME_ALREADY_USED(7, UserNameAlreadyUsedException.class),
+		USER_NOT_ALLOWED(8, UserNotAllowedException.class),
+		USER_NOT_FOUND(9, UserNotFoundException.class),
+		USER_NOT_PROVIDED(10, UserNotProvidedException.class),
+		WRONG_CREDENTIALS(11, WrongCredentialsException.class),
+		WRONG_OBJECT_TYPE(12, WrongObjectTypeException.class);
+
+		private static final Map<Integer, Code> BY_CODE = new HashMap<>();
+
+		private static final Map<Class<?>, Code> BY_TYPE = new HashMap<>();
+
+		static {
+			for(Code code : values()) {
+				BY_CODE.put(code.code, code);
+				BY_TYPE.put(code.type, code);
+			}
+		}
+
+		private final int code;
+
+		private final Class<? extends Exception> type;
+
+		/**
+		 * private Code
+		 * <p>
+		 * Codes of the exception classes sent as error frame.
+		 * <p>
+		 * Constructor requiring the numeric code and the exception class.
+		 *
+		 * @param code - the numeric code sent
+		 * @param type - the exact exception class
+		 */
+		private Code(int code, Class<? extends Exception> type) {
+			this.code = code;
+			this.type = type;
+		}
+
+		/**
+		 * method getCode
+		 * <p>
+		 * Method to get the numeric code sent.
+		 *
+		 * @return int - the numeric code
+		 */
+		public int getCode() {
+			return code;
+		}
+
+		/**
+		 * method getType
+		 * <p>
+		 * Method to get the exception class of the code.
+		 *
+		 * @return Class - the exception class
+		 */
+		public Class<? extends Exception> getType() {
+			return type;
+		}
+
+		/**
+		 * method of
+		 * <p>
+		 * Method to get the code of the given numeric code.
+		 *
+		 * @param code - the numeric code
+		 *
+		 * @return Code - the code or null, if the numeric code is not known
+		 */
+		public static Code of(int code) {
+			return BY_CODE.get(code);
+		}
+
+		/**
+		 * method of
+		 * <p>
+		 * Method to get the code of the given exception class, not considering super classes.
+		 *
+		 * @param type - the exception class
+		 *
+		 * @return Code - the code or null, if the class is not mapped
+		 */
+		public static Code of(Class<?> type) {
+			return BY_TYPE.get(type);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package de.ehealth.evek.api.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.ehealth.evek.api.exception.EncryptionException;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComFrameCodec
+ * <p>
+ * Class used for transmitting session encrypted objects as length-prefixed frames.
+ * <p>
+ * The object is serialized straight into a reused buffer, encrypted in place and written as one frame,
+ * so it is not serialized a second time as part of a ComEncryptedObject.
+ * Received frames are decrypted in a reused buffer as well before the object is deserialized.
+ * Reading and writing are guarded by separate locks, so a thread waiting for the next frame does not block 
+ * sending and, unlike a monitor, does not pin the carrier of a virtual thread.
+ * <p>
+ * Connections using the frame transport send unencrypted objects as plain frames of their own serialization.
+ * <p>
+ * If negotiated on handshake, the objects of the session encrypted frames are encoded by the ComBinaryCodec 
+ * instead of the Java serialization.
+ */
+final class ComFrameCodec {
+
+	static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+	private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+	private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024 * 1024;
+
+	private static final int TAG_BYTES = ComSessionCipher.TAG_LENGTH / 8;
+
+	private final ComSessionCipher sessionCipher;
+
+	private final boolean binaryCodec;
+
+	private final FrameBuffer writeBuffer = new FrameBuffer();
+
+	private byte[] readBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	private final ReentrantLock readLock = new ReentrantLock();
+
+	static {
+		ComBinaryCodec.install();
+	}
+
+	/**
+	 * ComFrameCodec
+	 * <p>
+	 * Class used for transmitting session encrypted objects as length-prefixed frames.
+	 * <p>
+	 * Constructor requiring the session cipher agreed on handshake and if the ComBinaryCodec is used.
+	 *
+	 * @param sessionCipher - the session cipher to encrypt and decrypt the frames with
+	 * @param binaryCodec - if the objects are encoded by the ComBinaryCodec instead of the Java serialization
+	 */
+	ComFrameCodec(ComSessionCipher sessionCipher, boolean binaryCodec) {
+		this.sessionCipher = sessionCipher;
+		this.binaryCodec = binaryCodec;
+	}
+
+	/**
+	 * method usesBinaryCodec
+	 * <p>
+	 * Method to get if the objects are encoded by the ComBinaryCodec.
+	 *
+	 * @return boolean - true, if the ComBinaryCodec is used
+	 */
+	boolean usesBinaryCodec() {
+		return binaryCodec;
+	}
+
+	/**
+	 * method writeFrame
+	 * <p>
+	 * Method to serialize or encode, encrypt and write the given object as one frame.
+	 *
+	 * @param out - the output of the connection to write the frame to, has to be flushed by the caller
+	 * @param object - the object to send
+	 *
+	 * @throws IOException - thrown when the object could not be serialized, encrypted or written
+	 */
+	void writeFrame(DataOutput out, Serializable object) throws IOException {
+		writeLock.lock();
+		try {
+			writeBuffer.reset();
+			if(binaryCodec)
+				ComBinaryCodec.write(writeBuffer, object);
+			else
+				try(ObjectOutputStream objOut = new ObjectOutputStream(writeBuffer)) {
+					objOut.writeObject(object);
+				}
+			int length = writeBuffer.size();
+			writeBuffer.ensureCapacity(length + TAG_BYTES);
+
+			length = sessionCipher.encrypt(sessionCipher.nextSendSequence(), writeBuffer.buffer(), length);
+
+			out.writeInt(length);
+			out.write(writeBuffer.buffer(), 0, length);
+		} catch(EncryptionException e) {
+			Log.sendException(e);
+			Log.sendMessage("Object could not be encrypted!");
+			throw e;
+		} finally {
+			writeBuffer.trim();
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * method readFrame
+	 * <p>
+	 * Method to read, decrypt and deserialize the next frame.
+	 *
+	 * @param in - the input of the connection to read the frame from
+	 *
+	 * @return Serializable - the received object
+	 *
+	 * @throws IOException - thrown when the frame could not be read, decrypted or deserialized
+	 */
+	Serializable readFrame(DataInput in) throws IOException {
+		readLock.lock();
+		try {
+			int length = in.readInt();
+			if(length < TAG_BYTES || length > MAX_FRAME_LENGTH)
+				throw new EncryptionException(String.format("Invalid frame length %d!", length));
+			if(readBuffer.length < length)
+				readBuffer = new byte[Math.max(length, readBuffer.length * 2)];
+			in.readFully(readBuffer, 0, length);
+			return decodeFrame(readBuffer, length);
+		} finally {
+			if(readBuffer.length > MAX_RETAINED_BUFFER_SIZE)
+				readBuffer = new byte[INITIAL_BUFFER_SIZE];
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * method decodeFrame
+	 * <p>
+	 * Method to decrypt and deserialize or decode the content of a frame that has already been read.
+	 * The given buffer is overwritten with the decrypted data.
+	 *
+	 * @param frame - the buffer holding the encrypted content of the frame
+	 * @param length - the length of the encrypted content
+	 *
+	 * @return Serializable - the received object
+	 *
+	 * @throws IOException - thrown when the frame could not be decrypted or deserialized
+	 */
+	Serializable decodeFrame(byte[] frame, int length) throws IOException {
+		readLock.lock();
+		try {
+			int plainLength = sessionCipher.decryptNext(frame, length);
+			if(binaryCodec)
+				return ComBinaryCodec.read(frame, 0, plainLength);
+			return deserialize(frame, 0, plainLength);
+		} catch(EncryptionException e) {
+			Log.sendException(e);
+			Log.sendMessage("Object could not be decrypted!");
+			throw e;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * method writePlainFrame
+	 * <p>
+	 * Method to serialize and write the given object as one unencrypted frame.
+	 *
+	 * @param out - the output of the connection to write the frame to, has to be flushed by the caller
+	 * @param object - the object to send
+	 *
+	 * @throws IOException - thrown when the object could not be serialized or written
+	 */
+	static void writePlainFrame(DataOutput out, Serializable object) throws IOException {
+		FrameBuffer buffer = new FrameBuffer();
+		try(ObjectOutputStream objOut = new ObjectOutputStream(buffer)) {
+			objOut.writeObject(object);
+		}
+		out.writeInt(buffer.size());
+		out.write(buffer.buffer(), 0, buffer.size());
+	}
+
+	/**
+	 * method readPlainFrame
+	 * <p>
+	 * Method to read and deserialize the next unencrypted frame.
+	 *
+	 * @param in - the input of the connection to read the frame from
+	 *
+	 * @return Serializable - the received object
+	 *
+	 * @throws IOException - thrown when the frame could not be read or deserialized
+	 */
+	static Serializable readPlainFrame(DataInput in) throws IOException {
+		int length = in.readInt();
+		if(length <= 0 || length > MAX_FRAME_LENGTH)
+			throw new IOException(String.format("Invalid frame length %d!", length));
+		byte[] frame = new byte[length];
+		in.readFully(frame);
+		return deserialize(frame, 0, length);
+	}
+
+	/**
+	 * method deserialize
+	 * <p>
+	 * Method to deserialize the object of the given serialized data.
+	 *
+	 * @param data - the buffer holding the serialized object
+	 * @param offset - the offset of the serialized object in the buffer
+	 * @param length - the length of the serialized object
+	 *
+	 * @return Serializable - the deserialized object
+	 *
+	 * @throws IOException - thrown when the object could not be deserialized
+	 */
+	static Serializable deserialize(byte[] data, int offset, int length) throws IOException {
+		try(ObjectInputStream objIn = new ObjectInputStream(
+				new ByteArrayInputStream(data, offset, length))) {
+			return (Serializable) objIn.readObject();
+		} catch(ClassNotFoundException | ClassCastException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * class FrameBuffer
+	 * <p>
+	 * ByteArrayOutputStream giving access to its buffer, so it can be encrypted and written without copying.
+	 *
+	 * @extends ByteArrayOutputStream
+	 */
+	private static final class FrameBuffer extends ByteArrayOutputStream {
+
+		private FrameBuffer() {
+			super(INITIAL_BUFFER_SIZE);
+		}
+
+		private byte[] buffer() {
+			return buf;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if(buf.length < capacity)
+				buf = Arrays.copyOf(buf, capacity);
+		}
+
+		private void trim() {
+			if(buf.length > MAX_RETAINED_BUFFER_SIZE) {
+				buf = new byte[INITIAL_BUFFER_SIZE];
+				count = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,530 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.type.Expand;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.type.Reference;
+import de.ehealth.evek.api.type.UserRole;
+import de.ehealth.evek.api.util.COptional;
+
+/**
+ * record ComGraph
+ * <p>
+ * Response to a Get- or GetList-Command of transport documents or transport details with entities to expand,
+ * holding the requested entities as roots together with the expanded entities they reference.
+ * <p>
+ * Every expanded entity is held once in the table of its type, however often it is referenced.
+ * The roots are not repeated in the tables. The references of the roots and of the expanded entities
+ * are resolved by get(Class, Id) and resolve(Class, Reference).
+ * <p>
+ * The server builds the graph by build(List, List, UserRole, Loader), loading the entities level by level
+ * with one GetListByIDList-Command per entity type and level.
+ *
+ * @property Roots, the requested transport documents or transport details in their order
+ * @property Transport documents
+ * @property Patients
+ * @property Insurance data
+ * @property Insurances
+ * @property Addresses
+ * @property Service providers
+ * @property Users
+ */
+public record ComGraph(
+		ArrayList<?> roots,
+		ArrayList<TransportDocument> transportDocuments,
+		ArrayList<Patient> patients,
+		ArrayList<InsuranceData> insuranceData,
+		ArrayList<Insurance> insurances,
+		ArrayList<Address> addresses,
+		ArrayList<ServiceProvider> serviceProviders,
+		ArrayList<User> users) implements Serializable {
+
+	private static final long serialVersionUID = 5307245968215417786L;
+
+	private static final Map<Class<?>, Node<?>> NODES = new HashMap<>();
+
+	private static final Map<Expand, Node<?>> NODES_BY_EXPAND = new HashMap<>();
+
+	static {
+		node(TransportDetails.class, null, TransportDetails.GetListByIDList::new, TransportDetails::id, graph -> null);
+		node(TransportDocument.class, Expand.Documents, TransportDocument.GetListByIDList::new,
+				TransportDocument::id, ComGraph::transportDocuments);
+		node(Patient.class, Expand.Patients, Patient.GetListByIDList::new, Patient::insuranceNumber, ComGraph::patients);
+		node(InsuranceData.class, Expand.InsuranceData, InsuranceData.GetListByIDList::new,
+				InsuranceData::id, ComGraph::insuranceData);
+		node(Insurance.class, Expand.Insurances, Insurance.GetListByIDList::new, Insurance::id, ComGraph::insurances);
+		node(Address.class, Expand.Addresses, Address.GetListByIDList::new, Address::id, ComGraph::addresses);
+		node(ServiceProvider.class, Expand.ServiceProviders, ServiceProvider.GetListByIDList::new,
+				ServiceProvider::id, ComGraph::serviceProviders);
+		node(User.class, Expand.Users, User.GetListByIDList::new, User::id, ComGraph::users);
+	}
+
+	/**
+	 * ComGraph
+	 * <p>
+	 * Response to a Get- or GetList-Command with entities to expand.
+	 * <p>
+	 * Compact constructor replacing missing lists by empty lists.
+	 */
+	public ComGraph {
+		roots = roots == null ? new ArrayList<>() : roots;
+		transportDocuments = transportDocuments == null ? new ArrayList<>() : transportDocuments;
+		patients = patients == null ? new ArrayList<>() : patients;
+		insuranceData = insuranceData == null ? new ArrayList<>() : insuranceData;
+		insurances = insurances == null ? new ArrayList<>() : insurances;
+		addresses = addresses == null ? new ArrayList<>() : addresses;
+		serviceProviders = serviceProviders == null ? new ArrayList<>() : serviceProviders;
+		users = users == null ? new ArrayList<>() : users;
+	}
+
+	/**
+	 * method roots
+	 * <p>
+	 * Method to get the roots as list of the given type.
+	 *
+	 * @param <T> - the type of the roots
+	 * @param type - the type of the roots, TransportDocument or TransportDetails
+	 *
+	 * @return List - the roots in their order
+	 *
+	 * @throws ClassCastException - thrown when a root is not of the given type
+	 */
+	public <T> List<T> roots(Class<T> type) {
+		List<T> list = new ArrayList<>(roots.size());
+		for(Object root : roots)
+			list.add(type.cast(root));
+		return list;
+	}
+
+	/**
+	 * method get
+	 * <p>
+	 * Method to get the root or expanded entity of the given type and Id.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the Id of the entity
+	 *
+	 * @return T - the entity or null, if it is not part of the graph
+	 */
+	public <T> T get(Class<T> type, Id<T> id) {
+		Node<?> node = NODES.get(type);
+		if(node == null || id == null)
+			return null;
+		Object found = node.find(roots, id);
+		if(found == null)
+			found = node.find(node.table().apply(this), id);
+		return type.cast(found);
+	}
+
+	/**
+	 * method resolve
+	 * <p>
+	 * Method to get the root or expanded entity the given reference refers to.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param reference - the reference to the entity
+	 *
+	 * @return T - the entity or null, if it is not part of the graph
+	 */
+	public <T> T resolve(Class<T> type, Reference<T> reference) {
+		if(reference == null)
+			return null;
+		return get(type, reference.id());
+	}
+
+	/**
+	 * method index
+	 * <p>
+	 * Method to get the roots and expanded entities of the given type by their Id,
+	 * to resolve many references without searching the tables.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 *
+	 * @return Map - the entities of the type by their Id
+	 */
+	public <T> Map<Id<T>, T> index(Class<T> type) {
+		Map<Id<T>, T> index = new HashMap<>();
+		Node<?> node = NODES.get(type);
+		if(node == null)
+			return index;
+		node.index(roots, type, index);
+		node.index(node.table().apply(this), type, index);
+		return index;
+	}
+
+	/**
+	 * method isExpanding
+	 * <p>
+	 * Method to get if the given expand specification requests a ComGraph as response.
+	 *
+	 * @param expand - the expand specification of a Get- or GetList-Command
+	 *
+	 * @return boolean - true, if entities are to be expanded
+	 */
+	public static boolean isExpanding(List<Expand> expand) {
+		return expand != null && !expand.isEmpty();
+	}
+
+	/**
+	 * method build
+	 * <p>
+	 * Method to build the graph of the given roots, as called by the server to respond
+	 * to a Get- or GetList-Command with entities to expand.
+	 * <p>
+	 * The references of the roots to entities of an expanded type are collected and deduplicated,
+	 * then loaded by one GetListByIDList-Command per entity type. The references of the loaded entities
+	 * are followed the same way, until no new entities are referenced. Types the given role is not allowed
+	 * to get by GetListByIDList are not expanded. Entities not found by the loader are left out.
+	 *
+	 * @param roots - the requested transport documents or transport details
+	 * @param expand - the entity types to expand
+	 * @param role - the role of the processing user or null, to not restrict the expanded types
+	 * @param loader - the loader processing the GetListByIDList-Commands
+	 *
+	 * @return ComGraph - the graph of the roots and the expanded entities
+	 *
+	 * @throws IllegalProcessException - thrown by the loader
+	 * @throws ProcessingException - thrown by the loader
+	 */
+	public static ComGraph build(List<?> roots, List<Expand> expand, UserRole role, Loader loader)
+			throws IllegalProcessException, ProcessingException {
+		if(roots == null || loader == null)
+			throw new IllegalArgumentException("Roots and loader shall be provided!");
+		Builder builder = new Builder(expand, role);
+		for(Object root : roots)
+			builder.visit(root, true);
+		while(!builder.next.isEmpty()) {
+			Map<Node<?>, Set<String>> level = builder.next;
+			builder.next = new LinkedHashMap<>();
+			for(Map.Entry<Node<?>, Set<String>> entry : level.entrySet())
+				for(Object entity : entry.getKey().load(loader, entry.getValue()))
+					builder.visit(entity, false);
+		}
+		return builder.toGraph(roots);
+	}
+
+	/**
+	 * private method node
+	 * <p>
+	 * Method to register the node of an entity type.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param expand - the expand constant of the type or null, if the type is not expandable
+	 * @param command - the constructor of the GetListByIDList-Command of the type
+	 * @param id - the accessor of the Id of the entities
+	 * @param table - the accessor of the table of the type in a graph
+	 */
+	private static <T> void node(Class<T> type, Expand expand, Function<List<Id<T>>, ? extends Serializable> command,
+			Function<T, Id<T>> id, Function<ComGraph, ArrayList<T>> table) {
+		Node<T> node = new Node<>(type, expand, command, id, table);
+		NODES.put(type, node);
+		if(expand != null)
+			NODES_BY_EXPAND.put(expand, node);
+	}
+
+	/**
+	 * interface Loader
+	 * <p>
+	 * Loader of the expanded entities on server side.
+	 */
+	@FunctionalInterface
+	public static interface Loader {
+
+		/**
+		 * method load
+		 * <p>
+		 * Method called to process a GetListByIDList-Command of an expanded entity type.
+		 *
+		 * @param command - the GetListByIDList-Command to process
+		 *
+		 * @return List - the found entities
+		 *
+		 * @throws IllegalProcessException - thrown when a process can not be performed due to unmatched requirements
+		 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+		 */
+		List<?> load(Serializable command) throws IllegalProcessException, ProcessingException;
+	}
+
+	/**
+	 * record Node
+	 * <p>
+	 * Entity type of a graph.
+	 *
+	 * @property Type
+	 * @property Expand constant, null if the type is not expandable
+	 * @property GetListByIDList-Command, created from the list of ids
+	 * @property Id accessor of the entities
+	 * @property Table accessor of a graph
+	 */
+	private static record Node<T>(
+			Class<T> type,
+			Expand expand,
+			Function<List<Id<T>>, ? extends Serializable> command,
+			Function<T, Id<T>> id,
+			Function<ComGraph, ArrayList<T>> table) {
+
+		/**
+		 * method idOf
+		 * <p>
+		 * Method to get the Id of the given entity of the type.
+		 *
+		 * @param entity - the entity
+		 *
+		 * @return Id - the Id of the entity
+		 */
+		private Id<T> idOf(Object entity) {
+			return id.apply(type.cast(entity));
+		}
+
+		/**
+		 * method find
+		 * <p>
+		 * Method to find the entity of the given Id in the given list.
+		 *
+		 * @param list - the list to search, may be null
+		 * @param entityId - the Id of the entity
+		 *
+		 * @return Object - the entity or null, if it is not in the list
+		 */
+		private Object find(List<?> list, Id<?> entityId) {
+			if(list == null)
+				return null;
+			for(Object entity : list)
+				if(type.isInstance(entity) && entityId.equals(idOf(entity)))
+					return entity;
+			return null;
+		}
+
+		/**
+		 * method index
+		 * <p>
+		 * Method to add the entities of the type in the given list to the given index.
+		 *
+		 * @param <E> - the entity type
+		 * @param list - the list to index, may be null
+		 * @param entityType - the entity type
+		 * @param index - the index to add to
+		 */
+		@SuppressWarnings("unchecked")
+		private <E> void index(List<?> list, Class<E> entityType, Map<Id<E>, E> index) {
+			if(list == null)
+				return;
+			for(Object entity : list)
+				if(type.isInstance(entity))
+					index.put((Id<E>) idOf(entity), entityType.cast(entity));
+		}
+
+		/**
+		 * method load
+		 * <p>
+		 * Method to load the entities of the given ids by one GetListByIDList-Command.
+		 *
+		 * @param loader - the loader processing the command
+		 * @param ids - the ids to load
+		 *
+		 * @return List - the loaded entities of the type
+		 *
+		 * @throws IllegalProcessException - thrown by the loader
+		 * @throws ProcessingException - thrown by the loader
+		 */
+		private List<T> load(Loader loader, Set<String> ids) throws IllegalProcessException, ProcessingException {
+			List<Id<T>> idList = new ArrayList<>(ids.size());
+			for(String value : ids)
+				idList.add(new Id<>(value));
+			List<?> loaded = loader.load(command.apply(idList));
+			List<T> entities = new ArrayList<>(loaded == null ? 0 : loaded.size());
+			if(loaded == null)
+				return entities;
+			for(Object entity : loaded)
+				if(type.isInstance(entity) && ids.contains(idOf(entity).value()))
+					entities.add(type.cast(entity));
+			return entities;
+		}
+	}
+
+	/**
+	 * Builder
+	 * <p>
+	 * State of build(List, List, UserRole, Loader): the expanded types, the visited ids,
+	 * the ids to load on the next level and the collected tables.
+	 */
+	private static final class Builder {
+
+		private final Set<Node<?>> expanded = new HashSet<>();
+
+		private final Map<Node<?>, Set<String>> seen = new HashMap<>();
+
+		private final Map<Node<?>, ArrayList<Object>> tables = new HashMap<>();
+
+		private Map<Node<?>, Set<String>> next = new LinkedHashMap<>();
+
+		/**
+		 * private Builder
+		 * <p>
+		 * State of build(List, List, UserRole, Loader).
+		 * <p>
+		 * Constructor requiring the expand specification and the role restricting it.
+		 *
+		 * @param expand - the entity types to expand
+		 * @param role - the role of the processing user or null
+		 */
+		private Builder(List<Expand> expand, UserRole role) {
+			if(!isExpanding(expand))
+				return;
+			for(Expand constant : expand) {
+				Node<?> node = NODES_BY_EXPAND.get(constant);
+				if(node == null)
+					continue;
+				if(role == null || role.isAllowed(node.command().apply(List.of()).getClass()))
+					expanded.add(node);
+			}
+		}
+
+		/**
+		 * method visit
+		 * <p>
+		 * Method to add the given entity to the graph and collect its references to load.
+		 *
+		 * @param entity - the root or loaded entity
+		 * @param root - true, if the entity is a root
+		 */
+		private void visit(Object entity, boolean root) {
+			if(entity == null)
+				return;
+			Node<?> node = NODES.get(entity.getClass());
+			if(node == null)
+				return;
+			Id<?> id = node.idOf(entity);
+			if(root) {
+				if(id != null)
+					seen.computeIfAbsent(node, key -> new HashSet<>()).add(id.value());
+			} else {
+				tables.computeIfAbsent(node, key -> new ArrayList<>()).add(entity);
+			}
+			if(entity instanceof TransportDetails) {
+				TransportDetails details = (TransportDetails) entity;
+				reference(TransportDocument.class, details.transportDocument());
+				reference(Address.class, details.startAddress());
+				reference(Address.class, details.endAddress());
+				reference(ServiceProvider.class, details.transportProvider());
+			} else if(entity instanceof TransportDocument) {
+				TransportDocument document = (TransportDocument) entity;
+				reference(Patient.class, document.patient());
+				reference(InsuranceData.class, document.insuranceData());
+				reference(ServiceProvider.class, document.healthcareServiceProvider());
+				reference(User.class, document.signature());
+			} else if(entity instanceof Patient) {
+				Patient patient = (Patient) entity;
+				reference(InsuranceData.class, patient.insuranceData());
+				reference(Address.class, patient.address());
+			} else if(entity instanceof InsuranceData) {
+				InsuranceData data = (InsuranceData) entity;
+				reference(Patient.class, data.patient());
+				reference(Insurance.class, data.insurance());
+			} else if(entity instanceof Insurance) {
+				reference(Address.class, ((Insurance) entity).address());
+			} else if(entity instanceof ServiceProvider) {
+				reference(Address.class, ((ServiceProvider) entity).address());
+			} else if(entity instanceof User) {
+				User user = (User) entity;
+				reference(Address.class, user.address());
+				reference(ServiceProvider.class, user.serviceProvider());
+			}
+		}
+
+		/**
+		 * method reference
+		 * <p>
+		 * Method to collect the given optional reference, if it is present.
+		 *
+		 * @param type - the referenced entity type
+		 * @param reference - the optional reference
+		 */
+		private void reference(Class<?> type, COptional<? extends Reference<?>> reference) {
+			if(reference != null && reference.isPresent())
+				reference(type, reference.get());
+		}
+
+		/**
+		 * method reference
+		 * <p>
+		 * Method to collect the given reference to load on the next level,
+		 * if its type is expanded and it has not been visited yet.
+		 *
+		 * @param type - the referenced entity type
+		 * @param reference - the reference
+		 */
+		private void reference(Class<?> type, Reference<?> reference) {
+			if(reference == null || reference.id() == null)
+				return;
+			Node<?> node = NODES.get(type);
+			if(!expanded.contains(node))
+				return;
+			if(seen.computeIfAbsent(node, key -> new HashSet<>()).add(reference.id().value()))
+				next.computeIfAbsent(node, key -> new LinkedHashSet<>()).add(reference.id().value());
+		}
+
+		/**
+		 * method toGraph
+		 * <p>
+		 * Method to create the graph of the given roots and the collected tables.
+		 *
+		 * @param roots - the roots of the graph
+		 *
+		 * @return ComGraph - the created graph
+		 */
+		private ComGraph toGraph(List<?> roots) {
+			return new ComGraph(
+					new ArrayList<>(roots),
+					table(TransportDocument.class),
+					table(Patient.class),
+					table(InsuranceData.class),
+					table(Insurance.class),
+					table(Address.class),
+					table(ServiceProvider.class),
+					table(User.class));
+		}
+
+		/**
+		 * method table
+		 * <p>
+		 * Method to get the collected table of the given type.
+		 *
+		 * @param <T> - the entity type
+		 * @param type - the entity type
+		 *
+		 * @return ArrayList - the collected entities of the type
+		 */
+		@SuppressWarnings("unchecked")
+		private <T> ArrayList<T> table(Class<T> type) {
+			ArrayList<Object> table = tables.get(NODES.get(type));
+			if(table == null)
+				return new ArrayList<>();
+			return (ArrayList<T>) table;
+		}
+	}
+}
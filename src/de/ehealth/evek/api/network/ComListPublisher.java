@@ -0,0 +1,298 @@
+package de.ehealth.evek.api.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.ehealth.evek.api.exception.WrongObjectTypeException;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComListPublisher
+ * <p>
+ * Flow.Publisher of the elements of a list streamed by ComListStream chunks.
+ * <p>
+ * The next chunk is read from the connection on a virtual thread, not before the subscriber demands
+ * more elements than the current chunk holds, so at most one chunk is held in memory.
+ * A server not sending the list streamed is supported by handling its list as single chunk.
+ * <p>
+ * The publisher supports one subscriber only. When the subscription is cancelled, the remaining chunks
+ * are read and discarded, so the connection can be used for the next response, as when emitting an element fails.
+ * Reading the next response has to await the end of the stream by awaitEnd().
+ *
+ * @param <T> - the type of the elements
+ *
+ * @implements Flow.Publisher
+ */
+final class ComListPublisher<T> implements Flow.Publisher<T> {
+
+	private final PartReader reader;
+
+	private final Class<T> elementType;
+
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+	
+	private final CountDownLatch endOfStream = new CountDownLatch(1);
+
+	/**
+	 * ComListPublisher
+	 * <p>
+	 * Flow.Publisher of the elements of a list streamed by ComListStream chunks.
+	 * <p>
+	 * Constructor requiring the reader of the parts of the stream and the expected type of the elements.
+	 *
+	 * @param reader - the reader of the next part of the stream
+	 * @param elementType - the expected type of the elements
+	 */
+	ComListPublisher(PartReader reader, Class<T> elementType) {
+		this.reader = reader;
+		this.elementType = elementType;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		if(subscriber == null)
+			throw new NullPointerException("Subscriber shall not be null!");
+		if(!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+			subscriber.onError(new IllegalStateException("List stream has already been subscribed!"));
+			return;
+		}
+		subscriber.onSubscribe(new ListSubscription(subscriber));
+	}
+	
+	/**
+	 * method awaitEnd
+	 * <p>
+	 * Method to await the stream to be read completely, reading and discarding it, when it has not been subscribed.
+	 * 
+	 * @throws IOException - thrown when reading the remaining parts fails or the waiting thread is interrupted
+	 */
+	void awaitEnd() throws IOException {
+		if(subscribed.compareAndSet(false, true)) {
+			try {
+				Object part;
+				do
+					part = reader.read();
+				while(part instanceof ComListStream.Chunk);
+			} catch(IOException e) {
+				throw e;
+			} catch(Exception e) {
+				throw new IOException(e);
+			} finally {
+				endOfStream.countDown();
+			}
+			return;
+		}
+		try {
+			endOfStream.await();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted awaiting the end of the list stream!");
+		}
+	}
+
+	/**
+	 * interface PartReader
+	 * <p>
+	 * Reader of the next part of the stream from the connection.
+	 */
+	@FunctionalInterface
+	static interface PartReader {
+
+		Object read() throws Exception;
+	}
+
+	/**
+	 * class ListSubscription
+	 * <p>
+	 * Subscription emitting the elements on demand.
+	 *
+	 * @implements Flow.Subscription
+	 */
+	private final class ListSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super T> subscriber;
+
+		private final AtomicLong demand = new AtomicLong();
+
+		private final AtomicInteger work = new AtomicInteger();
+
+		private volatile boolean cancelled = false;
+
+		private volatile Throwable failure;
+
+		private boolean finished = false;
+
+		private boolean ended = false;
+
+		private boolean broken = false;
+
+		private Iterator<?> chunk = Collections.emptyIterator();
+
+		private ListSubscription(Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if(n <= 0) {
+				failure = new IllegalArgumentException("Demand has to be positive!");
+				cancelled = true;
+			} else {
+				demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		/**
+		 * private method schedule
+		 * <p>
+		 * Method to start the emitting thread, if it is not running already.
+		 */
+		private void schedule() {
+			if(work.getAndIncrement() == 0)
+				Thread.ofVirtual().name("ComListPublisher").start(this::emit);
+		}
+
+		/**
+		 * private method emit
+		 * <p>
+		 * Loop emitting the demanded elements, reading the next chunks when required.
+		 * When emitting fails, i.E. on an element of another type or an exception of the subscriber,
+		 * the remaining parts are read and discarded before the subscriber is failed, unless reading itself failed.
+		 */
+		private void emit() {
+			int missed = 1;
+			do {
+				if(!finished) {
+					try {
+						if(cancelled)
+							discardRemaining();
+						else
+							emitDemanded();
+					} catch(Exception e) {
+						if(!ended && !broken) {
+							try {
+								discardRemaining();
+							} catch(Exception discardFailure) {
+								e.addSuppressed(discardFailure);
+							}
+						}
+						finished = true;
+						chunk = null;
+						if(cancelled)
+							Log.sendException(e);
+						else
+							subscriber.onError(e);
+					}
+					if(finished)
+						endOfStream.countDown();
+					if(finished && failure != null)
+						subscriber.onError(failure);
+				}
+				missed = work.addAndGet(-missed);
+			} while(missed != 0);
+		}
+
+		/**
+		 * private method emitDemanded
+		 * <p>
+		 * Method to emit elements as long as demanded, completing the subscriber at the end of the stream.
+		 *
+		 * @throws Exception - thrown when reading the next part fails or an element is of another type
+		 */
+		private void emitDemanded() throws Exception {
+			while(!cancelled) {
+				if(!chunk.hasNext()) {
+					if(ended) {
+						finished = true;
+						chunk = null;
+						subscriber.onComplete();
+						return;
+					}
+					if(demand.get() == 0)
+						return;
+					chunk = Collections.emptyIterator();
+					readNext();
+					continue;
+				}
+				if(demand.get() == 0)
+					return;
+				Object element = chunk.next();
+				if(element != null && !elementType.isInstance(element))
+					throw new WrongObjectTypeException(elementType, element);
+				demand.decrementAndGet();
+				subscriber.onNext(elementType.cast(element));
+			}
+			discardRemaining();
+		}
+
+		/**
+		 * private method discardRemaining
+		 * <p>
+		 * Method to read and discard the remaining parts of the cancelled stream.
+		 *
+		 * @throws Exception - thrown when reading the next part fails
+		 */
+		private void discardRemaining() throws Exception {
+			chunk = Collections.emptyIterator();
+			while(!ended)
+				readNext();
+			finished = true;
+			chunk = null;
+		}
+
+		/**
+		 * private method readNext
+		 * <p>
+		 * Method to read the next part of the stream.
+		 *
+		 * @throws Exception - thrown when reading fails or the part is neither chunk, end nor list
+		 */
+		private void readNext() throws Exception {
+			Object part;
+			try {
+				part = reader.read();
+			} catch(Exception e) {
+				broken = true;
+				throw e;
+			}
+			if(part instanceof ComListStream.Chunk) {
+				chunk = ((ComListStream.Chunk) part).elements().iterator();
+			} else if(part instanceof ComListStream.End) {
+				ended = true;
+			} else if(part instanceof List<?>) {
+				chunk = ((List<?>) part).iterator();
+				ended = true;
+			} else if(part instanceof Exception) {
+				ended = true;
+				throw (Exception) part;
+			} else {
+				broken = true;
+				throw new WrongObjectTypeException(ComListStream.class, part);
+			}
+		}
+	}
+}
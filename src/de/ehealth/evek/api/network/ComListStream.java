@@ -0,0 +1,51 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * interface ComListStream
+ * <p>
+ * Parts of a list streamed in bounded chunks instead of one monolithic list.
+ * <p>
+ * The server sends the elements by IComServerSender.sendListStream(Iterator, int) as Chunks, followed by an End.
+ * The client receives them by IComClientReceiver.receiveListStream(Class) as Flow.Publisher,
+ * reading the next chunk not before it is demanded by the subscriber. The ComClientDemultiplexer collects the chunks
+ * and receives the list as a whole.
+ *
+ * @extends Serializable
+ *
+ * @permits Chunk
+ * @permits End
+ */
+public sealed interface ComListStream extends Serializable permits ComListStream.Chunk, ComListStream.End {
+
+	/**
+	 * Default number of elements of one chunk.
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 256;
+
+	/**
+	 * record Chunk
+	 * <p>
+	 * Chunk of the elements of a streamed list.
+	 *
+	 * @property Elements
+	 */
+	public static record Chunk(ArrayList<?> elements) implements ComListStream {
+
+		private static final long serialVersionUID = -4172563541327614931L;
+	}
+
+	/**
+	 * record End
+	 * <p>
+	 * End marker of a streamed list.
+	 *
+	 * @property Count of all sent elements
+	 */
+	public static record End(long count) implements ComListStream {
+
+		private static final long serialVersionUID = 6386183958730569834L;
+	}
+}
@@ -0,0 +1,248 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.type.Reference;
+
+/**
+ * ComReferenceResolver
+ * <p>
+ * Client sided resolver of references, batching the references requested during one tick.
+ * <p>
+ * The references resolved by resolve(Class, Reference) are collected and deduplicated per entity type,
+ * until the tick ends: when dispatch() is called or the tick duration has passed since the first collected reference.
+ * Then the entities of every type are requested by one GetListByIDList-Command.
+ * With an entity cache, cached entities are resolved without request and the requested entities are cached.
+ * <p>
+ * The futures are completed on the reader thread of the ComAsyncClient, so dependent stages shall not block.
+ */
+public final class ComReferenceResolver {
+
+	private static final Map<Class<?>, Bulk<?>> BULKS = new HashMap<>();
+
+	static {
+		bulk(Address.class, Address.GetListByIDList::new, Address::id);
+		bulk(Insurance.class, Insurance.GetListByIDList::new, Insurance::id);
+		bulk(InsuranceData.class, InsuranceData.GetListByIDList::new, InsuranceData::id);
+		bulk(Patient.class, Patient.GetListByIDList::new, Patient::insuranceNumber);
+		bulk(ServiceProvider.class, ServiceProvider.GetListByIDList::new, ServiceProvider::id);
+		bulk(TransportDetails.class, TransportDetails.GetListByIDList::new, TransportDetails::id);
+		bulk(TransportDocument.class, TransportDocument.GetListByIDList::new, TransportDocument::id);
+		bulk(User.class, User.GetListByIDList::new, User::id);
+	}
+
+	private final ComAsyncClient client;
+
+	private final ComEntityCache cache;
+
+	private final Executor tickExecutor;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private Map<Class<?>, Map<String, CompletableFuture<Object>>> pending = new LinkedHashMap<>();
+
+	private boolean scheduled = false;
+
+	/**
+	 * ComReferenceResolver
+	 * <p>
+	 * Client sided resolver of references, batching the references requested during one tick.
+	 * <p>
+	 * Constructor requiring the client to request the entities by, the optional entity cache and the duration of a tick.
+	 *
+	 * @param client - the client to request the entities by
+	 * @param cache - the entity cache or null, to request every entity
+	 * @param tick - the time after the first collected reference, the collected references are requested
+	 */
+	public ComReferenceResolver(ComAsyncClient client, ComEntityCache cache, Duration tick) {
+		if(client == null || tick == null || tick.isNegative())
+			throw new IllegalArgumentException("Client and a not negative tick shall be provided!");
+		this.client = client;
+		this.cache = cache;
+		this.tickExecutor = CompletableFuture.delayedExecutor(tick.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * method resolve
+	 * <p>
+	 * Method to resolve the given reference, requested with the other references of the current tick.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param reference - the reference to resolve
+	 *
+	 * @return CompletableFuture - the referenced entity or null, if it has not been found by the server
+	 */
+	public <T> CompletableFuture<T> resolve(Class<T> type, Reference<T> reference) {
+		if(reference == null || reference.id() == null)
+			return CompletableFuture.completedFuture(null);
+		return resolve(type, reference.id());
+	}
+
+	/**
+	 * method resolve
+	 * <p>
+	 * Method to resolve the entity of the given id, requested with the other references of the current tick.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param id - the id of the entity
+	 *
+	 * @return CompletableFuture - the entity or null, if it has not been found by the server
+	 */
+	public <T> CompletableFuture<T> resolve(Class<T> type, Id<T> id) {
+		if(!BULKS.containsKey(type))
+			throw new IllegalArgumentException(String.format("Type %s is no entity!", type));
+		if(id == null)
+			return CompletableFuture.completedFuture(null);
+		if(cache != null) {
+			T cached = cache.get(type, id);
+			if(cached != null)
+				return CompletableFuture.completedFuture(cached);
+		}
+		CompletableFuture<Object> future;
+		lock.lock();
+		try {
+			future = pending.computeIfAbsent(type, key -> new LinkedHashMap<>())
+					.computeIfAbsent(id.value(), key -> new CompletableFuture<>());
+			if(!scheduled) {
+				scheduled = true;
+				tickExecutor.execute(this::dispatch);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return future.thenApply(type::cast);
+	}
+
+	/**
+	 * method resolveAll
+	 * <p>
+	 * Method to resolve the given references, requested with the other references of the current tick.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param references - the references to resolve
+	 *
+	 * @return CompletableFuture - the referenced entities in the order of the references, null for entities not found
+	 */
+	public <T> CompletableFuture<List<T>> resolveAll(Class<T> type, List<Reference<T>> references) {
+		List<CompletableFuture<T>> futures = new ArrayList<>(references.size());
+		for(Reference<T> reference : references)
+			futures.add(resolve(type, reference));
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			List<T> entities = new ArrayList<>(futures.size());
+			for(CompletableFuture<T> future : futures)
+				entities.add(future.join());
+			return entities;
+		});
+	}
+
+	/**
+	 * method dispatch
+	 * <p>
+	 * Method to end the current tick, requesting the collected references by one command per entity type.
+	 */
+	public void dispatch() {
+		Map<Class<?>, Map<String, CompletableFuture<Object>>> batch;
+		lock.lock();
+		try {
+			if(pending.isEmpty()) {
+				scheduled = false;
+				return;
+			}
+			batch = pending;
+			pending = new LinkedHashMap<>();
+			scheduled = false;
+		} finally {
+			lock.unlock();
+		}
+		for(Map.Entry<Class<?>, Map<String, CompletableFuture<Object>>> entry : batch.entrySet())
+			request(BULKS.get(entry.getKey()), entry.getValue());
+	}
+
+	/**
+	 * private method request
+	 * <p>
+	 * Method to request the entities of one type by one GetListByIDList-Command, completing their futures.
+	 *
+	 * @param <T> - the entity type
+	 * @param bulk - the bulk command of the entity type
+	 * @param futures - the futures of the requested entities by their id
+	 */
+	private <T> void request(Bulk<T> bulk, Map<String, CompletableFuture<Object>> futures) {
+		List<Id<T>> ids = new ArrayList<>(futures.size());
+		for(String id : futures.keySet())
+			ids.add(new Id<>(id));
+		long stamp = cache == null ? -1 : cache.stamp();
+		client.requestList(bulk.command().apply(ids), bulk.type()).whenComplete((entities, e) -> {
+			if(e != null) {
+				for(CompletableFuture<Object> future : futures.values())
+					future.completeExceptionally(e);
+				return;
+			}
+			for(T entity : entities) {
+				if(entity == null)
+					continue;
+				Id<T> id = bulk.id().apply(entity);
+				if(cache != null)
+					cache.put(bulk.type(), id, entity, stamp);
+				CompletableFuture<Object> future = futures.get(id.value());
+				if(future != null)
+					future.complete(entity);
+			}
+			for(CompletableFuture<Object> future : futures.values())
+				future.complete(null);
+		});
+	}
+
+	/**
+	 * private method bulk
+	 * <p>
+	 * Method to register the bulk command of an entity type.
+	 *
+	 * @param <T> - the entity type
+	 * @param type - the entity type
+	 * @param command - the constructor of the GetListByIDList-Command
+	 * @param id - the accessor of the id of the entities
+	 */
+	private static <T> void bulk(Class<T> type, Function<List<Id<T>>, ? extends Serializable> command,
+			Function<T, Id<T>> id) {
+		BULKS.put(type, new Bulk<>(type, command, id));
+	}
+
+	/**
+	 * record Bulk
+	 * <p>
+	 * GetListByIDList-Command of an entity type.
+	 *
+	 * @property Type
+	 * @property Command, created from the list of ids
+	 * @property Id accessor of the entities
+	 */
+	private static record Bulk<T>(
+			Class<T> type,
+			Function<List<Id<T>>, ? extends Serializable> command,
+			Function<T, Id<T>> id) {
+	}
+}
@@ -0,0 +1,101 @@
+package de.ehealth.evek.api.network;
+
+/**
+ * record ComResetPolicy
+ * <p>
+ * Policy for resetting the ObjectOutputStream of a connection.
+ * <p>
+ * The ObjectOutputStream and the ObjectInputStream of the opposit side keep every written object reachable
+ * in their handle tables, until the stream is reset. The stream is reset after a written object,
+ * when the objects or bytes written since the last reset reach their interval or when a list has been written,
+ * whichever comes first. An interval of 0 disables the respective condition.
+ *
+ * @property Object interval
+ * @property Byte interval
+ * @property After lists
+ */
+public record ComResetPolicy(
+		int objectInterval,
+		long byteInterval,
+		boolean afterLists) {
+
+	/**
+	 * Policy never resetting the stream, as the ObjectOutputStream does by itself.
+	 */
+	public static final ComResetPolicy NEVER = new ComResetPolicy(0, 0, false);
+
+	/**
+	 * Policy used by default, resetting the stream every 1024 objects, every MiB and after every list.
+	 */
+	public static final ComResetPolicy DEFAULT = new ComResetPolicy(1024, 1024 * 1024, true);
+
+	/**
+	 * ComResetPolicy
+	 * <p>
+	 * Policy for resetting the ObjectOutputStream of a connection.
+	 * <p>
+	 * Constructor requiring the intervals and if the stream shall be reset after every list.
+	 *
+	 * @param objectInterval - the number of objects to reset the stream after, 0 to ignore the number of objects
+	 * @param byteInterval - the number of bytes to reset the stream after, 0 to ignore the number of bytes
+	 * @param afterLists - if the stream shall be reset after every list
+	 */
+	public ComResetPolicy {
+		if(objectInterval < 0 || byteInterval < 0)
+			throw new IllegalArgumentException("Reset intervals shall not be negative!");
+	}
+
+	/**
+	 * method everyObjects
+	 * <p>
+	 * Method to get a policy resetting the stream every given number of objects.
+	 *
+	 * @param objectInterval - the number of objects to reset the stream after
+	 *
+	 * @return ComResetPolicy - the policy
+	 */
+	public static ComResetPolicy everyObjects(int objectInterval) {
+		return new ComResetPolicy(objectInterval, 0, false);
+	}
+
+	/**
+	 * method everyBytes
+	 * <p>
+	 * Method to get a policy resetting the stream every given number of bytes.
+	 *
+	 * @param byteInterval - the number of bytes to reset the stream after
+	 *
+	 * @return ComResetPolicy - the policy
+	 */
+	public static ComResetPolicy everyBytes(long byteInterval) {
+		return new ComResetPolicy(0, byteInterval, false);
+	}
+
+	/**
+	 * method afterEveryList
+	 * <p>
+	 * Method to get a policy resetting the stream after every list.
+	 *
+	 * @return ComResetPolicy - the policy
+	 */
+	public static ComResetPolicy afterEveryList() {
+		return new ComResetPolicy(0, 0, true);
+	}
+
+	/**
+	 * method requiresReset
+	 * <p>
+	 * Method to get if the stream has to be reset after the written object.
+	 *
+	 * @param objectsSinceReset - the number of objects written since the last reset
+	 * @param bytesSinceReset - the number of bytes written since the last reset
+	 * @param wasList - if the written object has been a list
+	 *
+	 * @return boolean - true, if the stream has to be reset
+	 */
+	boolean requiresReset(long objectsSinceReset, long bytesSinceReset, boolean wasList) {
+		return (afterLists && wasList)
+				|| (objectInterval > 0 && objectsSinceReset >= objectInterval)
+				|| (byteInterval > 0 && bytesSinceReset >= byteInterval);
+	}
+}
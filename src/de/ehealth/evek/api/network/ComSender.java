@@ -1,9 +1,21 @@
 package de.ehealth.evek.api.network;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import de.ehealth.evek.api.exception.EncryptionException;
 import de.ehealth.evek.api.exception.IllegalProcessException;
@@ -15,6 +27,18 @@ import de.ehealth.evek.api.util.Log;
  * Standard implementation of IComSender.
  * <p>
  * For Output of e-VeK objects.
+ * <p>
+ * With the frame transport, every object is sent as length-prefixed frame instead of over one ObjectOutputStream,
+ * as required by the ComChannelServer.
+ * <p>
+ * The ObjectOutputStream is reset by the ComResetPolicy of the sender, so the handle tables of both sides
+ * do not keep every object ever sent reachable.
+ * <p>
+ * Sending is thread-safe. By default every object is written and flushed by the sending thread,
+ * guarded by a lock. Without flushing per message by the ComTransportOptions, only handshake objects
+ * are flushed directly, all other objects when the buffer is full or by flush().
+ * With the send queue in usage, the objects are queued without locking
+ * and written by a single writer thread, which flushes the output once per batch of queued objects.
  * 
  * @implements IComSender
  */
@@ -24,6 +48,38 @@ public class ComSender implements IComSender {
 	
 	protected ObjectOutputStream objSender;
 	
+	protected DataOutputStream frameSender;
+	
+	private final Socket socket;
+	
+	private final CountingOutputStream output;
+	
+	private final boolean flushPerMessage;
+	
+	private final ReentrantLock writeLock = new ReentrantLock();
+	
+	private final ConcurrentLinkedQueue<Pending> sendQueue = new ConcurrentLinkedQueue<>();
+	
+	private volatile Thread writer;
+	
+	private volatile long maxFlushDelay = 0;
+	
+	private volatile IOException queueFailure;
+	
+	private volatile ComResetPolicy resetPolicy = ComResetPolicy.DEFAULT;
+	
+	private volatile long objectsWritten = 0;
+	
+	private volatile long resets = 0;
+	
+	private volatile long objectsAtReset = 0;
+	
+	private volatile long bytesAtReset = 0;
+	
+	static {
+		ComBinaryCodec.install();
+	}
+	
 	/**
 	 * ComSender
 	 * <p>
@@ -35,18 +91,391 @@ public class ComSender implements IComSender {
 	 * @throws IOException - Exception thrown, when ObjectOutputStream cannot be created
 	 */
 	protected ComSender(Socket socket) throws IOException {
-		this.objSender = new ObjectOutputStream(socket.getOutputStream());
+		this(socket, false);
+	}
+	
+	/**
+	 * ComSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream and if the frame transport shall be used.
+	 * 
+	 * @param server - Socket with the server connection
+	 * @param frameTransport - if objects shall be sent as length-prefixed frames
+	 * 
+	 * @throws IOException - Exception thrown, when the output stream cannot be created
+	 */
+	protected ComSender(Socket socket, boolean frameTransport) throws IOException {
+		this(socket, frameTransport, ComTransportOptions.DEFAULT, false);
+	}
+	
+	/**
+	 * ComSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream, if the frame transport shall be used and the transport options,
+	 * setting the socket options of the socket.
+	 * 
+	 * @param socket - Socket of the connection
+	 * @param frameTransport - if objects shall be sent as length-prefixed frames
+	 * @param options - the transport options of the connection
+	 * 
+	 * @throws IOException - Exception thrown, when the output stream cannot be created or the socket options cannot be set
+	 */
+	protected ComSender(Socket socket, boolean frameTransport, ComTransportOptions options) throws IOException {
+		this(socket, frameTransport, options, true);
+	}
+	
+	/**
+	 * private ComSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream, if the frame transport shall be used, the transport options
+	 * and if the socket options shall be set, as the socket options of the other constructors are kept.
+	 * 
+	 * @param socket - Socket of the connection
+	 * @param frameTransport - if objects shall be sent as length-prefixed frames
+	 * @param options - the transport options of the connection
+	 * @param applySocketOptions - if the socket options shall be set
+	 * 
+	 * @throws IOException - Exception thrown, when the output stream cannot be created or the socket options cannot be set
+	 */
+	private ComSender(Socket socket, boolean frameTransport, ComTransportOptions options, 
+			boolean applySocketOptions) throws IOException {
+		if(options == null)
+			throw new IllegalArgumentException("Transport options shall not be null!");
+		if(applySocketOptions)
+			options.applyTo(socket);
+		this.socket = socket;
+		this.flushPerMessage = options.flushPerMessage();
+		this.output = new CountingOutputStream(new BufferedOutputStream(socket.getOutputStream(), options.outputBufferSize()));
+		if(frameTransport)
+			this.frameSender = new DataOutputStream(output);
+		else {
+			this.objSender = new ObjectOutputStream(output);
+			this.objSender.flush();
+		}
+	}
+	
+	/**
+	 * method setResetPolicy
+	 * <p>
+	 * Method to set the policy, when the ObjectOutputStream of the connection is reset.
+	 * Connections using the frame transport have no handle table and are never reset.
+	 * 
+	 * @param resetPolicy - the reset policy, ComResetPolicy.DEFAULT by default
+	 */
+	public void setResetPolicy(ComResetPolicy resetPolicy) {
+		if(resetPolicy == null)
+			throw new IllegalArgumentException("Reset policy shall not be null!");
+		this.resetPolicy = resetPolicy;
+	}
+	
+	/**
+	 * method getResetPolicy
+	 * <p>
+	 * Method to get the policy, when the ObjectOutputStream of the connection is reset.
+	 * 
+	 * @return ComResetPolicy - the reset policy
+	 */
+	public ComResetPolicy getResetPolicy() {
+		return resetPolicy;
+	}
+	
+	/**
+	 * method getStreamMetrics
+	 * <p>
+	 * Method to get the metrics of the output of the connection.
+	 * 
+	 * @return ComStreamMetrics - snapshot of the metrics
+	 */
+	public ComStreamMetrics getStreamMetrics() {
+		long objects = objectsWritten;
+		long bytes = output.count;
+		return new ComStreamMetrics(objects, bytes, resets, objects - objectsAtReset, bytes - bytesAtReset);
+	}
+
+	/**
+	 * method useSendQueue
+	 * <p>
+	 * Method to send objects by the send queue of the connection, drained by a single writer thread.
+	 * <p>
+	 * Sending threads only queue their objects, the writer thread writes all queued objects and flushes the output,
+	 * when the queue has been drained. Writing failures are logged and thrown on the next send or flush.
+	 * 
+	 * @param maxFlushDelay - the maximum time written objects are kept unflushed, 
+	 * 		when the queue is not drained in between, Duration.ZERO to flush only on drained queue
+	 */
+	public void useSendQueue(Duration maxFlushDelay) {
+		if(maxFlushDelay == null || maxFlushDelay.isNegative())
+			throw new IllegalArgumentException("Maximum flush delay shall not be null or negative!");
+		writeLock.lock();
+		try {
+			this.maxFlushDelay = maxFlushDelay.toNanos();
+			if(writer == null)
+				writer = Thread.ofVirtual().name("ComSender-writer").start(this::drainSendQueue);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * method stopSendQueue
+	 * <p>
+	 * Method to stop the send queue, writing the queued objects and sending the following objects directly.
+	 * 
+	 * @throws IOException - thrown when writing the queued objects failed
+	 */
+	public void stopSendQueue() throws IOException {
+		Thread stopped;
+		writeLock.lock();
+		try {
+			stopped = writer;
+			writer = null;
+		} finally {
+			writeLock.unlock();
+		}
+		if(stopped == null)
+			return;
+		LockSupport.unpark(stopped);
+		try {
+			stopped.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		if(queueFailure != null)
+			throw queueFailure;
+	}
+	
+	/**
+	 * method usesSendQueue
+	 * <p>
+	 * Method to get if objects are sent by the send queue of the connection.
+	 * 
+	 * @return boolean - true, if the send queue is in usage
+	 */
+	public boolean usesSendQueue() {
+		return writer != null;
+	}
+	
+	/**
+	 * method flush
+	 * <p>
+	 * Method to wait until all objects queued before have been written and flushed.
+	 * Without the send queue in usage, the buffered output is flushed, if not flushed per message already.
+	 * 
+	 * @throws IOException - thrown when writing the queued objects failed
+	 */
+	public void flush() throws IOException {
+		Thread writer = this.writer;
+		if(writer == null) {
+			writeLock.lock();
+			try {
+				flushOutput();
+			} finally {
+				writeLock.unlock();
+			}
+			return;
+		}
+		CompletableFuture<Void> flushed = new CompletableFuture<>();
+		enqueue(writer, new Pending(null, false, null, flushed));
+		try {
+			flushed.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * method setEncryption
+	 * <p>
+	 * Method called by the ComEncryption of a server connection, when encryption has been initialized.
+	 * 
+	 * @param encryption - the ComEncryption used to encrypt sent objects
+	 */
+	void setEncryption(ComEncryption encryption) {
+		this.encryption = encryption;
 	}
 
 	@Override
 	public void sendAsObject(Serializable object) throws IOException {
+		if(ComBatch.collect(object))
+			return;
+		if(object instanceof Throwable)
+			object = ComError.encode((Throwable) object);
+		boolean isList = object instanceof List<?> || object instanceof ComListStream;
+		object = ComEnvelope.wrap(object);
+		ComEncryption encryption = this.encryption;
+		if(encryption != null && ComEncryption.isHandshake(object))
+			encryption = null;
+		Thread writer = this.writer;
+		if(writer != null) {
+			enqueue(writer, new Pending(object, isList, encryption, null));
+			return;
+		}
+		writeLock.lock();
+		try {
+			write(object, isList, encryption);
+			if(flushPerMessage || ComEncryption.isHandshake(object))
+				flushOutput();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * private method enqueue
+	 * <p>
+	 * Method to queue the given pending object for the writer thread.
+	 * 
+	 * @param writer - the writer thread to wake up
+	 * @param pending - the pending object
+	 * 
+	 * @throws IOException - thrown when writing previously queued objects failed
+	 */
+	private void enqueue(Thread writer, Pending pending) throws IOException {
+		if(queueFailure != null)
+			throw new IOException("Send queue failed!", queueFailure);
+		sendQueue.offer(pending);
+		if(this.writer == writer) {
+			LockSupport.unpark(writer);
+			return;
+		}
+		writeLock.lock();
+		try {
+			writeQueued();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * private method writeQueued
+	 * <p>
+	 * Method to write the objects left in the queue by the stopped writer thread. Has to be called holding the write lock.
+	 * 
+	 * @throws IOException - thrown when writing the queued objects failed
+	 */
+	private void writeQueued() throws IOException {
+		Pending pending;
+		boolean unflushed = false;
+		while((pending = sendQueue.poll()) != null) {
+			if(pending.flushed() == null) {
+				write(pending.object(), pending.isList(), pending.encryption());
+				unflushed = true;
+				continue;
+			}
+			if(unflushed)
+				flushOutput();
+			unflushed = false;
+			pending.flushed().complete(null);
+		}
+		if(unflushed)
+			flushOutput();
+	}
+	
+	/**
+	 * private method drainSendQueue
+	 * <p>
+	 * Loop of the writer thread, writing the queued objects and flushing the output, when the queue is drained
+	 * or the maximum flush delay has been reached.
+	 */
+	private void drainSendQueue() {
+		long unflushedSince = 0;
+		boolean unflushed = false;
+		writeLock.lock();
+		try {
+			while(true) {
+				Pending pending = sendQueue.poll();
+				if(pending == null) {
+					if(unflushed) {
+						flushOutput();
+						unflushed = false;
+					}
+					if(writer != Thread.currentThread() && sendQueue.isEmpty())
+						return;
+					if(socket.isClosed())
+						throw new IOException("Socket closed!");
+					if(!sendQueue.isEmpty())
+						continue;
+					writeLock.unlock();
+					try {
+						LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+					} finally {
+						writeLock.lock();
+					}
+					continue;
+				}
+				if(pending.flushed() != null) {
+					if(unflushed)
+						flushOutput();
+					unflushed = false;
+					pending.flushed().complete(null);
+					continue;
+				}
+				write(pending.object(), pending.isList(), pending.encryption());
+				if(!unflushed) {
+					unflushed = true;
+					unflushedSince = System.nanoTime();
+				}
+				if(maxFlushDelay > 0 && System.nanoTime() - unflushedSince >= maxFlushDelay) {
+					flushOutput();
+					unflushed = false;
+				}
+			}
+		} catch(IOException e) {
+			queueFailure = e;
+			Pending pending;
+			while((pending = sendQueue.poll()) != null)
+				if(pending.flushed() != null)
+					pending.flushed().completeExceptionally(e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * private method write
+	 * <p>
+	 * Method to write the given object to the output without flushing it, resetting the ObjectOutputStream
+	 * by the ComResetPolicy. Has to be called holding the write lock.
+	 * 
+	 * @param object - the object to write
+	 * @param isList - if the object is a list, as relevant for the ComResetPolicy
+	 * @param encryption - the encryption to encrypt the object with or null, if the object is sent plain
+	 * 
+	 * @throws IOException - thrown when encryption or writing of the object fails
+	 */
+	private void write(Serializable object, boolean isList, ComEncryption encryption) throws IOException {
 		try {
-			if(encryption == null || object instanceof ComEncryptionKey) {
-				objSender.writeObject(object);
+			if(encryption != null && encryption.usesFraming()) {
+				if(frameSender != null)
+					encryption.writeFrame(frameSender, object);
+				else
+					encryption.writeFrame(objSender, object);
+				objectsWritten++;
 				return;
 			}
-			ComEncryptedObject sealedObject = encryption.encryptObject(object);
-			objSender.writeObject(sealedObject);
+			Serializable sentObject = encryption == null ? object : encryption.encryptObject(object);
+			if(frameSender != null) {
+				ComFrameCodec.writePlainFrame(frameSender, sentObject);
+				objectsWritten++;
+				return;
+			}
+			objSender.writeObject(sentObject);
+			objectsWritten++;
+			if(resetPolicy.requiresReset(objectsWritten - objectsAtReset, output.count - bytesAtReset, isList)) {
+				objSender.reset();
+				resets++;
+				objectsAtReset = objectsWritten;
+				bytesAtReset = output.count;
+			}
 		}catch(IOException e){
 			Log.sendException(e);
 			throw e;
@@ -54,17 +483,101 @@ public class ComSender implements IComSender {
 			Log.sendException(e);
 			throw new IOException(e);
 		}
-		
+	}
+	
+	/**
+	 * private method flushOutput
+	 * <p>
+	 * Method to flush the output of the connection. Has to be called holding the write lock.
+	 * 
+	 * @throws IOException - thrown when flushing fails
+	 */
+	private void flushOutput() throws IOException {
+		try {
+			if(frameSender != null)
+				frameSender.flush();
+			else
+				objSender.flush();
+		}catch(IOException e){
+			Log.sendException(e);
+			throw e;
+		}
 	}
 
 	@Override
 	public ComEncryption useEncryption(@SuppressWarnings("exports") IComReceiver receiver) throws EncryptionException {
+		return useEncryption(receiver, ComEncryptionKey.KeyType.RSA);
+	}
+	
+	@Override
+	public ComEncryption useEncryption(@SuppressWarnings("exports") IComReceiver receiver, 
+			ComEncryptionKey.KeyType keyType) throws EncryptionException {
 		try {
 			this.encryption = new ComEncryption(receiver, this);
-			this.encryption.useEncryption();
+			this.encryption.useEncryption(keyType);
 			return encryption;
 		}catch(IllegalProcessException e) {
 			throw new EncryptionException(e);
 		}
 	}
+	
+	@Override
+	public ComEncryption resumeEncryption(@SuppressWarnings("exports") IComReceiver receiver, 
+			ComSessionTicket ticket) throws EncryptionException {
+		try {
+			ComEncryption encryption = new ComEncryption(receiver, this);
+			this.encryption = encryption;
+			if(encryption.resumeSession(ticket))
+				return encryption;
+			this.encryption = null;
+			return null;
+		}catch(IllegalProcessException e) {
+			throw new EncryptionException(e);
+		}
+	}
+	
+	/**
+	 * record Pending
+	 * <p>
+	 * Object queued for the writer thread or a flush marker.
+	 * 
+	 * @property Object to write or null for a flush marker
+	 * @property If the object is a list
+	 * @property Encryption to encrypt the object with or null
+	 * @property Future completed when flushed or null for an object
+	 */
+	private static record Pending(
+			Serializable object, 
+			boolean isList, 
+			ComEncryption encryption,
+			CompletableFuture<Void> flushed) {
+	}
+	
+	/**
+	 * class CountingOutputStream
+	 * <p>
+	 * OutputStream counting the bytes written to the connection.
+	 * 
+	 * @extends FilterOutputStream
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		
+		private volatile long count = 0;
+		
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
 }
@@ -0,0 +1,296 @@
+package de.ehealth.evek.api.network;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.util.Log;
+
+/**
+ * ComServer
+ * <p>
+ * Blocking server runtime, handling every client connection on its own virtual thread.
+ * <p>
+ * Clients connect with ComClientSender and ComClientReceiver as usual. The runtime performs the handshake
+ * on a received ComEncryptionKey itself, allowing framing and the binary codec, so process(ComEncryptionKey) of the receiver is not called.
+ * All other objects are decrypted and passed to the IComServerReceiver of their connection,
+ * exceptions of the processing are sent back to the client.
+ * <p>
+ * The encryption path only uses locks instead of monitors around blocking operations,
+ * so waiting connections do not pin the carrier threads.
+ *
+ * @implements Closeable
+ */
+public class ComServer implements Closeable {
+
+	private static final int BACKLOG = 1024;
+
+	private final ServerSocket serverSocket;
+
+	private final Function<ComServerSender, IComServerReceiver> receiverFactory;
+
+	private final ComTransportOptions options;
+
+	private final ThreadFactory connectionThreads = Thread.ofVirtual().name("ComServer-Connection-", 0).factory();
+
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	private Thread acceptorThread;
+
+	private volatile boolean running = false;
+
+	static {
+		ComBinaryCodec.install();
+	}
+
+	/**
+	 * ComServer
+	 * <p>
+	 * Blocking server runtime, handling every client connection on its own virtual thread.
+	 * <p>
+	 * Constructor requiring the port to listen on and the factory for the receivers of the connections.
+	 *
+	 * @param port - the port to listen on, 0 for any free port
+	 * @param receiverFactory - the factory creating the IComServerReceiver of a new connection with its ComServerSender
+	 *
+	 * @throws IOException - thrown when the server socket can not be opened
+	 */
+	public ComServer(int port, Function<ComServerSender, IComServerReceiver> receiverFactory) throws IOException {
+		this(port, receiverFactory, ComTransportOptions.DEFAULT);
+	}
+
+	/**
+	 * ComServer
+	 * <p>
+	 * Blocking server runtime, handling every client connection on its own virtual thread.
+	 * <p>
+	 * Constructor requiring the port to listen on, the factory for the receivers of the connections
+	 * and the transport options of the connections. Connections reaching the read timeout are closed.
+	 *
+	 * @param port - the port to listen on, 0 for any free port
+	 * @param receiverFactory - the factory creating the IComServerReceiver of a new connection with its ComServerSender
+	 * @param options - the transport options of the connections
+	 *
+	 * @throws IOException - thrown when the server socket can not be opened
+	 */
+	public ComServer(int port, Function<ComServerSender, IComServerReceiver> receiverFactory,
+			ComTransportOptions options) throws IOException {
+		if(receiverFactory == null)
+			throw new IllegalArgumentException("Receiver factory shall not be null!");
+		if(options == null)
+			throw new IllegalArgumentException("Transport options shall not be null!");
+		this.receiverFactory = receiverFactory;
+		this.options = options;
+		this.serverSocket = new ServerSocket(port, BACKLOG);
+	}
+
+	/**
+	 * method start
+	 * <p>
+	 * Method to start accepting and handling connections.
+	 */
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		acceptorThread = Thread.ofVirtual().name("ComServer-Acceptor").start(this::run);
+		Log.sendMessage(String.format("Server listening on port %d", getLocalPort()));
+	}
+
+	/**
+	 * method getLocalPort
+	 * <p>
+	 * Method to get the port the server is listening on.
+	 *
+	 * @return int - the port of the server
+	 */
+	public int getLocalPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * method getConnectionCount
+	 * <p>
+	 * Method to get the number of currently open connections.
+	 *
+	 * @return int - the number of open connections
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+		Thread acceptorThread;
+		synchronized(this) {
+			running = false;
+			acceptorThread = this.acceptorThread;
+		}
+		serverSocket.close();
+		for(Socket connection : connections)
+			closeQuietly(connection);
+		try {
+			if(acceptorThread != null && Thread.currentThread() != acceptorThread)
+				acceptorThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * private method run
+	 * <p>
+	 * Accept loop, starting a virtual thread for every accepted connection.
+	 */
+	private void run() {
+		while(running) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.add(socket);
+				connectionThreads.newThread(() -> handleConnection(socket)).start();
+			} catch (IOException e) {
+				if(running)
+					Log.sendException(e);
+			}
+		}
+	}
+
+	/**
+	 * private method handleConnection
+	 * <p>
+	 * Receive loop of one connection, run on its own virtual thread.
+	 *
+	 * @param socket - the socket of the connection
+	 */
+	private void handleConnection(Socket socket) {
+		connectionCount.incrementAndGet();
+		try {
+			ComServerSender sender = new ComServerSender(socket, options);
+			IComServerReceiver receiver = receiverFactory.apply(sender);
+			ObjectInputStream input = new ObjectInputStream(
+					new BufferedInputStream(socket.getInputStream(), options.inputBufferSize()));
+			while(running) {
+				ComEncryption encryption = sender.getEncryption();
+				Serializable object = encryption != null ? encryption.readObject(input) : readObject(input);
+				if(object instanceof ComEncryptionKey) {
+					handshake(receiver, sender, (ComEncryptionKey) object);
+					continue;
+				}
+				if(encryption != null)
+					object = encryption.getObject(object);
+				handleObject(receiver, sender, object);
+			}
+		} catch (EOFException | SocketException e) {
+			// connection closed by the client or on shutdown
+		} catch (SocketTimeoutException e) {
+			Log.sendMessage(String.format("Connection %s closed by read timeout", socket.getRemoteSocketAddress()));
+		} catch (Exception e) {
+			Log.sendException(e);
+		} finally {
+			connections.remove(socket);
+			closeQuietly(socket);
+			connectionCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * private method handshake
+	 * <p>
+	 * Method to initialize encryption of the connection with the received ComEncryptionKey of the client.
+	 *
+	 * @param receiver - the receiver of the connection
+	 * @param sender - the sender of the connection, the encryption gets attached to
+	 * @param key - the received ComEncryptionKey
+	 *
+	 * @throws IOException - thrown when initializing of the encryption fails
+	 */
+	private static void handshake(IComServerReceiver receiver, ComServerSender sender, ComEncryptionKey key)
+			throws IOException {
+		try {
+			ComEncryption encryption = new ComEncryption(receiver, sender);
+			encryption.allowFraming(true);
+			encryption.allowBinaryCodec(true);
+			encryption.useEncryption(key);
+		} catch (IllegalProcessException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * private method handleObject
+	 * <p>
+	 * Method to pass the received object to the receiver and send exceptions of the processing back to the client.
+	 *
+	 * @param receiver - the receiver of the connection
+	 * @param sender - the sender of the connection
+	 * @param object - the received, decrypted object
+	 *
+	 * @throws IOException - thrown when decryption of the object or sending an exception fails
+	 */
+	private static void handleObject(IComServerReceiver receiver, ComServerSender sender, Serializable object)
+			throws IOException {
+		try {
+			if(!receiver.receiveObject(object))
+				Log.sendMessage(String.format("	Object of Type %s could not be handled!", object.getClass()));
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			Log.sendException(e);
+			sender.send(e);
+		} finally {
+			ComEnvelope.clearCorrelation();
+		}
+	}
+
+	/**
+	 * private method readObject
+	 * <p>
+	 * Method to read the next object of a connection without encryption.
+	 *
+	 * @param input - the ObjectInputStream of the connection
+	 *
+	 * @return Serializable - the received object
+	 *
+	 * @throws IOException - thrown when reading the object fails
+	 */
+	private static Serializable readObject(ObjectInputStream input) throws IOException {
+		try {
+			Object object = input.readObject();
+			if(!(object instanceof Serializable))
+				throw new IOException(String.format("Object of Type %s is not serializable!", object.getClass()));
+			return (Serializable) object;
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * private method closeQuietly
+	 * <p>
+	 * Method to close the given socket, logging failures.
+	 *
+	 * @param socket - the socket to close
+	 */
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			Log.sendException(e);
+		}
+	}
+}
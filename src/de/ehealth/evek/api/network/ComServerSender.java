@@ -0,0 +1,119 @@
+package de.ehealth.evek.api.network;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+
+/**
+ * ComServerSender
+ * <p>
+ * Standard implementation of IComServerSender.
+ * <p>
+ * For Server sided Output of e-VeK objects.
+ * The encryption of the connection is set by ComEncryption, when the handshake has been finished.
+ *
+ * @extends ComSender
+ *
+ * @implements IComServerSender
+ */
+public class ComServerSender extends ComSender implements IComServerSender {
+
+	/**
+	 * ComServerSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream.
+	 *
+	 * @param client - Socket with the client connection
+	 *
+	 * @throws IOException - Exception thrown, when ObjectOutputStream cannot be created
+	 */
+	public ComServerSender(Socket client) throws IOException {
+		super(client);
+	}
+
+	/**
+	 * ComServerSender
+	 * <p>
+	 * Creating OutputStream for sending objects.
+	 * Constructor requiring Socket for its stream and the transport options, setting the socket options of the socket.
+	 *
+	 * @param client - Socket with the client connection
+	 * @param options - the transport options of the connection
+	 *
+	 * @throws IOException - Exception thrown, when ObjectOutputStream cannot be created or the socket options cannot be set
+	 */
+	public ComServerSender(Socket client, ComTransportOptions options) throws IOException {
+		super(client, false, options);
+	}
+
+	/**
+	 * method getEncryption
+	 * <p>
+	 * Method to get the encryption of the connection.
+	 *
+	 * @return ComEncryption - the ComEncryption of the connection or null, if encryption is not in usage
+	 */
+	public ComEncryption getEncryption() {
+		return encryption;
+	}
+
+	@Override
+	public void send(Address object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Insurance object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(InsuranceData object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Patient object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(ServiceProvider object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(TransportDetails object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(TransportDocument object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(User object) throws IOException {
+		sendAsObject(object);
+	}
+
+	@Override
+	public void send(Throwable e) throws IOException {
+		sendAsObject(e);
+	}
+
+	@Override
+	public void send(ArrayList<?> list) throws IOException {
+		sendAsObject(list);
+	}
+}
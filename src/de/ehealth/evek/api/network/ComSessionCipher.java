@@ -0,0 +1,390 @@
+package de.ehealth.evek.api.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import de.ehealth.evek.api.exception.EncryptionException;
+
+/**
+ * ComSessionCipher
+ * <p>
+ * Class used for the symmetrical AES-GCM encryption of a connection with a session key that is agreed once on the handshake.
+ * <p>
+ * Every message is encrypted with its own nonce, built from the sending side and a message counter,
+ * so a nonce is never used twice with the same session key.
+ * Encryption and decryption are guarded by separate locks instead of monitors, to not pin virtual threads.
+ */
+final class ComSessionCipher {
+
+	static final int KEY_SIZE = 256;
+
+	static final int NONCE_LENGTH = 12;
+
+	static final int TAG_LENGTH = 128;
+
+	private static final String ALGORITHM = "AES/GCM/NoPadding";
+
+	private static final String KDF_ALGORITHM = "HmacSHA256";
+
+	private static final byte[] KDF_SALT = "e-VeK session key".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] RESUMPTION_LABEL = "e-VeK resumption".getBytes(StandardCharsets.US_ASCII);
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static final int CLIENT_DIRECTION = 0x434C4E54;
+
+	private static final int SERVER_DIRECTION = 0x53525652;
+
+	private final SecretKey sessionKey;
+
+	private final Cipher encryptionCipher;
+
+	private final Cipher decryptionCipher;
+
+	private final int sendDirection;
+
+	private final int receiveDirection;
+
+	private final AtomicLong sendSequence = new AtomicLong();
+
+	private long lastReceivedSequence = -1;
+
+	private final ReentrantLock encryptionLock = new ReentrantLock();
+
+	private final ReentrantLock decryptionLock = new ReentrantLock();
+
+	/**
+	 * ComSessionCipher
+	 * <p>
+	 * Class used for the symmetrical AES-GCM encryption of a connection.
+	 * <p>
+	 * Constructor requiring the agreed session key and the side of the connection.
+	 *
+	 * @param sessionKey - the AES session key agreed on handshake
+	 * @param isServer - if the cipher is used on the server side of the connection
+	 *
+	 * @throws EncryptionException - thrown when the AES-GCM Cipher is not available
+	 */
+	ComSessionCipher(SecretKey sessionKey, boolean isServer) throws EncryptionException {
+		if(sessionKey == null)
+			throw new EncryptionException("Session key shall not be null!");
+		this.sessionKey = sessionKey;
+		this.sendDirection = isServer ? SERVER_DIRECTION : CLIENT_DIRECTION;
+		this.receiveDirection = isServer ? CLIENT_DIRECTION : SERVER_DIRECTION;
+		try {
+			this.encryptionCipher = Cipher.getInstance(ALGORITHM);
+			this.decryptionCipher = Cipher.getInstance(ALGORITHM);
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * ComSessionCipher
+	 * <p>
+	 * Class used for the symmetrical AES-GCM encryption of a connection.
+	 * <p>
+	 * Constructor requiring the encoded session key and the side of the connection.
+	 *
+	 * @param encodedSessionKey - the encoded AES session key agreed on handshake
+	 * @param isServer - if the cipher is used on the server side of the connection
+	 *
+	 * @throws EncryptionException - thrown when the key is not valid or the AES-GCM Cipher is not available
+	 */
+	ComSessionCipher(byte[] encodedSessionKey, boolean isServer) throws EncryptionException {
+		this(toSecretKey(encodedSessionKey), isServer);
+	}
+
+	/**
+	 * method generateKey
+	 * <p>
+	 * Method to generate a new random AES session key.
+	 *
+	 * @return SecretKey - the generated session key
+	 *
+	 * @throws NoSuchAlgorithmException - thrown when AES is not available
+	 */
+	static SecretKey generateKey() throws NoSuchAlgorithmException {
+		KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+		keyGen.init(KEY_SIZE);
+		return keyGen.generateKey();
+	}
+
+	/**
+	 * method agreeKey
+	 * <p>
+	 * Method to derive the AES session key by X25519 key agreement.
+	 * <p>
+	 * The shared secret is expanded with HKDF-SHA256, bound to the public keys of both sides.
+	 *
+	 * @param privateKey - the own ephemeral private key
+	 * @param clientKey - the public key of the client
+	 * @param serverKey - the public key of the server
+	 * @param isServer - if the key is agreed on the server side of the connection
+	 *
+	 * @return SecretKey - the derived session key
+	 *
+	 * @throws GeneralSecurityException - thrown when the key agreement fails
+	 */
+	static SecretKey agreeKey(PrivateKey privateKey, PublicKey clientKey, PublicKey serverKey, boolean isServer) 
+			throws GeneralSecurityException {
+		KeyAgreement agreement = KeyAgreement.getInstance(privateKey.getAlgorithm());
+		agreement.init(privateKey);
+		agreement.doPhase(isServer ? clientKey : serverKey, true);
+		return deriveKey(agreement.generateSecret(), clientKey.getEncoded(), serverKey.getEncoded());
+	}
+
+	/**
+	 * method deriveKey
+	 * <p>
+	 * Method to derive an AES session key from the given secret with HKDF-SHA256, bound to the given context.
+	 *
+	 * @param secret - the secret key material
+	 * @param context - the context the derived key is bound to, i.E. the public keys or nonces of both sides
+	 *
+	 * @return SecretKey - the derived session key
+	 *
+	 * @throws GeneralSecurityException - thrown when HmacSHA256 is not available
+	 */
+	static SecretKey deriveKey(byte[] secret, byte[]... context) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(KDF_ALGORITHM);
+		mac.init(new SecretKeySpec(KDF_SALT, KDF_ALGORITHM));
+		byte[] pseudoRandomKey = mac.doFinal(secret);
+		
+		mac.init(new SecretKeySpec(pseudoRandomKey, KDF_ALGORITHM));
+		for(byte[] info : context)
+			mac.update(info);
+		mac.update((byte) 1);
+		return new SecretKeySpec(mac.doFinal(), 0, KEY_SIZE / 8, "AES");
+	}
+
+	/**
+	 * method randomBytes
+	 * <p>
+	 * Method to get the given number of secure random bytes, i.E. as nonce.
+	 *
+	 * @param length - the number of bytes
+	 *
+	 * @return byte[] - the random bytes
+	 */
+	static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		RANDOM.nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * method getEncodedKey
+	 * <p>
+	 * Method to get the encoded session key, i.E. for wrapping it for the opposite connection side.
+	 *
+	 * @return byte[] - the encoded session key
+	 */
+	byte[] getEncodedKey() {
+		return sessionKey.getEncoded();
+	}
+
+	/**
+	 * method getResumptionSecret
+	 * <p>
+	 * Method to get the secret, derived from the session key, that the keys of resumed sessions are derived from.
+	 *
+	 * @return byte[] - the resumption secret
+	 *
+	 * @throws EncryptionException - thrown when the secret can not be derived
+	 */
+	byte[] getResumptionSecret() throws EncryptionException {
+		try {
+			return deriveKey(sessionKey.getEncoded(), RESUMPTION_LABEL).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * method nextSendSequence
+	 * <p>
+	 * Method to reserve the sequence number for the next message to send.
+	 *
+	 * @return long - the reserved sequence number
+	 */
+	long nextSendSequence() {
+		return sendSequence.getAndIncrement();
+	}
+
+	/**
+	 * method encrypt
+	 * <p>
+	 * Method to encrypt the given data as message with the given sequence number.
+	 *
+	 * @param sequence - the sequence number reserved by nextSendSequence()
+	 * @param data - the plain data to encrypt
+	 *
+	 * @return byte[] - the encrypted data including the authentication tag
+	 *
+	 * @throws EncryptionException - thrown when the encryption process fails
+	 */
+	byte[] encrypt(long sequence, byte[] data) throws EncryptionException {
+		encryptionLock.lock();
+		try {
+			encryptionCipher.init(Cipher.ENCRYPT_MODE, sessionKey, nonce(sendDirection, sequence));
+			return encryptionCipher.doFinal(data);
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		} finally {
+			encryptionLock.unlock();
+		}
+	}
+
+	/**
+	 * method decrypt
+	 * <p>
+	 * Method to decrypt the given message with the given sequence number.
+	 * <p>
+	 * Messages have to be received with increasing sequence numbers, replayed messages are rejected.
+	 *
+	 * @param sequence - the sequence number the message was sent with
+	 * @param data - the encrypted data including the authentication tag
+	 *
+	 * @return byte[] - the decrypted data
+	 *
+	 * @throws EncryptionException - thrown when the message was replayed or the decryption process fails
+	 */
+	byte[] decrypt(long sequence, byte[] data) throws EncryptionException {
+		decryptionLock.lock();
+		try {
+			initDecryption(sequence);
+			byte[] plain = decryptionCipher.doFinal(data);
+			lastReceivedSequence = sequence;
+			return plain;
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		} finally {
+			decryptionLock.unlock();
+		}
+	}
+	
+	/**
+	 * method encrypt
+	 * <p>
+	 * Method to encrypt the given data in place as message with the given sequence number.
+	 * <p>
+	 * The buffer has to provide TAG_LENGTH / 8 bytes of space behind the data for the authentication tag.
+	 *
+	 * @param sequence - the sequence number reserved by nextSendSequence()
+	 * @param buffer - the buffer holding the plain data, overwritten with the encrypted data
+	 * @param length - the length of the plain data
+	 *
+	 * @return int - the length of the encrypted data including the authentication tag
+	 *
+	 * @throws EncryptionException - thrown when the encryption process fails
+	 */
+	int encrypt(long sequence, byte[] buffer, int length) throws EncryptionException {
+		encryptionLock.lock();
+		try {
+			encryptionCipher.init(Cipher.ENCRYPT_MODE, sessionKey, nonce(sendDirection, sequence));
+			return encryptionCipher.doFinal(buffer, 0, length, buffer, 0);
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		} finally {
+			encryptionLock.unlock();
+		}
+	}
+	
+	/**
+	 * method decryptNext
+	 * <p>
+	 * Method to decrypt the given data in place as the message following the last received message.
+	 *
+	 * @param buffer - the buffer holding the encrypted data, overwritten with the decrypted data
+	 * @param length - the length of the encrypted data including the authentication tag
+	 *
+	 * @return int - the length of the decrypted data
+	 *
+	 * @throws EncryptionException - thrown when the decryption process fails
+	 */
+	int decryptNext(byte[] buffer, int length) throws EncryptionException {
+		decryptionLock.lock();
+		try {
+			long sequence = lastReceivedSequence + 1;
+			initDecryption(sequence);
+			int plainLength = decryptionCipher.doFinal(buffer, 0, length, buffer, 0);
+			lastReceivedSequence = sequence;
+			return plainLength;
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		} finally {
+			decryptionLock.unlock();
+		}
+	}
+	
+	/**
+	 * private method initDecryption
+	 * <p>
+	 * Method to initialize the decryption Cipher for the message with the given sequence number.
+	 *
+	 * @param sequence - the sequence number the message was sent with
+	 *
+	 * @throws EncryptionException - thrown when the message was replayed or the Cipher can not be initialized
+	 */
+	private void initDecryption(long sequence) throws EncryptionException {
+		if(sequence <= lastReceivedSequence)
+			throw new EncryptionException(String.format("Message %d has already been received!", sequence));
+		try {
+			decryptionCipher.init(Cipher.DECRYPT_MODE, sessionKey, nonce(receiveDirection, sequence));
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * private method nonce
+	 * <p>
+	 * Method to build the GCM parameters for the given direction and sequence number.
+	 *
+	 * @param direction - the sending side of the message
+	 * @param sequence - the sequence number of the message
+	 *
+	 * @return GCMParameterSpec - the GCM parameters with the unique nonce
+	 */
+	private static GCMParameterSpec nonce(int direction, long sequence) {
+		byte[] nonce = ByteBuffer.allocate(NONCE_LENGTH)
+				.putInt(direction)
+				.putLong(sequence)
+				.array();
+		return new GCMParameterSpec(TAG_LENGTH, nonce);
+	}
+
+	/**
+	 * private method toSecretKey
+	 * <p>
+	 * Method to get the AES key of the encoded session key.
+	 *
+	 * @param encodedSessionKey - the encoded session key
+	 *
+	 * @return SecretKey - the AES session key
+	 *
+	 * @throws EncryptionException - thrown when the key length is not valid
+	 */
+	private static SecretKey toSecretKey(byte[] encodedSessionKey) throws EncryptionException {
+		if(encodedSessionKey == null || encodedSessionKey.length != KEY_SIZE / 8)
+			throw new EncryptionException("Invalid session key length!");
+		return new SecretKeySpec(encodedSessionKey, "AES");
+	}
+}
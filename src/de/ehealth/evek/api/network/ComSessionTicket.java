@@ -0,0 +1,143 @@
+package de.ehealth.evek.api.network;
+
+import java.io.Serializable;
+
+/**
+ * ComSessionTicket
+ * <p>
+ * Class used for transmitting a session resumption ticket.
+ * <p>
+ * The ticket is issued by the server after a successful handshake and login. It is sealed with a key
+ * only known to the server and carries the session key material and the logged in user.
+ * A reconnecting client presents the ticket to get its encrypted, logged in session back in one round trip,
+ * without a new key exchange and without logging in again.
+ * <p>
+ * The client side ticket holds the resumption secret of the session alongside, 
+ * so it has to be stored as securely as a password. Only the sealed ticket is sent on Resume.
+ *
+ * @implements Serializable
+ */
+public class ComSessionTicket implements Serializable {
+
+	private static final long serialVersionUID = 4311290487161572519L;
+
+	private final byte[] sealedTicket;
+
+	private final long expiresAt;
+
+	private final byte[] resumptionSecret;
+
+	/**
+	 * ComSessionTicket
+	 * <p>
+	 * Class used for transmitting a session resumption ticket.
+	 * <p>
+	 * Constructor requiring the sealed ticket, its time of expiry and the resumption secret.
+	 *
+	 * @param sealedTicket - the ticket, sealed with the ticket key of the server
+	 * @param expiresAt - the time of expiry in milliseconds since epoch
+	 * @param resumptionSecret - the resumption secret of the session or null, when sent by the server
+	 */
+	ComSessionTicket(byte[] sealedTicket, long expiresAt, byte[] resumptionSecret) {
+		this.sealedTicket = sealedTicket.clone();
+		this.expiresAt = expiresAt;
+		this.resumptionSecret = resumptionSecret == null ? null : resumptionSecret.clone();
+	}
+
+	/**
+	 * method getExpiresAt
+	 * <p>
+	 * Method to get the time of expiry of the ticket.
+	 *
+	 * @return long - the time of expiry in milliseconds since epoch
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * method isExpired
+	 * <p>
+	 * Method to get if the ticket is expired and a full handshake is required.
+	 *
+	 * @return boolean - true, if the ticket is expired
+	 */
+	public boolean isExpired() {
+		return System.currentTimeMillis() >= expiresAt;
+	}
+
+	/**
+	 * method getSealedTicket
+	 * <p>
+	 * Method to get the sealed ticket.
+	 *
+	 * @return byte[] - the ticket, sealed with the ticket key of the server
+	 */
+	byte[] getSealedTicket() {
+		return sealedTicket.clone();
+	}
+
+	/**
+	 * method getResumptionSecret
+	 * <p>
+	 * Method to get the resumption secret the keys of resumed sessions are derived from.
+	 *
+	 * @return byte[] - the resumption secret or null, if the ticket has not been received by ComEncryption
+	 */
+	byte[] getResumptionSecret() {
+		return resumptionSecret == null ? null : resumptionSecret.clone();
+	}
+
+	/**
+	 * interface Handshake
+	 * <p>
+	 * Interface for the objects of the resumption handshake, which are transmitted unencrypted.
+	 *
+	 * @permits Resume
+	 * @permits Resumed
+	 */
+	public static sealed interface Handshake extends Serializable permits Resume, Resumed {
+	}
+
+	/**
+	 * record Request
+	 * <p>
+	 * Sent by a logged in client to request a session ticket from the server.
+	 */
+	public static record Request() implements Serializable {
+	}
+
+	/**
+	 * record Resume
+	 * <p>
+	 * Sent by a reconnecting client instead of its ComEncryptionKey to resume the session of the ticket.
+	 *
+	 * @property Sealed ticket
+	 * @property Client nonce
+	 * @property Requests framing
+	 * @property Requests binary codec
+	 */
+	public static record Resume(
+			byte[] sealedTicket,
+			byte[] clientNonce,
+			boolean requestsFraming,
+			boolean requestsBinaryCodec) implements Handshake {
+	}
+
+	/**
+	 * record Resumed
+	 * <p>
+	 * Sent by the server as reply on Resume.
+	 *
+	 * @property Accepted
+	 * @property Server nonce
+	 * @property Uses framing
+	 * @property Uses binary codec
+	 */
+	public static record Resumed(
+			boolean accepted,
+			byte[] serverNonce,
+			boolean usesFraming,
+			boolean usesBinaryCodec) implements Handshake {
+	}
+}
@@ -0,0 +1,148 @@
+package de.ehealth.evek.api.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.EncryptionException;
+import de.ehealth.evek.api.type.Reference;
+
+/**
+ * ComSessionTicketKey
+ * <p>
+ * Class used by the server for sealing and opening session tickets.
+ * <p>
+ * The key is held in memory only, so tickets become invalid when the server restarts.
+ * One instance is meant to be shared by all connections of the server.
+ */
+public final class ComSessionTicketKey {
+
+	private static final String ALGORITHM = "AES/GCM/NoPadding";
+
+	private final SecretKey ticketKey;
+
+	private final Duration lifetime;
+
+	/**
+	 * ComSessionTicketKey
+	 * <p>
+	 * Class used by the server for sealing and opening session tickets.
+	 * <p>
+	 * Constructor requiring the lifetime of the issued tickets.
+	 *
+	 * @param lifetime - the duration issued tickets are valid for
+	 *
+	 * @throws EncryptionException - thrown when the ticket key can not be generated
+	 */
+	public ComSessionTicketKey(Duration lifetime) throws EncryptionException {
+		if(lifetime == null || lifetime.isNegative() || lifetime.isZero())
+			throw new EncryptionException("Ticket lifetime has to be positive!");
+		this.lifetime = lifetime;
+		try {
+			this.ticketKey = ComSessionCipher.generateKey();
+		} catch (NoSuchAlgorithmException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * method seal
+	 * <p>
+	 * Method to seal a new ticket for the given session key material and user.
+	 *
+	 * @param sessionKey - the resumption secret of the session
+	 * @param user - the reference to the logged in user
+	 *
+	 * @return ComSessionTicket - the sealed ticket
+	 *
+	 * @throws EncryptionException - thrown when the ticket can not be sealed
+	 */
+	ComSessionTicket seal(byte[] sessionKey, Reference<User> user) throws EncryptionException {
+		long expiresAt = System.currentTimeMillis() + lifetime.toMillis();
+		try {
+			ByteArrayOutputStream plain = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(plain);
+			out.writeLong(expiresAt);
+			out.writeInt(sessionKey.length);
+			out.write(sessionKey);
+			out.writeUTF(user.id().value());
+			out.flush();
+
+			byte[] nonce = ComSessionCipher.randomBytes(ComSessionCipher.NONCE_LENGTH);
+			Cipher cipher = Cipher.getInstance(ALGORITHM);
+			cipher.init(Cipher.ENCRYPT_MODE, ticketKey, new GCMParameterSpec(ComSessionCipher.TAG_LENGTH, nonce));
+			byte[] encrypted = cipher.doFinal(plain.toByteArray());
+
+			return new ComSessionTicket(ByteBuffer.allocate(nonce.length + encrypted.length)
+					.put(nonce)
+					.put(encrypted)
+					.array(), expiresAt, null);
+		} catch (IOException | GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * method open
+	 * <p>
+	 * Method to open the given ticket and check it for validity.
+	 *
+	 * @param sealedTicket - the sealed ticket presented by the client
+	 *
+	 * @return Contents - the session key material and user of the ticket
+	 *
+	 * @throws EncryptionException - thrown when the ticket is forged, sealed with another key or expired
+	 */
+	Contents open(byte[] sealedTicket) throws EncryptionException {
+		if(sealedTicket == null)
+			throw new EncryptionException("Ticket shall not be null!");
+		if(sealedTicket.length <= ComSessionCipher.NONCE_LENGTH)
+			throw new EncryptionException("Invalid ticket length!");
+		try {
+			Cipher cipher = Cipher.getInstance(ALGORITHM);
+			cipher.init(Cipher.DECRYPT_MODE, ticketKey,
+					new GCMParameterSpec(ComSessionCipher.TAG_LENGTH, sealedTicket, 0, ComSessionCipher.NONCE_LENGTH));
+			byte[] plain = cipher.doFinal(sealedTicket, ComSessionCipher.NONCE_LENGTH,
+					sealedTicket.length - ComSessionCipher.NONCE_LENGTH);
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+			long expiresAt = in.readLong();
+			if(System.currentTimeMillis() >= expiresAt)
+				throw new EncryptionException("Ticket expired!");
+			int keyLength = in.readInt();
+			if(keyLength != ComSessionCipher.KEY_SIZE / 8)
+				throw new EncryptionException("Invalid session key length!");
+			byte[] sessionKey = new byte[keyLength];
+			in.readFully(sessionKey);
+			return new Contents(sessionKey, Reference.to(in.readUTF()));
+		} catch (EncryptionException e) {
+			throw e;
+		} catch (IOException | GeneralSecurityException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * record Contents
+	 * <p>
+	 * Contents of an opened session ticket.
+	 *
+	 * @property Session key
+	 * @property User
+	 */
+	static record Contents(
+			byte[] sessionKey,
+			Reference<User> user) {
+	}
+}
@@ -0,0 +1,23 @@
+package de.ehealth.evek.api.network;
+
+/**
+ * record ComStreamMetrics
+ * <p>
+ * Snapshot of the metrics of the ObjectOutputStream of a connection.
+ * <p>
+ * The objects and bytes written since the last reset are held in the handle tables of the stream
+ * and of the ObjectInputStream of the opposit side, until the next reset.
+ *
+ * @property Objects written
+ * @property Bytes written
+ * @property Resets
+ * @property Objects since reset
+ * @property Bytes since reset
+ */
+public record ComStreamMetrics(
+		long objectsWritten,
+		long bytesWritten,
+		long resets,
+		long objectsSinceReset,
+		long bytesSinceReset) {
+}
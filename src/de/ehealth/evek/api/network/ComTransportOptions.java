@@ -0,0 +1,168 @@
+package de.ehealth.evek.api.network;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * record ComTransportOptions
+ * <p>
+ * Options of the socket transport of a connection, as accepted by the constructors of the senders and receivers
+ * and by the ComServer.
+ * <p>
+ * The streams of the connection are buffered by the given buffer sizes, so serializing an object does not cause
+ * a system call for every block of the ObjectOutputStream. With flushing per message, every sent object is flushed,
+ * otherwise the output is flushed when its buffer is full or by ComSender.flush().
+ * Socket buffer sizes of 0 keep the defaults of the system, a read timeout of 0 waits infinitely.
+ *
+ * @property Output buffer size
+ * @property Input buffer size
+ * @property Flush per message
+ * @property TCP no delay, disabling Nagle's algorithm
+ * @property Read timeout in milliseconds
+ * @property Keep alive
+ * @property Socket send buffer size
+ * @property Socket receive buffer size
+ */
+public record ComTransportOptions(
+		int outputBufferSize,
+		int inputBufferSize,
+		boolean flushPerMessage,
+		boolean tcpNoDelay,
+		int readTimeout,
+		boolean keepAlive,
+		int socketSendBufferSize,
+		int socketReceiveBufferSize) {
+
+	/**
+	 * Options used by default, buffering 8 KiB per direction, flushing every message and disabling Nagle's algorithm.
+	 */
+	public static final ComTransportOptions DEFAULT = new ComTransportOptions(8192, 8192, true, true, 0, false, 0, 0);
+
+	/**
+	 * ComTransportOptions
+	 * <p>
+	 * Options of the socket transport of a connection.
+	 * <p>
+	 * Constructor requiring all options.
+	 *
+	 * @param outputBufferSize - the size of the buffer of the output stream
+	 * @param inputBufferSize - the size of the buffer of the input stream
+	 * @param flushPerMessage - if every sent object shall be flushed
+	 * @param tcpNoDelay - if Nagle's algorithm shall be disabled
+	 * @param readTimeout - the read timeout in milliseconds, 0 to wait infinitely
+	 * @param keepAlive - if TCP keep-alive shall be enabled
+	 * @param socketSendBufferSize - the send buffer size of the socket, 0 for the default of the system
+	 * @param socketReceiveBufferSize - the receive buffer size of the socket, 0 for the default of the system
+	 */
+	public ComTransportOptions {
+		if(outputBufferSize <= 0 || inputBufferSize <= 0)
+			throw new IllegalArgumentException("Stream buffer sizes have to be positive!");
+		if(readTimeout < 0 || socketSendBufferSize < 0 || socketReceiveBufferSize < 0)
+			throw new IllegalArgumentException("Read timeout and socket buffer sizes shall not be negative!");
+	}
+
+	/**
+	 * method withBufferSizes
+	 * <p>
+	 * Method to get these options with the given stream buffer sizes.
+	 *
+	 * @param outputBufferSize - the size of the buffer of the output stream
+	 * @param inputBufferSize - the size of the buffer of the input stream
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withBufferSizes(int outputBufferSize, int inputBufferSize) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method withFlushPerMessage
+	 * <p>
+	 * Method to get these options with the given flushing behavior.
+	 *
+	 * @param flushPerMessage - if every sent object shall be flushed
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withFlushPerMessage(boolean flushPerMessage) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method withTcpNoDelay
+	 * <p>
+	 * Method to get these options with Nagle's algorithm disabled or enabled.
+	 *
+	 * @param tcpNoDelay - if Nagle's algorithm shall be disabled
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withTcpNoDelay(boolean tcpNoDelay) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method withReadTimeout
+	 * <p>
+	 * Method to get these options with the given read timeout.
+	 *
+	 * @param readTimeout - the read timeout in milliseconds, 0 to wait infinitely
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withReadTimeout(int readTimeout) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method withKeepAlive
+	 * <p>
+	 * Method to get these options with TCP keep-alive enabled or disabled.
+	 *
+	 * @param keepAlive - if TCP keep-alive shall be enabled
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withKeepAlive(boolean keepAlive) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method withSocketBufferSizes
+	 * <p>
+	 * Method to get these options with the given socket buffer sizes.
+	 *
+	 * @param socketSendBufferSize - the send buffer size of the socket, 0 for the default of the system
+	 * @param socketReceiveBufferSize - the receive buffer size of the socket, 0 for the default of the system
+	 *
+	 * @return ComTransportOptions - the changed options
+	 */
+	public ComTransportOptions withSocketBufferSizes(int socketSendBufferSize, int socketReceiveBufferSize) {
+		return new ComTransportOptions(outputBufferSize, inputBufferSize, flushPerMessage, tcpNoDelay,
+				readTimeout, keepAlive, socketSendBufferSize, socketReceiveBufferSize);
+	}
+
+	/**
+	 * method applyTo
+	 * <p>
+	 * Method to set the socket options of the given socket.
+	 *
+	 * @param socket - the socket of the connection
+	 *
+	 * @throws SocketException - thrown when an option can not be set
+	 */
+	void applyTo(Socket socket) throws SocketException {
+		socket.setTcpNoDelay(tcpNoDelay);
+		socket.setKeepAlive(keepAlive);
+		socket.setSoTimeout(readTimeout);
+		if(socketSendBufferSize > 0)
+			socket.setSendBufferSize(socketSendBufferSize);
+		if(socketReceiveBufferSize > 0)
+			socket.setReceiveBufferSize(socketReceiveBufferSize);
+	}
+}
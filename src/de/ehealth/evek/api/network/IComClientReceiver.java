@@ -1,6 +1,8 @@
 package de.ehealth.evek.api.network;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 import de.ehealth.evek.api.entity.Address;
 import de.ehealth.evek.api.entity.Insurance;
@@ -134,6 +136,24 @@ public interface IComClientReceiver extends IComReceiver{
 	 */
 	public List<?> receiveList() throws Exception;
 	
+	/**
+	 * method receiveListStream
+	 * <p>
+	 * Method called to receive a list streamed by IComServerSender.sendListStream(Iterator, int).
+	 * A list sent as a whole is published the same way.
+	 * <p>
+	 * The next chunk is not read before it is demanded by the subscriber, so receiving the next object
+	 * blocks until the stream has been read completely. A stream cancelled or not subscribed is discarded.
+	 * 
+	 * @param <T> - the type of the elements
+	 * @param elementType - the expected type of the elements
+	 * 
+	 * @return Flow.Publisher - the publisher of the received elements, supporting one subscriber
+	 * 
+	 * @throws IOException - when discarding a previous list stream failed
+	 */
+	public <T> Flow.Publisher<T> receiveListStream(Class<T> elementType) throws IOException;
+	
 	/**
 	 * method receivePublicKey
 	 * <p>
@@ -144,4 +164,48 @@ public interface IComClientReceiver extends IComReceiver{
 	 * @throws Exception - when an error occurs on server, encryption or transmission
 	 */
 	public ComEncryptionKey receivePublicKey() throws Exception ;
+	
+	/**
+	 * method receiveBatchResult
+	 * <p>
+	 * Method called to receive the result of a batch sent by IComClientSender.sendBatch(ComBatch).
+	 * 
+	 * @return ComBatch.Result - the received result, holding the outcome of every command
+	 * 
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public ComBatch.Result receiveBatchResult() throws Exception;
+	
+	/**
+	 * method receiveGraph
+	 * <p>
+	 * Method called to receive the graph responding to a Get- or GetList-Command with entities to expand.
+	 * 
+	 * @return ComGraph - the received graph, holding the requested and the expanded entities
+	 * 
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public ComGraph receiveGraph() throws Exception;
+	
+	/**
+	 * method receiveSessionTicket
+	 * <p>
+	 * Method called to receive a session ticket requested by IComClientSender.requestSessionTicket().
+	 * 
+	 * @return ComSessionTicket - the received session ticket, bound to the resumption secret of the session
+	 * 
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public ComSessionTicket receiveSessionTicket() throws Exception;
+	
+	/**
+	 * method receiveResumption
+	 * <p>
+	 * Method called to receive the reply of the server on resuming a session.
+	 * 
+	 * @return ComSessionTicket.Resumed - the received reply
+	 * 
+	 * @throws Exception - when an error occurs on server, encryption or transmission
+	 */
+	public ComSessionTicket.Resumed receiveResumption() throws Exception;
 }
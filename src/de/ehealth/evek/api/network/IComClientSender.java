@@ -135,4 +135,29 @@ public interface IComClientSender extends IComSender {
 	default void loginUser(String username, String password) throws IOException {
 		sendUser(new User.LoginUser(username, password));
 	}
+	
+	/**
+	 * method requestSessionTicket
+	 * <p>
+	 * Method called to request a session ticket after login, to resume the session on reconnecting.
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void requestSessionTicket() throws IOException {
+		sendAsObject(new ComSessionTicket.Request());
+	}
+	
+	/**
+	 * method sendBatch
+	 * <p>
+	 * Method called to send a batch of commands, processed by the server with one round trip 
+	 * and answered by one ComBatch.Result.
+	 * 
+	 * @param batch - the batch of commands to send
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void sendBatch(ComBatch batch) throws IOException {
+		sendAsObject(batch);
+	}
 }
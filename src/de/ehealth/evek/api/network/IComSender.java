@@ -48,6 +48,41 @@ interface IComSender {
 	 */
 	ComEncryption useEncryption(IComReceiver receiver) throws EncryptionException;
 	
+	/**
+	 * method useEncryption
+	 * <p>
+	 * Method called to initialize and use encryption for the connection with the given handshake mode.
+	 * 
+	 * @param receiver - the IComReceiver to receive and decrypt encrypted objects
+	 * @param keyType - the type of key to use for the handshake
+	 *
+	 * @throws EncryptionException - when an error occurs on initializing encryption or the handshake mode is not supported
+	 */
+	default ComEncryption useEncryption(IComReceiver receiver, ComEncryptionKey.KeyType keyType) 
+			throws EncryptionException {
+		if(keyType != ComEncryptionKey.KeyType.RSA)
+			throw new EncryptionException(String.format("Key type %s not supported!", keyType));
+		return useEncryption(receiver);
+	}
+	
+	/**
+	 * method resumeEncryption
+	 * <p>
+	 * Method called to resume the encrypted, logged in session of the given ticket instead of a new handshake.
+	 * 
+	 * @param receiver - the IComReceiver to receive and decrypt encrypted objects
+	 * @param ticket - the ticket issued by the server on a previous connection
+	 * 
+	 * @return ComEncryption - the encryption of the resumed session or null, if the ticket has been rejected 
+	 * 				and useEncryption and a new login are required
+	 *
+	 * @throws EncryptionException - when an error occurs on resuming or resumption is not supported
+	 */
+	default ComEncryption resumeEncryption(IComReceiver receiver, ComSessionTicket ticket) 
+			throws EncryptionException {
+		throw new EncryptionException("Session resumption not supported!");
+	}
+	
 	/**
 	 * method testConnection
 	 * 
@@ -29,6 +29,9 @@ public interface IComServerReceiver extends IComReceiver {
 	 * method receiveObject
 	 * <p>
 	 * Method called to receive an Object.
+	 * <p>
+	 * Commands received in a ComEnvelope are unwrapped. Objects sent by the receiving thread afterwards, 
+	 * including exceptions thrown here and sent by the caller, are correlated with the envelope.
 	 * 
 	 * @return boolean - true, if the object could have been handled
 	 * 
@@ -45,20 +48,30 @@ public interface IComServerReceiver extends IComReceiver {
 		
 		inputObject = handleInputEncryption(inputObject);
 		
-		if(inputObject instanceof ConnectionTest)
-			return true;
+		ComEnvelope.correlate(inputObject);
+		if(inputObject instanceof ComEnvelope)
+			inputObject = ((ComEnvelope) inputObject).payload();
 		
-		if(inputObject instanceof ComEncryptionKey) {
+		ComCommandDispatcher.Kind kind = ComCommandDispatcher.kindOf(inputObject.getClass());
+		switch(kind) {
+		case CONNECTION_TEST:
+			return true;
+		case ENCRYPTION_KEY:
 			process((ComEncryptionKey) inputObject);
 			return true;
+		case RESUME:
+			process((ComSessionTicket.Resume) inputObject);
+			return true;
+		default:
+			break;
 		}
 		
 		if(customHandleInput(inputObject))
 			return true;
 		
-		if(inputObject instanceof User.LoginUser) 
+		if(kind == ComCommandDispatcher.Kind.LOGIN) 
 			return setProcessingUser((User.LoginUser) inputObject);
-		if(inputObject instanceof User.CreateFull) {
+		if(kind == ComCommandDispatcher.Kind.CREATE_FULL) {
 			process((User.CreateFull) inputObject);
 			return true;
 		}
@@ -66,29 +79,50 @@ public interface IComServerReceiver extends IComReceiver {
 		if(!hasProcessingUser())
 			throw new IllegalProcessException(new UserNotProvidedException());
 		
-		if(inputObject instanceof Address.Command)
-			process((Address.Command) inputObject);
-		else if(inputObject instanceof Insurance.Command)
-			process((Insurance.Command) inputObject);
-		else if(inputObject instanceof InsuranceData.Command)
-			process((InsuranceData.Command) inputObject);
-//		else if(inputObject instanceof Invoice.Command)
-//			process((Invoice.Command) inputObject);
-		else if(inputObject instanceof Patient.Command)
-			process((Patient.Command) inputObject);
-//		else if(inputObject instanceof Protocol.Command)
-//			process((Protocol.Command) inputObject);
-		else if(inputObject instanceof ServiceProvider.Command)
-			process((ServiceProvider.Command) inputObject);
-		else if(inputObject instanceof TransportDetails.Command)
-			process((TransportDetails.Command) inputObject);
-		else if(inputObject instanceof TransportDocument.Command)
-			process((TransportDocument.Command) inputObject);
-		else if(inputObject instanceof User.Command)
-			process((User.Command) inputObject);
-		else return false;	
-		
-		return true;	
+		switch(kind) {
+		case TICKET_REQUEST:
+			process((ComSessionTicket.Request) inputObject);
+			return true;
+		case BATCH:
+			process((ComBatch) inputObject);
+			return true;
+		default:
+			return processCommand(inputObject);
+		}
+	}
+	
+	/**
+	 * method processCommand
+	 * <p>
+	 * Method called to pass a received command to its handler of the ComCommandDispatcher of the receiver, 
+	 * as called for single commands and the commands of a ComBatch.
+	 * 
+	 * @param inputObject - the received command
+	 * 
+	 * @return boolean - true, if the object is a command and could have been handled
+	 * 
+	 * @throws IllegalProcessException - thrown when a process can not be performed due to unmatched requirements
+	 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+	 */
+	default boolean processCommand(Serializable inputObject) 
+			throws IllegalProcessException, ProcessingException {
+		ComCommandDispatcher<?> dispatcher = getCommandDispatcher();
+		if(dispatcher == null)
+			dispatcher = ComCommandDispatcher.defaultDispatcher();
+		return dispatcher.dispatch(this, inputObject);
+	}
+	
+	/**
+	 * method getCommandDispatcher
+	 * <p>
+	 * Method called to get the dispatch table of the received commands, 
+	 * i.E. created once for the receiver class by ComCommandDispatcher.create(Class) with handlers per command type.
+	 * 
+	 * @return ComCommandDispatcher - the dispatcher of the receiver or null, 
+	 * 		to pass the commands to the process methods of their entities
+	 */
+	default ComCommandDispatcher<?> getCommandDispatcher() {
+		return null;
 	}
 	
 	/**
@@ -111,6 +145,17 @@ public interface IComServerReceiver extends IComReceiver {
 	 */
 	boolean hasProcessingUser();
 	
+	/**
+	 * method getProcessingUser
+	 * <p>
+	 * Method called to get the processing user, i.E. to check the permissions of the commands of a ComBatch.
+	 * 
+	 * @return User - the processing user or null, if it is not provided, refusing ComBatches
+	 */
+	default User getProcessingUser() {
+		return null;
+	}
+	
 	/**
 	 * method handleInputEncryption
 	 * <p>
@@ -134,7 +179,8 @@ public interface IComServerReceiver extends IComReceiver {
 	 */
 	default boolean customHandleInput(Serializable inputObject) 
 			throws IllegalProcessException, ProcessingException {
-		Log.sendMessage(String.format("	Object of Type %s has been recieved!", inputObject.getClass()));
+		if(Log.isEnabled())
+			Log.sendMessage(String.format("	Object of Type %s has been recieved!", inputObject.getClass()));
 		return false;
 	}
 	
@@ -259,4 +305,60 @@ public interface IComServerReceiver extends IComReceiver {
 	 */
 	void process(ComEncryptionKey key) 
 			throws EncryptionException;
+	
+	/**
+	 * method process
+	 * <p>
+	 * Method called to process a received session ticket request of the logged in client.
+	 * <p>
+	 * Servers supporting session resumption issue the ticket by ComEncryption.issueTicket(ComSessionTicketKey, Reference).
+	 * 
+	 * @param request - the received ComSessionTicket.Request
+	 * 
+	 * @throws IllegalProcessException - thrown when session resumption is not supported
+	 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+	 */
+	default void process(ComSessionTicket.Request request) 
+			throws IllegalProcessException, ProcessingException {
+		throw new IllegalProcessException(
+				new UnsupportedOperationException("Session resumption not supported!"));
+	}
+	
+	/**
+	 * method process
+	 * <p>
+	 * Method called to process a received batch of commands.
+	 * <p>
+	 * Servers supporting batches apply the commands by ComBatch.apply(IComServerReceiver) 
+	 * and send the returned ComBatch.Result by IComServerSender.send(ComBatch.Result).
+	 * 
+	 * @param batch - the received ComBatch
+	 * 
+	 * @throws IllegalProcessException - thrown when batches are not supported or no processing user has been set
+	 * @throws ProcessingException - when a process can not be performed due to technical exceptions
+	 */
+	default void process(ComBatch batch) 
+			throws IllegalProcessException, ProcessingException {
+		throw new IllegalProcessException(
+				new UnsupportedOperationException("Batches not supported!"));
+	}
+	
+	/**
+	 * method process
+	 * <p>
+	 * Method called to process a received session resumption.
+	 * <p>
+	 * Servers supporting session resumption resume the session by ComEncryption.resumeSession(ComSessionTicketKey, ComSessionTicket.Resume)
+	 * and set the returned user as processing user without a password check.
+	 * 
+	 * @param resume - the received ComSessionTicket.Resume
+	 * 
+	 * @throws EncryptionException - thrown when resuming the session fails
+	 * @throws IllegalProcessException - thrown when session resumption is not supported
+	 */
+	default void process(ComSessionTicket.Resume resume) 
+			throws EncryptionException, IllegalProcessException {
+		throw new IllegalProcessException(
+				new UnsupportedOperationException("Session resumption not supported!"));
+	}
 }
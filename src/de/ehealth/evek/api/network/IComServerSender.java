@@ -2,6 +2,7 @@ package de.ehealth.evek.api.network;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 import de.ehealth.evek.api.entity.Address;
 import de.ehealth.evek.api.entity.Insurance;
@@ -108,9 +109,10 @@ public interface IComServerSender extends IComSender {
 	/**
 	 * method send
 	 * <p>
-	 * Method called to send an object.
+	 * Method called to send an exception or a throwable.
+	 * The exceptions of de.ehealth.evek.api.exception are sent as compact ComError, without stack trace and cause.
 	 * 
-	 * @param object - the object to send
+	 * @param e - the throwable to send
 	 * @throws IOException - when an error occurs on transmission
 	 */
 	void send(Throwable e) throws IOException;
@@ -124,4 +126,71 @@ public interface IComServerSender extends IComSender {
 	 * @throws IOException - when an error occurs on transmission
 	 */
 	void send(ArrayList<?> list) throws IOException;
+	
+	/**
+	 * method send
+	 * <p>
+	 * Method called to send the result of a ComBatch.
+	 * 
+	 * @param result - the result to send
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void send(ComBatch.Result result) throws IOException {
+		sendAsObject(result);
+	}
+	
+	/**
+	 * method send
+	 * <p>
+	 * Method called to send the graph responding to a Get- or GetList-Command with entities to expand.
+	 * 
+	 * @param graph - the graph to send, built by ComGraph.build(List, List, UserRole, ComGraph.Loader)
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void send(ComGraph graph) throws IOException {
+		sendAsObject(graph);
+	}
+	
+	/**
+	 * method sendListStream
+	 * <p>
+	 * Method called to send the elements of a list streamed in chunks of ComListStream.DEFAULT_CHUNK_SIZE elements.
+	 * 
+	 * @param elements - the elements to send
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void sendListStream(Iterator<?> elements) throws IOException {
+		sendListStream(elements, ComListStream.DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * method sendListStream
+	 * <p>
+	 * Method called to send the elements of a list streamed in chunks, followed by the end marker.
+	 * <p>
+	 * The next elements are not taken from the iterator before the previous chunk has been sent,
+	 * so the elements do not have to be held in memory at once.
+	 * Sending blocks, while the client does not demand further elements and the socket buffers are full.
+	 * 
+	 * @param elements - the elements to send
+	 * @param chunkSize - the maximum number of elements of one chunk
+	 * 
+	 * @throws IOException - when an error occurs on transmission
+	 */
+	default void sendListStream(Iterator<?> elements, int chunkSize) throws IOException {
+		if(chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size has to be positive!");
+		long count = 0;
+		while(elements.hasNext()) {
+			ArrayList<Object> chunk = new ArrayList<>(chunkSize);
+			while(chunk.size() < chunkSize && elements.hasNext())
+				chunk.add(elements.next());
+			count += chunk.size();
+			sendAsObject(new ComListStream.Chunk(chunk));
+		}
+		sendAsObject(new ComListStream.End(count));
+	}
 }
@@ -0,0 +1,1279 @@
+package de.ehealth.evek.api.server;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.GetListThrowable;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.IsArchivedException;
+import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.exception.UserNameAlreadyUsedException;
+import de.ehealth.evek.api.exception.UserNotAllowedException;
+import de.ehealth.evek.api.exception.UserNotFoundException;
+import de.ehealth.evek.api.exception.UserNotProvidedException;
+import de.ehealth.evek.api.exception.WrongCredentialsException;
+import de.ehealth.evek.api.network.ComGraph;
+import de.ehealth.evek.api.type.Expand;
+import de.ehealth.evek.api.type.Id;
+import de.ehealth.evek.api.type.IdGenerator;
+import de.ehealth.evek.api.type.Reference;
+import de.ehealth.evek.api.type.UserRole;
+import de.ehealth.evek.api.util.COptional;
+
+/**
+ * MemoryRepository
+ * <p>
+ * In-memory repository implementing the Operations of all entities, i.E. to run a server locally
+ * for load tests and small deployments or as server of benchmarks. The repository is shared by all connections,
+ * served by a MemoryServerReceiver each.
+ * <p>
+ * Every entity type is kept in its own store without global lock. Changes are applied by the immutable transitions
+ * of the entities (i.E. updateWith(...) and archive()) under the lock of the stripe of the changed Id,
+ * so concurrent changes of one entity are applied one after another and none of them gets lost,
+ * while changes of different entities run in parallel. Changes of transport details additionally hold the lock
+ * of their transport document, taken first, so the document is not archived while its details are changed. Gets take no lock.
+ * <p>
+ * Every command is checked against the UserRole of the processing user. Permissions are granted by the role only,
+ * not by the ownership of the entities, except for users: a user is updated by itself or by an administrating user,
+ * i.E. of a role allowed to process User.UpdateRole. Administrating roles are granted, and administrating users
+ * are changed or deleted, by a SuperUser only. Without processing user, only LoginUser and the registration
+ * by User.CreateFull are processed, which can not register users of administrating roles.
+ * The first administrating user is created by createUser(User.Create).
+ * <p>
+ * Ids of new entities are generated by the IdGenerator, unless they are passed by the Create-Command.
+ * GetList-Commands are processed by processList(Filter, Reference) as well, returning the found entities without throwing.
+ * Referenced entities are not validated, except for the transport document of new transport details.
+ * Passwords are kept as salted SHA-256 hash only. Nothing is persisted.
+ *
+ * @implements Address.Operations, Insurance.Operations, InsuranceData.Operations, Patient.Operations,
+ * 		ServiceProvider.Operations, TransportDetails.Operations, TransportDocument.Operations, User.Operations
+ */
+public final class MemoryRepository implements Address.Operations, Insurance.Operations,
+		InsuranceData.Operations, Patient.Operations, ServiceProvider.Operations,
+		TransportDetails.Operations, TransportDocument.Operations, User.Operations {
+
+	private static final int DEFAULT_STRIPE_COUNT = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
+	private static final SecureRandom SALTS = new SecureRandom();
+
+	private final MemoryStore<Address> addresses;
+
+	private final MemoryStore<Insurance> insurances;
+
+	private final MemoryStore<InsuranceData> insuranceData;
+
+	private final MemoryStore<Patient> patients;
+
+	private final MemoryStore<ServiceProvider> serviceProviders;
+
+	private final MemoryStore<TransportDetails> transportDetails;
+
+	private final MemoryStore<TransportDocument> transportDocuments;
+
+	private final MemoryStore<User> users;
+
+	private final ConcurrentHashMap<String, Credential> credentials = new ConcurrentHashMap<>();
+
+	/**
+	 * MemoryRepository
+	 * <p>
+	 * In-memory repository implementing the Operations of all entities.
+	 * <p>
+	 * Constructor using four lock stripes per available processor, at least 16.
+	 */
+	public MemoryRepository() {
+		this(DEFAULT_STRIPE_COUNT);
+	}
+
+	/**
+	 * MemoryRepository
+	 * <p>
+	 * In-memory repository implementing the Operations of all entities.
+	 * <p>
+	 * Constructor requiring the number of lock stripes of every entity type.
+	 *
+	 * @param stripeCount - the number of lock stripes per entity type, rounded up to a power of two
+	 */
+	public MemoryRepository(int stripeCount) {
+		this.addresses = new MemoryStore<>(Address.class, Address::id, stripeCount);
+		this.insurances = new MemoryStore<>(Insurance.class, Insurance::id, stripeCount);
+		this.insuranceData = new MemoryStore<>(InsuranceData.class, InsuranceData::id, stripeCount);
+		this.patients = new MemoryStore<>(Patient.class, Patient::insuranceNumber, stripeCount);
+		this.serviceProviders = new MemoryStore<>(ServiceProvider.class, ServiceProvider::id, stripeCount);
+		this.transportDetails = new MemoryStore<>(TransportDetails.class, TransportDetails::id, stripeCount);
+		this.transportDocuments = new MemoryStore<>(TransportDocument.class, TransportDocument::id, stripeCount);
+		this.users = new MemoryStore<>(User.class, User::id, stripeCount);
+	}
+
+	/**
+	 * method createUser
+	 * <p>
+	 * Method to create a user without checking the permission of a processing user,
+	 * i.E. to create the first administrating user of the repository.
+	 *
+	 * @param cmd - the Create-Command of the user
+	 *
+	 * @return User - the created user
+	 *
+	 * @throws IllegalProcessException - thrown when the user name is already used or the Id already exists
+	 */
+	public User createUser(User.Create cmd) throws IllegalProcessException {
+		Id<User> id = idOf(cmd.id());
+		Credential credential = reserve(cmd.userName(), cmd.password(), id);
+		try {
+			return users.insert(new User(id, cmd.lastName(), cmd.firstName(),
+					cmd.address(), cmd.serviceProvider(), cmd.role()));
+		} catch (IllegalProcessException e) {
+			credentials.remove(cmd.userName(), credential);
+			throw e;
+		}
+	}
+
+	/**
+	 * method findUser
+	 * <p>
+	 * Method to get the stored state of the given user, i.E. of the processing user of a connection.
+	 *
+	 * @param user - the user
+	 *
+	 * @return User - the user or null, if the user is not provided or not found
+	 */
+	User findUser(Reference<User> user) {
+		if(user == null)
+			return null;
+		return users.find(user.id());
+	}
+
+	/**
+	 * method expand
+	 * <p>
+	 * Method to build the graph of the given transport documents or transport details,
+	 * as requested by their Get- or GetList-Command with entities to expand.
+	 * The expanded entities are loaded by the GetListByIDList-Commands of the processing user.
+	 *
+	 * @param roots - the requested transport documents or transport details
+	 * @param expand - the entity types to expand
+	 * @param processingUser - the processing user
+	 *
+	 * @return ComGraph - the graph of the roots and the expanded entities
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not provided or not allowed to load an entity
+	 * @throws ProcessingException - thrown when loading the entities fails
+	 */
+	public ComGraph expand(List<?> roots, List<Expand> expand, Reference<User> processingUser)
+			throws IllegalProcessException, ProcessingException {
+		User user = processingUserOf(processingUser);
+		return ComGraph.build(roots, expand, user.role(), command -> load(command, processingUser));
+	}
+
+	@Override
+	public Address process(Address.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof Address.Create)
+			return addresses.insert(createAddress((Address.Create) cmd));
+		if(cmd instanceof Address.Update) {
+			Address.Update update = (Address.Update) cmd;
+			return addresses.update(update.id(), address -> address.updateWith(update.name()));
+		}
+		if(cmd instanceof Address.Delete)
+			return addresses.remove(((Address.Delete) cmd).id(), address -> address);
+		if(cmd instanceof Address.Get)
+			return addresses.get(((Address.Get) cmd).id());
+		if(cmd instanceof Address.GetList) {
+			Address.Filter filter = ((Address.GetList) cmd).filter();
+			throw new GetListThrowable(addresses.list(address -> matches(filter, address)));
+		}
+		if(cmd instanceof Address.GetListByIDList)
+			throw new GetListThrowable(addresses.list(((Address.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<Address> processList(Address.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(Address.GetList.class, processingUser);
+		return addresses.list(address -> matches(filter, address));
+	}
+
+	@Override
+	public Insurance process(Insurance.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof Insurance.Create) {
+			Insurance.Create create = (Insurance.Create) cmd;
+			return insurances.insert(new Insurance(new Id<>(create.insuranceId()), create.name(), create.address()));
+		}
+		if(cmd instanceof Insurance.Update) {
+			Insurance.Update update = (Insurance.Update) cmd;
+			return insurances.update(update.id(), insurance -> insurance.updateWith(update.name()));
+		}
+		if(cmd instanceof Insurance.Move) {
+			Insurance.Move move = (Insurance.Move) cmd;
+			return insurances.update(move.id(), insurance -> insurance.updateWith(move.address()));
+		}
+		if(cmd instanceof Insurance.Delete)
+			return insurances.remove(((Insurance.Delete) cmd).id(), insurance -> insurance);
+		if(cmd instanceof Insurance.Get)
+			return insurances.get(((Insurance.Get) cmd).id());
+		if(cmd instanceof Insurance.GetList) {
+			Insurance.Filter filter = ((Insurance.GetList) cmd).filter();
+			throw new GetListThrowable(insurances.list(insurance -> matches(filter, insurance)));
+		}
+		if(cmd instanceof Insurance.GetListByIDList)
+			throw new GetListThrowable(insurances.list(((Insurance.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<Insurance> processList(Insurance.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(Insurance.GetList.class, processingUser);
+		return insurances.list(insurance -> matches(filter, insurance));
+	}
+
+	@Override
+	public InsuranceData process(InsuranceData.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof InsuranceData.Create) {
+			InsuranceData.Create create = (InsuranceData.Create) cmd;
+			return insuranceData.insert(new InsuranceData(idOf(create.id()),
+					create.patient(), create.insurance(), create.insuranceStatus()));
+		}
+		if(cmd instanceof InsuranceData.Delete)
+			return insuranceData.remove(((InsuranceData.Delete) cmd).id(), data -> data);
+		if(cmd instanceof InsuranceData.Get)
+			return insuranceData.get(((InsuranceData.Get) cmd).id());
+		if(cmd instanceof InsuranceData.GetList) {
+			InsuranceData.Filter filter = ((InsuranceData.GetList) cmd).filter();
+			throw new GetListThrowable(insuranceData.list(data -> matches(filter, data)));
+		}
+		if(cmd instanceof InsuranceData.GetListByIDList)
+			throw new GetListThrowable(insuranceData.list(((InsuranceData.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<InsuranceData> processList(InsuranceData.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(InsuranceData.GetList.class, processingUser);
+		return insuranceData.list(data -> matches(filter, data));
+	}
+
+	@Override
+	public Patient process(Patient.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof Patient.Create) {
+			Patient.Create create = (Patient.Create) cmd;
+			return patients.insert(new Patient(new Id<>(create.insuranceNumber()), create.insuranceData(),
+					create.lastName(), create.firstName(), create.birthDate(), create.address()));
+		}
+		if(cmd instanceof Patient.CreateWithInsuranceData)
+			return createPatient((Patient.CreateWithInsuranceData) cmd);
+		if(cmd instanceof Patient.Update) {
+			Patient.Update update = (Patient.Update) cmd;
+			return patients.update(update.insuranceNumber(),
+					patient -> patient.updateWith(update.lastName(), update.firstName()));
+		}
+		if(cmd instanceof Patient.Move) {
+			Patient.Move move = (Patient.Move) cmd;
+			return patients.update(move.insuranceNumber(), patient -> patient.updateAddress(move.address()));
+		}
+		if(cmd instanceof Patient.UpdateInsuranceData) {
+			Patient.UpdateInsuranceData update = (Patient.UpdateInsuranceData) cmd;
+			return patients.update(update.insuranceNumber(),
+					patient -> patient.updateInsuranceData(update.insuranceData()));
+		}
+		if(cmd instanceof Patient.Delete)
+			return patients.remove(((Patient.Delete) cmd).insuranceNumber(), patient -> patient);
+		if(cmd instanceof Patient.Get)
+			return patients.get(((Patient.Get) cmd).id());
+		if(cmd instanceof Patient.GetList) {
+			Patient.Filter filter = ((Patient.GetList) cmd).filter();
+			throw new GetListThrowable(patients.list(patient -> matches(filter, patient)));
+		}
+		if(cmd instanceof Patient.GetListByIDList)
+			throw new GetListThrowable(patients.list(((Patient.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<Patient> processList(Patient.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(Patient.GetList.class, processingUser);
+		return patients.list(patient -> matches(filter, patient));
+	}
+
+	@Override
+	public ServiceProvider process(ServiceProvider.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof ServiceProvider.Create) {
+			ServiceProvider.Create create = (ServiceProvider.Create) cmd;
+			return serviceProviders.insert(new ServiceProvider(new Id<>(create.serviceProviderId()),
+					create.name(), create.type(), create.isHealthcareProvider(), create.isTransportProvider(),
+					create.address(), create.contactInfo()));
+		}
+		if(cmd instanceof ServiceProvider.CreateFull)
+			return createServiceProvider((ServiceProvider.CreateFull) cmd);
+		if(cmd instanceof ServiceProvider.Update) {
+			ServiceProvider.Update update = (ServiceProvider.Update) cmd;
+			return serviceProviders.update(update.id(),
+					provider -> provider.updateWith(update.name(), update.type(), update.contactInfo()));
+		}
+		if(cmd instanceof ServiceProvider.UpdateService) {
+			ServiceProvider.UpdateService update = (ServiceProvider.UpdateService) cmd;
+			return serviceProviders.update(update.id(),
+					provider -> provider.updateWith(update.providesHealthcare(), update.providesTransport()));
+		}
+		if(cmd instanceof ServiceProvider.Move) {
+			ServiceProvider.Move move = (ServiceProvider.Move) cmd;
+			return serviceProviders.update(move.id(), provider -> provider.updateWith(move.address()));
+		}
+		if(cmd instanceof ServiceProvider.Delete)
+			return serviceProviders.remove(((ServiceProvider.Delete) cmd).id(), provider -> provider);
+		if(cmd instanceof ServiceProvider.Get)
+			return serviceProviders.get(((ServiceProvider.Get) cmd).id());
+		if(cmd instanceof ServiceProvider.GetList) {
+			ServiceProvider.Filter filter = ((ServiceProvider.GetList) cmd).filter();
+			throw new GetListThrowable(serviceProviders.list(provider -> matches(filter, provider)));
+		}
+		if(cmd instanceof ServiceProvider.GetListByIDList)
+			throw new GetListThrowable(serviceProviders.list(((ServiceProvider.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<ServiceProvider> processList(ServiceProvider.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(ServiceProvider.GetList.class, processingUser);
+		return serviceProviders.list(provider -> matches(filter, provider));
+	}
+
+	@Override
+	public TransportDetails process(TransportDetails.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof TransportDetails.Create) {
+			TransportDetails.Create create = (TransportDetails.Create) cmd;
+			Id<TransportDocument> document = create.transportDocument() == null ? null : create.transportDocument().id();
+			return transportDocuments.locked(document, () -> {
+				requireNotArchived(transportDocuments.get(document));
+				return transportDetails.insert(new TransportDetails(idOf(create.id()),
+						create.transportDocument(), create.transportDate(),
+						COptional.empty(), COptional.empty(), COptional.empty(), COptional.empty(),
+						COptional.empty(), COptional.empty(), COptional.empty(),
+						COptional.empty(), COptional.empty(), COptional.empty(), COptional.empty()));
+			});
+		}
+		if(cmd instanceof TransportDetails.Update) {
+			TransportDetails.Update update = (TransportDetails.Update) cmd;
+			return updateDetails(update.id(), details -> details.updateWith(update.startAddress(), update.endAddress(),
+					update.direction(), update.patientCondition(), update.tourNumber(), update.paymentExemption()));
+		}
+		if(cmd instanceof TransportDetails.AssignTransportProvider) {
+			TransportDetails.AssignTransportProvider assign = (TransportDetails.AssignTransportProvider) cmd;
+			return updateDetails(assign.id(), details -> details.updateTransportProvider(assign.transportProvider()));
+		}
+		if(cmd instanceof TransportDetails.UpdatePatientSignature) {
+			TransportDetails.UpdatePatientSignature update = (TransportDetails.UpdatePatientSignature) cmd;
+			return updateDetails(update.id(), details ->
+					details.updatePatientSignature(update.patientSignature(), update.patientSignatureDate()));
+		}
+		if(cmd instanceof TransportDetails.UpdateTransporterSignature) {
+			TransportDetails.UpdateTransporterSignature update = (TransportDetails.UpdateTransporterSignature) cmd;
+			return updateDetails(update.id(), details ->
+					details.updateTransporterSignature(update.transporterSignature(), update.transporterSignatureDate()));
+		}
+		if(cmd instanceof TransportDetails.Delete) {
+			Id<TransportDetails> id = ((TransportDetails.Delete) cmd).id();
+			return transportDocuments.locked(documentOf(transportDetails.get(id)), () ->
+					transportDetails.remove(id, details -> {
+						requireNotArchived(details);
+						return details;
+					}));
+		}
+		if(cmd instanceof TransportDetails.Get)
+			return transportDetails.get(((TransportDetails.Get) cmd).id());
+		if(cmd instanceof TransportDetails.GetList) {
+			TransportDetails.Filter filter = ((TransportDetails.GetList) cmd).filter();
+			throw new GetListThrowable(transportDetails.list(details -> matches(filter, details)));
+		}
+		if(cmd instanceof TransportDetails.GetListByIDList)
+			throw new GetListThrowable(transportDetails.list(((TransportDetails.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<TransportDetails> processList(TransportDetails.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(TransportDetails.GetList.class, processingUser);
+		return transportDetails.list(details -> matches(filter, details));
+	}
+
+	@Override
+	public TransportDocument process(TransportDocument.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		authorize(cmd, processingUser);
+		if(cmd instanceof TransportDocument.Create) {
+			TransportDocument.Create create = (TransportDocument.Create) cmd;
+			return transportDocuments.insert(new TransportDocument(idOf(create.id()),
+					create.patient(), create.insuranceData(), create.transportReason(),
+					create.startDate(), create.endDate(), create.weeklyFrequency(),
+					create.healthcareServiceProvider(), create.transportationType(),
+					create.additionalInfo(), create.signature(), false));
+		}
+		if(cmd instanceof TransportDocument.Update) {
+			TransportDocument.Update update = (TransportDocument.Update) cmd;
+			return transportDocuments.update(update.id(), document -> {
+				requireNotArchived(document);
+				return document.updateWith(update.transportReason(), update.startDate(), update.endDate(),
+						update.weeklyFrequency(), update.healthcareServiceProvider(), update.transportationType(),
+						update.additionalInfo(), update.signature());
+			});
+		}
+		if(cmd instanceof TransportDocument.AssignPatient) {
+			TransportDocument.AssignPatient assign = (TransportDocument.AssignPatient) cmd;
+			return transportDocuments.update(assign.id(), document -> {
+				requireNotArchived(document);
+				return document.assignPatient(assign.patient(), assign.insuranceData());
+			});
+		}
+		if(cmd instanceof TransportDocument.Archive)
+			return transportDocuments.update(((TransportDocument.Archive) cmd).id(), TransportDocument::archive);
+		if(cmd instanceof TransportDocument.Delete)
+			return transportDocuments.remove(((TransportDocument.Delete) cmd).id(), document -> {
+				requireNotArchived(document);
+				return document;
+			});
+		if(cmd instanceof TransportDocument.Get)
+			return transportDocuments.get(((TransportDocument.Get) cmd).id());
+		if(cmd instanceof TransportDocument.GetList) {
+			TransportDocument.Filter filter = ((TransportDocument.GetList) cmd).filter();
+			throw new GetListThrowable(transportDocuments.list(document -> matches(filter, document)));
+		}
+		if(cmd instanceof TransportDocument.GetListByIDList)
+			throw new GetListThrowable(transportDocuments.list(((TransportDocument.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<TransportDocument> processList(TransportDocument.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(TransportDocument.GetList.class, processingUser);
+		return transportDocuments.list(document -> matches(filter, document));
+	}
+
+	@Override
+	public User process(User.Command cmd, Reference<User> processingUser)
+			throws GetListThrowable, IllegalProcessException, ProcessingException {
+		if(cmd instanceof User.LoginUser)
+			return login((User.LoginUser) cmd);
+		if(cmd instanceof User.CreateFull && processingUser == null)
+			return register((User.CreateFull) cmd);
+		User user = authorize(cmd, processingUser);
+		if(cmd instanceof User.Create) {
+			User.Create create = (User.Create) cmd;
+			requireGrantable(user, create.role());
+			return createUser(create);
+		}
+		if(cmd instanceof User.CreateFull) {
+			User.CreateFull create = (User.CreateFull) cmd;
+			requireGrantable(user, create.role());
+			return createUser(create);
+		}
+		if(cmd instanceof User.Update) {
+			User.Update update = (User.Update) cmd;
+			return users.update(update.id(), updated -> {
+				if(!updated.id().equals(user.id())) {
+					if(!isAdministrating(user.role()))
+						throw new UserNotAllowedException("Users can only be updated by themselves or an administrating user!",
+								user.id(), user.role());
+					requireManaging(user, updated);
+				}
+				return updated.updateWith(update.lastName(), update.firstName(),
+						update.address(), update.serviceProvider());
+			});
+		}
+		if(cmd instanceof User.UpdateRole) {
+			User.UpdateRole update = (User.UpdateRole) cmd;
+			requireGrantable(user, update.role());
+			return users.update(update.id(), updated -> {
+				requireManaging(user, updated);
+				return updated.updateWith(update.role());
+			});
+		}
+		if(cmd instanceof User.UpdateCredentials)
+			return updateCredentials((User.UpdateCredentials) cmd, user);
+		if(cmd instanceof User.Delete) {
+			Id<User> id = ((User.Delete) cmd).id();
+			return users.remove(id, removed -> {
+				requireManaging(user, removed);
+				credentials.values().removeIf(credential -> credential.user().equals(id));
+				return removed;
+			});
+		}
+		if(cmd instanceof User.Get) {
+			Id<User> id = ((User.Get) cmd).id();
+			User found = users.find(id);
+			if(found == null)
+				throw new UserNotFoundException(id);
+			return found;
+		}
+		if(cmd instanceof User.GetList) {
+			User.Filter filter = ((User.GetList) cmd).filter();
+			throw new GetListThrowable(users.list(listed -> matches(filter, listed)));
+		}
+		if(cmd instanceof User.GetListByIDList)
+			throw new GetListThrowable(users.list(((User.GetListByIDList) cmd).idList()));
+		throw unknownCommand(cmd);
+	}
+
+	@Override
+	public List<User> processList(User.Filter filter, Reference<User> processingUser) throws IllegalProcessException {
+		authorize(User.GetList.class, processingUser);
+		return users.list(listed -> matches(filter, listed));
+	}
+
+	/**
+	 * private method authorize
+	 * <p>
+	 * Method to check the permission of the processing user to perform the given command.
+	 *
+	 * @param cmd - the command to perform
+	 * @param processingUser - the processing user
+	 *
+	 * @return User - the processing user
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not provided, not found or not allowed
+	 */
+	private User authorize(Serializable cmd, Reference<User> processingUser) throws IllegalProcessException {
+		return authorize(cmd.getClass(), processingUser);
+	}
+
+	/**
+	 * private method authorize
+	 * <p>
+	 * Method to check the permission of the processing user to perform commands of the given class.
+	 *
+	 * @param command - the class of the command to perform
+	 * @param processingUser - the processing user
+	 *
+	 * @return User - the processing user
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not provided, not found or not allowed
+	 */
+	private User authorize(Class<?> command, Reference<User> processingUser) throws IllegalProcessException {
+		User user = processingUserOf(processingUser);
+		if(!user.role().isAllowed(command))
+			throw new UserNotAllowedException(user);
+		return user;
+	}
+
+	/**
+	 * private method isAdministrating
+	 * <p>
+	 * Method to get if the given role administrates users, i.E. is allowed to change the roles of users.
+	 *
+	 * @param role - the role
+	 *
+	 * @return boolean - true, if the role is SuperUser or allowed to process User.UpdateRole
+	 */
+	private static boolean isAdministrating(UserRole role) {
+		return role == UserRole.SuperUser || (role != null && role.isAllowed(User.UpdateRole.class));
+	}
+
+	/**
+	 * private method requireGrantable
+	 * <p>
+	 * Method to check the permission of the processing user to grant the given role to a user.
+	 *
+	 * @param processingUser - the processing user
+	 * @param role - the role to grant
+	 *
+	 * @throws IllegalProcessException - thrown when no role is provided
+	 * 		or the role is administrating and the processing user is no SuperUser
+	 */
+	private static void requireGrantable(User processingUser, UserRole role) throws IllegalProcessException {
+		if(role == null)
+			throw new IllegalProcessException(new IllegalArgumentException("Role shall be provided!"));
+		if(processingUser.role() != UserRole.SuperUser && isAdministrating(role))
+			throw new UserNotAllowedException(String.format("Role %s can only be granted by a SuperUser!", role),
+					processingUser.id(), processingUser.role());
+	}
+
+	/**
+	 * private method requireManaging
+	 * <p>
+	 * Method to check the permission of the processing user to change or delete the given user.
+	 *
+	 * @param processingUser - the processing user
+	 * @param user - the stored state of the user to change or delete
+	 *
+	 * @throws UserNotAllowedException - thrown when the user is administrating and the processing user is no SuperUser
+	 */
+	private static void requireManaging(User processingUser, User user) throws UserNotAllowedException {
+		if(processingUser.role() != UserRole.SuperUser && isAdministrating(user.role()))
+			throw new UserNotAllowedException(String.format("User %s can only be changed by a SuperUser!", user.id().value()),
+					processingUser.id(), processingUser.role());
+	}
+
+	/**
+	 * private method processingUserOf
+	 * <p>
+	 * Method to get the stored state of the processing user.
+	 *
+	 * @param processingUser - the processing user
+	 *
+	 * @return User - the processing user
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not provided or not found
+	 */
+	private User processingUserOf(Reference<User> processingUser) throws IllegalProcessException {
+		if(processingUser == null || processingUser.id() == null)
+			throw new UserNotProvidedException();
+		User user = users.find(processingUser.id());
+		if(user == null)
+			throw new UserNotFoundException(processingUser.id());
+		return user;
+	}
+
+	/**
+	 * method list
+	 * <p>
+	 * Method to process a GetList- or GetListByIDList-Command of any entity type, returning the found entities
+	 * instead of throwing them by a GetListThrowable, i.E. to load the expanded entities of a ComGraph.
+	 *
+	 * @param command - the command to process
+	 * @param processingUser - the processing user
+	 *
+	 * @return List - the found entities or null, if the command is no GetList- or GetListByIDList-Command
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not allowed to process the command
+	 */
+	List<?> list(Serializable command, Reference<User> processingUser) throws IllegalProcessException {
+		if(command instanceof Address.GetList)
+			return processList(((Address.GetList) command).filter(), processingUser);
+		if(command instanceof Address.GetListByIDList) {
+			authorize(command, processingUser);
+			return addresses.list(((Address.GetListByIDList) command).idList());
+		}
+		if(command instanceof Insurance.GetList)
+			return processList(((Insurance.GetList) command).filter(), processingUser);
+		if(command instanceof Insurance.GetListByIDList) {
+			authorize(command, processingUser);
+			return insurances.list(((Insurance.GetListByIDList) command).idList());
+		}
+		if(command instanceof InsuranceData.GetList)
+			return processList(((InsuranceData.GetList) command).filter(), processingUser);
+		if(command instanceof InsuranceData.GetListByIDList) {
+			authorize(command, processingUser);
+			return insuranceData.list(((InsuranceData.GetListByIDList) command).idList());
+		}
+		if(command instanceof Patient.GetList)
+			return processList(((Patient.GetList) command).filter(), processingUser);
+		if(command instanceof Patient.GetListByIDList) {
+			authorize(command, processingUser);
+			return patients.list(((Patient.GetListByIDList) command).idList());
+		}
+		if(command instanceof ServiceProvider.GetList)
+			return processList(((ServiceProvider.GetList) command).filter(), processingUser);
+		if(command instanceof ServiceProvider.GetListByIDList) {
+			authorize(command, processingUser);
+			return serviceProviders.list(((ServiceProvider.GetListByIDList) command).idList());
+		}
+		if(command instanceof TransportDetails.GetList)
+			return processList(((TransportDetails.GetList) command).filter(), processingUser);
+		if(command instanceof TransportDetails.GetListByIDList) {
+			authorize(command, processingUser);
+			return transportDetails.list(((TransportDetails.GetListByIDList) command).idList());
+		}
+		if(command instanceof TransportDocument.GetList)
+			return processList(((TransportDocument.GetList) command).filter(), processingUser);
+		if(command instanceof TransportDocument.GetListByIDList) {
+			authorize(command, processingUser);
+			return transportDocuments.list(((TransportDocument.GetListByIDList) command).idList());
+		}
+		if(command instanceof User.GetList)
+			return processList(((User.GetList) command).filter(), processingUser);
+		if(command instanceof User.GetListByIDList) {
+			authorize(command, processingUser);
+			return users.list(((User.GetListByIDList) command).idList());
+		}
+		return null;
+	}
+
+	/**
+	 * private method load
+	 * <p>
+	 * Method to process a GetListByIDList-Command of an expanded entity type.
+	 *
+	 * @param command - the GetListByIDList-Command
+	 * @param processingUser - the processing user
+	 *
+	 * @return List - the found entities
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not allowed to process the command
+	 * 		or the command is no GetListByIDList-Command
+	 */
+	private List<?> load(Serializable command, Reference<User> processingUser) throws IllegalProcessException {
+		List<?> list = list(command, processingUser);
+		if(list == null)
+			throw unknownCommand(command);
+		return list;
+	}
+
+	/**
+	 * private method createAddress
+	 * <p>
+	 * Method to get the new address of the given Create-Command.
+	 *
+	 * @param create - the Create-Command of the address
+	 *
+	 * @return Address - the new address
+	 *
+	 * @throws IllegalProcessException - thrown when no Create-Command is provided
+	 */
+	private static Address createAddress(Address.Create create) throws IllegalProcessException {
+		if(create == null)
+			throw new IllegalProcessException(new IllegalArgumentException("Address shall be provided!"));
+		return new Address(idOf(create.id()), create.name(), create.streetName(), create.houseNumber(),
+				create.country(), create.postCode(), create.city());
+	}
+
+	/**
+	 * private method createPatient
+	 * <p>
+	 * Method to create a patient together with its insurance data.
+	 *
+	 * @param create - the CreateWithInsuranceData-Command of the patient
+	 *
+	 * @return Patient - the created patient
+	 *
+	 * @throws IllegalProcessException - thrown when the patient or its insurance data already exists
+	 */
+	private Patient createPatient(Patient.CreateWithInsuranceData create) throws IllegalProcessException {
+		Id<Patient> id = new Id<>(create.insuranceNumber());
+		Id<InsuranceData> dataId = IdGenerator.nextId();
+		Patient patient = patients.insert(new Patient(id, Reference.to(dataId),
+				create.lastName(), create.firstName(), create.birthDate(), create.address()));
+		try {
+			insuranceData.insert(new InsuranceData(dataId, Reference.to(id),
+					create.insurance(), create.insuranceStatus()));
+		} catch (IllegalProcessException e) {
+			patients.delete(id);
+			throw e;
+		}
+		return patient;
+	}
+
+	/**
+	 * private method createServiceProvider
+	 * <p>
+	 * Method to create a service provider together with its address.
+	 *
+	 * @param create - the CreateFull-Command of the service provider
+	 *
+	 * @return ServiceProvider - the created service provider
+	 *
+	 * @throws IllegalProcessException - thrown when the service provider or its address already exists
+	 */
+	private ServiceProvider createServiceProvider(ServiceProvider.CreateFull create) throws IllegalProcessException {
+		if(create == null)
+			throw new IllegalProcessException(new IllegalArgumentException("Service provider shall be provided!"));
+		Address address = addresses.insert(createAddress(create.addressCmd()));
+		try {
+			return serviceProviders.insert(new ServiceProvider(new Id<>(create.serviceProviderId()),
+					create.name(), create.type(), create.isHealthcareProvider(), create.isTransportProvider(),
+					Reference.to(address.id()), create.contactInfo()));
+		} catch (IllegalProcessException e) {
+			addresses.delete(address.id());
+			throw e;
+		}
+	}
+
+	/**
+	 * private method register
+	 * <p>
+	 * Method to register a user without processing user.
+	 *
+	 * @param create - the CreateFull-Command of the user
+	 *
+	 * @return User - the registered user
+	 *
+	 * @throws IllegalProcessException - thrown when the user shall be of an administrating role or can not be created
+	 */
+	private User register(User.CreateFull create) throws IllegalProcessException {
+		if(create.role() == null || isAdministrating(create.role()))
+			throw new IllegalProcessException(String.format("Users of role %s can not be registered!", create.role()));
+		return createUser(create);
+	}
+
+	/**
+	 * private method createUser
+	 * <p>
+	 * Method to create a user together with its address and service provider.
+	 *
+	 * @param create - the CreateFull-Command of the user
+	 *
+	 * @return User - the created user
+	 *
+	 * @throws IllegalProcessException - thrown when the user name is already used or an entity already exists
+	 */
+	private User createUser(User.CreateFull create) throws IllegalProcessException {
+		Id<User> id = idOf(create.id());
+		Credential credential = reserve(create.userName(), create.password(), id);
+		Address address = null;
+		ServiceProvider provider = null;
+		try {
+			provider = createServiceProvider(create.serviceProviderCmd());
+			address = addresses.insert(createAddress(create.addressCmd()));
+			return users.insert(new User(id, create.lastName(), create.firstName(),
+					Reference.to(address.id()), Reference.to(provider.id()), create.role()));
+		} catch (IllegalProcessException e) {
+			if(address != null)
+				addresses.delete(address.id());
+			if(provider != null) {
+				serviceProviders.delete(provider.id());
+				addresses.delete(provider.address().id());
+			}
+			credentials.remove(create.userName(), credential);
+			throw e;
+		}
+	}
+
+	/**
+	 * private method login
+	 * <p>
+	 * Method to get the user of the given credentials.
+	 *
+	 * @param login - the LoginUser-Command
+	 *
+	 * @return User - the logged in user
+	 *
+	 * @throws IllegalProcessException - thrown when the credentials do not match
+	 */
+	private User login(User.LoginUser login) throws IllegalProcessException {
+		Credential credential = login.userName() == null ? null : credentials.get(login.userName());
+		if(credential == null || !credential.matches(login.password()))
+			throw new WrongCredentialsException();
+		User user = users.find(credential.user());
+		if(user == null)
+			throw new WrongCredentialsException();
+		return user;
+	}
+
+	/**
+	 * private method updateCredentials
+	 * <p>
+	 * Method to change the user name and password of the processing user.
+	 * The Id of the user is kept, so references to the user stay valid.
+	 *
+	 * @param update - the UpdateCredentials-Command, holding the former user name as Id
+	 * @param processingUser - the processing user
+	 *
+	 * @return User - the user of the changed credentials
+	 *
+	 * @throws IllegalProcessException - thrown when the former credentials do not match those of the processing user
+	 * 		or the new user name is already used
+	 */
+	private User updateCredentials(User.UpdateCredentials update, User processingUser) throws IllegalProcessException {
+		String oldUserName = update.oldUserName() == null ? null : update.oldUserName().value();
+		Credential current = oldUserName == null ? null : credentials.get(oldUserName);
+		if(current == null || !current.matches(update.oldPassword()))
+			throw new WrongCredentialsException();
+		if(!current.user().equals(processingUser.id()))
+			throw new UserNotAllowedException(processingUser);
+		String newUserName = update.newUserName() == null ? oldUserName : update.newUserName();
+		String newPassword = update.newPassword() == null ? update.oldPassword() : update.newPassword();
+		return users.update(current.user(), user -> {
+			Credential next = Credential.of(user.id(), newPassword);
+			if(newUserName.equals(oldUserName)) {
+				if(!credentials.replace(oldUserName, current, next))
+					throw new WrongCredentialsException();
+				return user;
+			}
+			if(credentials.get(oldUserName) != current)
+				throw new WrongCredentialsException();
+			if(credentials.putIfAbsent(newUserName, next) != null)
+				throw new UserNameAlreadyUsedException(newUserName);
+			credentials.remove(oldUserName, current);
+			return user;
+		});
+	}
+
+	/**
+	 * private method reserve
+	 * <p>
+	 * Method to reserve the given user name for a new user.
+	 *
+	 * @param userName - the user name
+	 * @param password - the password
+	 * @param id - the Id of the new user
+	 *
+	 * @return Credential - the reserved credential
+	 *
+	 * @throws IllegalProcessException - thrown when user name or password are not provided or the user name is already used
+	 */
+	private Credential reserve(String userName, String password, Id<User> id) throws IllegalProcessException {
+		if(userName == null || password == null)
+			throw new IllegalProcessException(new IllegalArgumentException("User name and password shall be provided!"));
+		Credential credential = Credential.of(id, password);
+		if(credentials.putIfAbsent(userName, credential) != null)
+			throw new UserNameAlreadyUsedException(userName);
+		return credential;
+	}
+
+	/**
+	 * private method requireNotArchived
+	 * <p>
+	 * Method to refuse a change of an archived transport document.
+	 *
+	 * @param document - the transport document
+	 *
+	 * @throws IsArchivedException - thrown when the transport document is archived
+	 */
+	private static void requireNotArchived(TransportDocument document) throws IsArchivedException {
+		if(document.isArchived())
+			throw new IsArchivedException(document.id());
+	}
+
+	/**
+	 * private method updateDetails
+	 * <p>
+	 * Method to apply the given transition to the transport details of the given Id,
+	 * under the lock of their transport document, so the document can not be archived while they are changed.
+	 * The transport document of transport details is never changed, so it is read before locking.
+	 *
+	 * @param id - the Id of the transport details
+	 * @param transition - the transition of the transport details
+	 *
+	 * @return TransportDetails - the changed transport details
+	 *
+	 * @throws IllegalProcessException - thrown when the details are not found, their document is archived
+	 * 		or the transition is refused
+	 */
+	private TransportDetails updateDetails(Id<TransportDetails> id, MemoryStore.Transition<TransportDetails> transition)
+			throws IllegalProcessException {
+		return transportDocuments.locked(documentOf(transportDetails.get(id)), () ->
+				transportDetails.update(id, details -> {
+					requireNotArchived(details);
+					return transition.apply(details);
+				}));
+	}
+
+	/**
+	 * private method documentOf
+	 * <p>
+	 * Method to get the Id of the transport document of the given transport details.
+	 *
+	 * @param details - the transport details
+	 *
+	 * @return Id - the Id of the transport document or null, if the details do not refer to one
+	 */
+	private static Id<TransportDocument> documentOf(TransportDetails details) {
+		return details.transportDocument() == null ? null : details.transportDocument().id();
+	}
+
+	/**
+	 * private method requireNotArchived
+	 * <p>
+	 * Method to refuse a change of transport details of an archived transport document,
+	 * called under the lock of the transport document. Transport details of a deleted transport document may be changed.
+	 *
+	 * @param details - the transport details
+	 *
+	 * @throws IsArchivedException - thrown when the transport document of the details is archived
+	 */
+	private void requireNotArchived(TransportDetails details) throws IsArchivedException {
+		TransportDocument document = transportDocuments.find(documentOf(details));
+		if(document != null)
+			requireNotArchived(document);
+	}
+
+	/**
+	 * private method idOf
+	 * <p>
+	 * Method to get the Id of a new entity, as passed by its Create-Command or generated.
+	 *
+	 * @param <T> - the entity type
+	 * @param id - the optional Id passed by the Create-Command
+	 *
+	 * @return Id<T> - the Id of the new entity
+	 */
+	private static <T> Id<T> idOf(COptional<Id<T>> id) {
+		if(id != null && id.isPresent() && id.get().value() != null)
+			return id.get();
+		return IdGenerator.nextId();
+	}
+
+	/**
+	 * private method unknownCommand
+	 * <p>
+	 * Method to get the exception for a command not handled by the repository.
+	 *
+	 * @param cmd - the command
+	 *
+	 * @return IllegalProcessException - the exception to throw
+	 */
+	private static IllegalProcessException unknownCommand(Object cmd) {
+		return new IllegalProcessException(new IllegalArgumentException(
+				String.format("Command of Type %s is not supported!", cmd == null ? null : cmd.getClass())));
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the given value matches the optional value of a filter.
+	 * Dates match on the same day.
+	 *
+	 * @param expected - the optional value of the filter
+	 * @param value - the value of the entity
+	 *
+	 * @return boolean - true, if the filter value is empty or equal to the value
+	 */
+	private static boolean matches(COptional<?> expected, Object value) {
+		if(expected == null || expected.isEmpty())
+			return true;
+		Object wanted = expected.get();
+		if(wanted instanceof Date && value instanceof Date)
+			return ((Date) wanted).toLocalDate().equals(((Date) value).toLocalDate());
+		return wanted.equals(value);
+	}
+
+	/**
+	 * private method valueOf
+	 * <p>
+	 * Method to get the value of an optional component of an entity.
+	 *
+	 * @param <V> - the type of the value
+	 * @param optional - the optional component
+	 *
+	 * @return V - the value or null, if the component is empty
+	 */
+	private static <V> V valueOf(COptional<V> optional) {
+		return optional == null ? null : optional.orElse(null);
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the address matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param address - the address
+	 *
+	 * @return boolean - true, if the address matches
+	 */
+	private static boolean matches(Address.Filter filter, Address address) {
+		return filter == null
+				|| matches(filter.streetName(), address.streetName())
+				&& matches(filter.postCode(), address.postCode())
+				&& matches(filter.city(), address.city())
+				&& matches(filter.name(), valueOf(address.name()));
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the insurance matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param insurance - the insurance
+	 *
+	 * @return boolean - true, if the insurance matches
+	 */
+	private static boolean matches(Insurance.Filter filter, Insurance insurance) {
+		return filter == null
+				|| matches(filter.address(), insurance.address())
+				&& matches(filter.name(), insurance.name());
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the insurance data matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param data - the insurance data
+	 *
+	 * @return boolean - true, if the insurance data matches
+	 */
+	private static boolean matches(InsuranceData.Filter filter, InsuranceData data) {
+		return filter == null
+				|| matches(filter.patient(), data.patient())
+				&& matches(filter.insurance(), data.insurance());
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the patient matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param patient - the patient
+	 *
+	 * @return boolean - true, if the patient matches
+	 */
+	private static boolean matches(Patient.Filter filter, Patient patient) {
+		return filter == null
+				|| matches(filter.address(), patient.address())
+				&& matches(filter.lastName(), patient.lastName())
+				&& matches(filter.firstName(), patient.firstName())
+				&& matches(filter.birthDate(), patient.birthDate())
+				&& matches(filter.insuranceData(), patient.insuranceData());
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the service provider matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param provider - the service provider
+	 *
+	 * @return boolean - true, if the service provider matches
+	 */
+	private static boolean matches(ServiceProvider.Filter filter, ServiceProvider provider) {
+		return filter == null
+				|| matches(filter.address(), provider.address())
+				&& matches(filter.type(), provider.type())
+				&& matches(filter.isHealthcareProvider(), provider.isHealthcareProvider())
+				&& matches(filter.isTransportProvider(), provider.isTransportProvider())
+				&& matches(filter.name(), provider.name());
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the transport details matches the given filter of a GetList-Command.
+	 * The address matches the start or end address.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param details - the transport details
+	 *
+	 * @return boolean - true, if the transport details matches
+	 */
+	private static boolean matches(TransportDetails.Filter filter, TransportDetails details) {
+		return filter == null
+				|| matches(filter.transportDocument(), details.transportDocument())
+				&& matches(filter.transportDate(), details.transportDate())
+				&& (matches(filter.address(), valueOf(details.startAddress()))
+						|| matches(filter.address(), valueOf(details.endAddress())))
+				&& matches(filter.direction(), valueOf(details.direction()))
+				&& matches(filter.transportProvider(), valueOf(details.transportProvider()));
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the transport document matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param document - the transport document
+	 *
+	 * @return boolean - true, if the transport document matches
+	 */
+	private static boolean matches(TransportDocument.Filter filter, TransportDocument document) {
+		if(filter == null)
+			return true;
+		Reference<InsuranceData> data = valueOf(document.insuranceData());
+		return (filter.insuranceData() == null || filter.insuranceData().isEmpty()
+						|| data != null && filter.insuranceData().get().id().equals(data.id()))
+				&& matches(filter.patient(), valueOf(document.patient()))
+				&& matches(filter.startDate(), document.startDate())
+				&& matches(filter.endDate(), valueOf(document.endDate()))
+				&& matches(filter.healthcareServiceProvider(), document.healthcareServiceProvider())
+				&& matches(filter.transportationType(), document.transportationType())
+				&& matches(filter.signature(), document.signature());
+	}
+
+	/**
+	 * private method matches
+	 * <p>
+	 * Method to get if the user matches the given filter of a GetList-Command.
+	 *
+	 * @param filter - the filter or null, to match all
+	 * @param user - the user
+	 *
+	 * @return boolean - true, if the user matches
+	 */
+	private static boolean matches(User.Filter filter, User user) {
+		return filter == null
+				|| matches(filter.lastName(), user.lastName())
+				&& matches(filter.firstName(), user.firstName())
+				&& matches(filter.address(), user.address())
+				&& matches(filter.serviceProvider(), user.serviceProvider())
+				&& matches(filter.role(), user.role());
+	}
+
+	/**
+	 * record Credential
+	 * <p>
+	 * Credential of a user, holding the salted hash of the password.
+	 *
+	 * @property Id of the user
+	 * @property Salt
+	 * @property SHA-256 hash of the salt and the password
+	 */
+	private static record Credential(Id<User> user, byte[] salt, byte[] hash) {
+
+		/**
+		 * method of
+		 * <p>
+		 * Method to get the credential of the given user and password, with a new salt.
+		 *
+		 * @param user - the Id of the user
+		 * @param password - the password
+		 *
+		 * @return Credential - the credential
+		 */
+		static Credential of(Id<User> user, String password) {
+			byte[] salt = new byte[16];
+			SALTS.nextBytes(salt);
+			return new Credential(user, salt, hash(salt, password));
+		}
+
+		/**
+		 * method matches
+		 * <p>
+		 * Method to get if the given password matches the credential, compared in constant time.
+		 *
+		 * @param password - the password
+		 *
+		 * @return boolean - true, if the password matches
+		 */
+		boolean matches(String password) {
+			return password != null && MessageDigest.isEqual(hash, hash(salt, password));
+		}
+
+		/**
+		 * private method hash
+		 * <p>
+		 * Method to hash the given salt and password.
+		 *
+		 * @param salt - the salt
+		 * @param password - the password
+		 *
+		 * @return byte[] - the SHA-256 hash
+		 */
+		private static byte[] hash(byte[] salt, String password) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				digest.update(salt);
+				return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,338 @@
+package de.ehealth.evek.api.server;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+import de.ehealth.evek.api.exception.EncryptionException;
+import de.ehealth.evek.api.exception.GetListThrowable;
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.exception.ProcessingException;
+import de.ehealth.evek.api.network.ComBatch;
+import de.ehealth.evek.api.network.ComEncryption;
+import de.ehealth.evek.api.network.ComEncryptionKey;
+import de.ehealth.evek.api.network.ComGraph;
+import de.ehealth.evek.api.network.IComServerReceiver;
+import de.ehealth.evek.api.network.IComServerSender;
+import de.ehealth.evek.api.type.Expand;
+import de.ehealth.evek.api.type.Reference;
+
+/**
+ * MemoryServerReceiver
+ * <p>
+ * Receiver of one server connection, processing the received commands by a shared MemoryRepository
+ * and sending their results by the IComServerSender of the connection.
+ * <p>
+ * The receiver is created by the receiver factory of the server runtime,
+ * i.E. new ComServer(port, sender -> new MemoryServerReceiver(repository, sender)).
+ * Every command is answered by the resulting entity, GetList- and GetListByIDList-Commands by the list of the found entities,
+ * as returned by the list methods of the repository without throwing a GetListThrowable,
+ * Get- and GetList-Commands of transport documents and transport details with entities to expand by their ComGraph.
+ * A LoginUser is answered by the logged in user or the WrongCredentialsException. ComBatches are applied
+ * and answered by their result. Exceptions of the other commands are thrown to be sent by the server runtime.
+ * <p>
+ * Encryption is initialized on a received ComEncryptionKey, allowing framing and the binary codec,
+ * unless the server runtime performs the handshake itself.
+ *
+ * @implements IComServerReceiver
+ */
+public class MemoryServerReceiver implements IComServerReceiver {
+
+	private final MemoryRepository repository;
+
+	private final IComServerSender sender;
+
+	private volatile ComEncryption encryption;
+
+	private volatile Reference<User> processingUser;
+
+	/**
+	 * MemoryServerReceiver
+	 * <p>
+	 * Receiver of one server connection, processing the received commands by a shared MemoryRepository.
+	 * <p>
+	 * Constructor requiring the repository and the sender of the connection.
+	 *
+	 * @param repository - the repository processing the commands, shared by all connections
+	 * @param sender - the sender of the connection
+	 */
+	public MemoryServerReceiver(MemoryRepository repository, IComServerSender sender) {
+		if(repository == null || sender == null)
+			throw new IllegalArgumentException("MemoryRepository and IComServerSender shall not be null!");
+		this.repository = repository;
+		this.sender = sender;
+	}
+
+	@Override
+	public boolean setProcessingUser(User.LoginUser user) throws ProcessingException {
+		try {
+			User loggedIn = repository.process(user, null);
+			processingUser = Reference.to(loggedIn.id());
+			sender.send(loggedIn);
+		} catch (IllegalProcessException e) {
+			send(e);
+		} catch (GetListThrowable e) {
+			throw new ProcessingException("LoginUser-Command has been answered by a list!");
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean hasProcessingUser() {
+		return processingUser != null;
+	}
+
+	@Override
+	public User getProcessingUser() {
+		return repository.findUser(processingUser);
+	}
+
+	@Override
+	public Serializable handleInputEncryption(Serializable inputObject) throws EncryptionException {
+		ComEncryption current = encryption;
+		if(current == null)
+			return inputObject;
+		return current.getObject(inputObject);
+	}
+
+	@Override
+	public void process(Address.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(Insurance.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(InsuranceData.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(Patient.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(ServiceProvider.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(TransportDetails.Command cmd) throws IllegalProcessException, ProcessingException {
+		List<Expand> expand = null;
+		if(cmd instanceof TransportDetails.Get)
+			expand = ((TransportDetails.Get) cmd).expand();
+		else if(cmd instanceof TransportDetails.GetList)
+			expand = ((TransportDetails.GetList) cmd).expand();
+		List<?> list = repository.list(cmd, processingUser);
+		if(list != null) {
+			if(ComGraph.isExpanding(expand))
+				sendGraph(list, expand);
+			else
+				sendList(list);
+			return;
+		}
+		try {
+			TransportDetails details = repository.process(cmd, processingUser);
+			if(ComGraph.isExpanding(expand))
+				sender.send(repository.expand(List.of(details), expand, processingUser));
+			else
+				sender.send(details);
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(TransportDocument.Command cmd) throws IllegalProcessException, ProcessingException {
+		List<Expand> expand = null;
+		if(cmd instanceof TransportDocument.Get)
+			expand = ((TransportDocument.Get) cmd).expand();
+		else if(cmd instanceof TransportDocument.GetList)
+			expand = ((TransportDocument.GetList) cmd).expand();
+		List<?> list = repository.list(cmd, processingUser);
+		if(list != null) {
+			if(ComGraph.isExpanding(expand))
+				sendGraph(list, expand);
+			else
+				sendList(list);
+			return;
+		}
+		try {
+			TransportDocument document = repository.process(cmd, processingUser);
+			if(ComGraph.isExpanding(expand))
+				sender.send(repository.expand(List.of(document), expand, processingUser));
+			else
+				sender.send(document);
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(User.Command cmd) throws IllegalProcessException, ProcessingException {
+		if(sendListOf(cmd))
+			return;
+		try {
+			sender.send(repository.process(cmd, processingUser));
+		} catch (GetListThrowable result) {
+			sendList(result.getList());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public void process(ComEncryptionKey key) throws EncryptionException {
+		try {
+			ComEncryption created = new ComEncryption(this, sender);
+			created.allowFraming(true);
+			created.allowBinaryCodec(true);
+			encryption = created;
+			created.useEncryption(key);
+		} catch (IllegalProcessException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	@Override
+	public void process(ComBatch batch) throws IllegalProcessException, ProcessingException {
+		try {
+			sender.send(batch.apply(this));
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	/**
+	 * private method sendListOf
+	 * <p>
+	 * Method to send the list of a GetList- or GetListByIDList-Command, as returned by the repository.
+	 *
+	 * @param cmd - the received command
+	 *
+	 * @return boolean - true, if the command is a GetList- or GetListByIDList-Command and its list has been sent
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not allowed to process the command
+	 * @throws ProcessingException - thrown when sending the list fails
+	 */
+	private boolean sendListOf(Serializable cmd) throws IllegalProcessException, ProcessingException {
+		List<?> list = repository.list(cmd, processingUser);
+		if(list == null)
+			return false;
+		sendList(list);
+		return true;
+	}
+
+	/**
+	 * private method sendList
+	 * <p>
+	 * Method to send the found entities of a GetList- or GetListByIDList-Command.
+	 *
+	 * @param list - the found entities
+	 *
+	 * @throws ProcessingException - thrown when sending the list fails
+	 */
+	private void sendList(List<?> list) throws ProcessingException {
+		try {
+			sender.send(list instanceof ArrayList<?> ? (ArrayList<?>) list : new ArrayList<>(list));
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	/**
+	 * private method sendGraph
+	 * <p>
+	 * Method to send the graph of the found entities of a GetList-Command with entities to expand.
+	 *
+	 * @param list - the found transport documents or transport details
+	 * @param expand - the entity types to expand
+	 *
+	 * @throws IllegalProcessException - thrown when the processing user is not allowed to load an expanded entity
+	 * @throws ProcessingException - thrown when building or sending the graph fails
+	 */
+	private void sendGraph(List<?> list, List<Expand> expand)
+			throws IllegalProcessException, ProcessingException {
+		try {
+			sender.send(repository.expand(list, expand, processingUser));
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	/**
+	 * private method send
+	 * <p>
+	 * Method to send an exception of the processing to the client.
+	 *
+	 * @param e - the exception to send
+	 *
+	 * @throws ProcessingException - thrown when sending the exception fails
+	 */
+	private void send(Throwable e) throws ProcessingException {
+		try {
+			sender.send(e);
+		} catch (IOException ioe) {
+			throw new ProcessingException(ioe);
+		}
+	}
+}
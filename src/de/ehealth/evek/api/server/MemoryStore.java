@@ -0,0 +1,358 @@
+package de.ehealth.evek.api.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import de.ehealth.evek.api.exception.IllegalProcessException;
+import de.ehealth.evek.api.type.Id;
+
+/**
+ * MemoryStore
+ * <p>
+ * In-memory store of the entities of one type, keyed by the value of their Id.
+ * <p>
+ * Reads take no lock. Every change of a stored entity is performed under the lock of its stripe,
+ * chosen by the hash of its Id, so the transitions of one entity are applied one after another
+ * while entities of other stripes are changed in parallel. A transition may throw
+ * to refuse the change and may read other stores, as it is not run inside the map.
+ * <p>
+ * Changes depending on an entity of another store are performed by locked(Id, Action) of that store,
+ * taking the lock of the entity depended on first.
+ *
+ * @param <T> - the entity type
+ */
+final class MemoryStore<T> {
+
+	private final String typeName;
+
+	private final Function<T, Id<T>> idOf;
+
+	private final ConcurrentHashMap<String, T> entities;
+
+	private final ReentrantLock[] stripes;
+
+	private final int stripeMask;
+
+	/**
+	 * MemoryStore
+	 * <p>
+	 * In-memory store of the entities of one type.
+	 * <p>
+	 * Constructor requiring the entity type, the accessor of the Id of the entities and the number of lock stripes.
+	 *
+	 * @param type - the entity type, used in the messages of the exceptions
+	 * @param idOf - the accessor of the Id of the entities
+	 * @param stripeCount - the number of lock stripes, rounded up to a power of two
+	 */
+	MemoryStore(Class<T> type, Function<T, Id<T>> idOf, int stripeCount) {
+		if(stripeCount <= 0)
+			throw new IllegalArgumentException("Stripe count has to be positive!");
+		int count = Integer.highestOneBit(stripeCount);
+		if(count < stripeCount)
+			count <<= 1;
+		this.typeName = type.getSimpleName();
+		this.idOf = idOf;
+		this.entities = new ConcurrentHashMap<>(256, 0.75f, count);
+		this.stripes = new ReentrantLock[count];
+		for(int i = 0; i < count; i++)
+			stripes[i] = new ReentrantLock();
+		this.stripeMask = count - 1;
+	}
+
+	/**
+	 * method find
+	 * <p>
+	 * Method to get the stored entity of the given Id.
+	 *
+	 * @param id - the Id of the entity
+	 *
+	 * @return T - the entity or null, if no entity of the Id is stored
+	 */
+	T find(Id<T> id) {
+		if(id == null || id.value() == null)
+			return null;
+		return entities.get(id.value());
+	}
+
+	/**
+	 * method get
+	 * <p>
+	 * Method to get the stored entity of the given Id, which has to exist.
+	 *
+	 * @param id - the Id of the entity
+	 *
+	 * @return T - the entity
+	 *
+	 * @throws IllegalProcessException - thrown when no entity of the Id is stored
+	 */
+	T get(Id<T> id) throws IllegalProcessException {
+		T entity = find(id);
+		if(entity == null)
+			throw notFound(id);
+		return entity;
+	}
+
+	/**
+	 * method insert
+	 * <p>
+	 * Method to store a new entity.
+	 *
+	 * @param entity - the entity to store
+	 *
+	 * @return T - the stored entity
+	 *
+	 * @throws IllegalProcessException - thrown when an entity of the same Id is already stored
+	 */
+	T insert(T entity) throws IllegalProcessException {
+		Id<T> id = idOf.apply(entity);
+		if(id == null || id.value() == null)
+			throw new IllegalProcessException(new IllegalArgumentException(
+					String.format("%s shall have an Id!", typeName)));
+		if(entities.putIfAbsent(id.value(), entity) != null)
+			throw new IllegalProcessException(
+					String.format("%s %s already exists!", typeName, id.value()));
+		return entity;
+	}
+
+	/**
+	 * method update
+	 * <p>
+	 * Method to replace the stored entity of the given Id by the result of the transition, applied atomically.
+	 *
+	 * @param id - the Id of the entity
+	 * @param transition - the transition of the stored entity to its new state
+	 *
+	 * @return T - the new state of the entity
+	 *
+	 * @throws IllegalProcessException - thrown when no entity of the Id is stored or the transition is refused
+	 */
+	T update(Id<T> id, Transition<T> transition) throws IllegalProcessException {
+		ReentrantLock lock = stripeOf(keyOf(id));
+		lock.lock();
+		try {
+			T current = get(id);
+			T next = transition.apply(current);
+			if(next != current)
+				entities.put(id.value(), next);
+			return next;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method remove
+	 * <p>
+	 * Method to remove the stored entity of the given Id, if the check accepts it.
+	 *
+	 * @param id - the Id of the entity
+	 * @param check - the check of the stored entity, returning it to remove or throwing to refuse the removal
+	 *
+	 * @return T - the removed entity
+	 *
+	 * @throws IllegalProcessException - thrown when no entity of the Id is stored or the check refuses the removal
+	 */
+	T remove(Id<T> id, Transition<T> check) throws IllegalProcessException {
+		ReentrantLock lock = stripeOf(keyOf(id));
+		lock.lock();
+		try {
+			T removed = check.apply(get(id));
+			entities.remove(id.value());
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method delete
+	 * <p>
+	 * Method to remove the stored entity of the given Id without checks, i.E. to undo an insert.
+	 *
+	 * @param id - the Id of the entity
+	 */
+	void delete(Id<T> id) {
+		if(id == null || id.value() == null)
+			return;
+		ReentrantLock lock = stripeOf(id.value());
+		lock.lock();
+		try {
+			entities.remove(id.value());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method locked
+	 * <p>
+	 * Method to perform the given action under the lock of the stripe of the given Id,
+	 * so the entity of the Id is not changed while the action changes entities depending on it.
+	 * The lock is taken before the locks of the action, so the locks are always taken in the same order.
+	 *
+	 * @param <R> - the result type of the action
+	 * @param id - the Id of the entity depended on, null to perform the action without lock
+	 * @param action - the action to perform
+	 *
+	 * @return R - the result of the action
+	 *
+	 * @throws IllegalProcessException - thrown when the action is refused
+	 */
+	<R> R locked(Id<T> id, Action<R> action) throws IllegalProcessException {
+		if(id == null || id.value() == null)
+			return action.perform();
+		ReentrantLock lock = stripeOf(id.value());
+		lock.lock();
+		try {
+			return action.perform();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method list
+	 * <p>
+	 * Method to get the stored entities matching the given filter.
+	 * The entities changed while listing are listed in their former or new state.
+	 *
+	 * @param filter - the filter of the entities
+	 *
+	 * @return ArrayList<T> - the matching entities
+	 */
+	ArrayList<T> list(Predicate<T> filter) {
+		ArrayList<T> list = new ArrayList<>();
+		for(T entity : entities.values())
+			if(filter.test(entity))
+				list.add(entity);
+		return list;
+	}
+
+	/**
+	 * method list
+	 * <p>
+	 * Method to get the stored entities of the given Ids in their order, leaving out the Ids of no stored entity.
+	 *
+	 * @param ids - the Ids of the entities
+	 *
+	 * @return ArrayList<T> - the found entities
+	 */
+	ArrayList<T> list(List<Id<T>> ids) {
+		ArrayList<T> list = new ArrayList<>(ids == null ? 0 : ids.size());
+		if(ids == null)
+			return list;
+		for(Id<T> id : ids) {
+			T entity = find(id);
+			if(entity != null)
+				list.add(entity);
+		}
+		return list;
+	}
+
+	/**
+	 * method size
+	 * <p>
+	 * Method to get the number of stored entities.
+	 *
+	 * @return int - the number of stored entities
+	 */
+	int size() {
+		return entities.size();
+	}
+
+	/**
+	 * method notFound
+	 * <p>
+	 * Method to get the exception for a missing entity of the given Id.
+	 *
+	 * @param id - the Id of the missing entity
+	 *
+	 * @return IllegalProcessException - the exception to throw
+	 */
+	IllegalProcessException notFound(Id<T> id) {
+		return new IllegalProcessException(String.format("%s %s could not be found!",
+				typeName, id == null ? null : id.value()));
+	}
+
+	/**
+	 * private method keyOf
+	 * <p>
+	 * Method to get the key of the given Id in the store.
+	 *
+	 * @param id - the Id of the entity
+	 *
+	 * @return String - the value of the Id
+	 *
+	 * @throws IllegalProcessException - thrown when no Id is provided
+	 */
+	private String keyOf(Id<T> id) throws IllegalProcessException {
+		if(id == null || id.value() == null)
+			throw new IllegalProcessException(new IllegalArgumentException(
+					String.format("Id of the %s shall be provided!", typeName)));
+		return id.value();
+	}
+
+	/**
+	 * private method stripeOf
+	 * <p>
+	 * Method to get the lock of the stripe of the given key, spreading the higher bits of its hash.
+	 *
+	 * @param key - the value of the Id of the entity
+	 *
+	 * @return ReentrantLock - the lock of the stripe
+	 */
+	private ReentrantLock stripeOf(String key) {
+		int hash = key.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+	}
+
+	/**
+	 * interface Transition
+	 * <p>
+	 * Transition of a stored entity, applied under the lock of its stripe.
+	 *
+	 * @param <T> - the entity type
+	 */
+	@FunctionalInterface
+	static interface Transition<T> {
+
+		/**
+		 * method apply
+		 * <p>
+		 * Method to get the new state of the given entity.
+		 *
+		 * @param current - the stored state of the entity
+		 *
+		 * @return T - the new state of the entity
+		 *
+		 * @throws IllegalProcessException - thrown to refuse the transition
+		 */
+		T apply(T current) throws IllegalProcessException;
+	}
+
+	/**
+	 * interface Action
+	 * <p>
+	 * Action performed under the lock of the stripe of an entity.
+	 *
+	 * @param <R> - the result type
+	 */
+	@FunctionalInterface
+	static interface Action<R> {
+
+		/**
+		 * method perform
+		 * <p>
+		 * Method to perform the action.
+		 *
+		 * @return R - the result of the action
+		 *
+		 * @throws IllegalProcessException - thrown to refuse the action
+		 */
+		R perform() throws IllegalProcessException;
+	}
+}
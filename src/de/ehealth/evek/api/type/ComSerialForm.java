@@ -0,0 +1,204 @@
+package de.ehealth.evek.api.type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * ComSerialForm
+ * <p>
+ * Compact serial form of the entity records, written by their writeReplace() instead of the default serial form
+ * of records when they are serialized by an ObjectOutputStream.
+ * <p>
+ * The form holds the entity encoded by the installed Codec, i.E. the binary codec of the network package:
+ * a bitmask of the present nullable components, so empty COptionals and null components take no bytes,
+ * followed by the present values only. The entity is decoded again by readResolve(), so the receiver gets the entity itself.
+ * <p>
+ * The Codec is installed by the network package, so the entities do not depend on it.
+ * Until a Codec is installed, the entities are written by their default serial form, which is still read.
+ * Forms longer than the maximum length of the Codec are refused before their bytes are allocated.
+ *
+ * @implements Externalizable
+ */
+public final class ComSerialForm implements Externalizable {
+
+	private static final long serialVersionUID = -4262151470935216305L;
+
+	private static volatile Codec codec;
+
+	private Serializable entity;
+
+	/**
+	 * ComSerialForm
+	 * <p>
+	 * Compact serial form of the entity records.
+	 * <p>
+	 * Constructor called by the ObjectInputStream, before the form is read by readExternal(ObjectInput).
+	 */
+	public ComSerialForm() {
+	}
+
+	/**
+	 * private ComSerialForm
+	 * <p>
+	 * Compact serial form of the entity records.
+	 * <p>
+	 * Constructor requiring the entity to write.
+	 *
+	 * @param entity - the entity to write
+	 */
+	private ComSerialForm(Serializable entity) {
+		this.entity = entity;
+	}
+
+	/**
+	 * method of
+	 * <p>
+	 * Method to get the serial form of the given entity, as called by the writeReplace() of the entity records.
+	 *
+	 * @param entity - the entity record to write
+	 *
+	 * @return Serializable - the serial form of the entity, or the entity itself while no Codec is installed
+	 */
+	public static Serializable of(Record entity) {
+		if(!(entity instanceof Serializable))
+			throw new IllegalArgumentException(String.format("Record %s is not serializable!", entity));
+		if(codec == null)
+			return (Serializable) entity;
+		return new ComSerialForm((Serializable) entity);
+	}
+
+	/**
+	 * method install
+	 * <p>
+	 * Method to install the Codec encoding the entities of the serial forms.
+	 *
+	 * @param codec - the Codec to install
+	 */
+	public static void install(Codec codec) {
+		if(codec == null)
+			throw new IllegalArgumentException("Codec shall not be null!");
+		ComSerialForm.codec = codec;
+	}
+
+	/**
+	 * method isInstalled
+	 * <p>
+	 * Method to get if the given Codec is the installed Codec.
+	 *
+	 * @param codec - the Codec to check
+	 *
+	 * @return boolean - true, if the given Codec is installed
+	 */
+	public static boolean isInstalled(Codec codec) {
+		return ComSerialForm.codec == codec;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+		installed().write(buffer, entity);
+		int length = buffer.size();
+		while((length & ~0x7F) != 0) {
+			out.writeByte((length & 0x7F) | 0x80);
+			length >>>= 7;
+		}
+		out.writeByte(length);
+		out.write(buffer.toByteArray());
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		Codec codec = installed();
+		int length = 0;
+		for(int shift = 0; ; shift += 7) {
+			if(shift > 28)
+				throw new InvalidObjectException("Length of the serial form is malformed!");
+			int part = in.readUnsignedByte();
+			length |= (part & 0x7F) << shift;
+			if((part & 0x80) == 0)
+				break;
+		}
+		if(length < 0 || length > codec.maxLength())
+			throw new InvalidObjectException(String.format("Invalid length %d of the serial form!", length));
+		byte[] data = new byte[length];
+		in.readFully(data);
+		entity = codec.read(data, 0, length);
+	}
+
+	/**
+	 * private method installed
+	 * <p>
+	 * Method to get the installed Codec.
+	 *
+	 * @return Codec - the installed Codec
+	 *
+	 * @throws InvalidObjectException - thrown when no Codec is installed
+	 */
+	private static Codec installed() throws InvalidObjectException {
+		Codec installed = codec;
+		if(installed == null)
+			throw new InvalidObjectException("No Codec installed for the serial form!");
+		return installed;
+	}
+
+	/**
+	 * private method readResolve
+	 * <p>
+	 * Method replacing the read serial form by the entity it holds.
+	 *
+	 * @return Object - the entity
+	 */
+	private Object readResolve() {
+		return entity;
+	}
+
+	/**
+	 * Codec
+	 * <p>
+	 * Encoding of the entities held by the serial forms, installed by the network package.
+	 */
+	public static interface Codec {
+
+		/**
+		 * method write
+		 * <p>
+		 * Method to encode the given entity.
+		 *
+		 * @param out - the output to write the encoded entity to
+		 * @param entity - the entity to encode
+		 *
+		 * @throws IOException - thrown when the entity could not be encoded
+		 */
+		void write(OutputStream out, Serializable entity) throws IOException;
+
+		/**
+		 * method read
+		 * <p>
+		 * Method to decode the entity of the given encoded data.
+		 *
+		 * @param data - the buffer holding the encoded entity
+		 * @param offset - the offset of the encoded entity in the buffer
+		 * @param length - the length of the encoded entity
+		 *
+		 * @return Serializable - the decoded entity
+		 *
+		 * @throws IOException - thrown when the entity could not be decoded
+		 */
+		Serializable read(byte[] data, int offset, int length) throws IOException;
+
+		/**
+		 * method maxLength
+		 * <p>
+		 * Method to get the maximum length of an encoded entity.
+		 *
+		 * @return int - the maximum length in bytes
+		 */
+		int maxLength();
+	}
+}
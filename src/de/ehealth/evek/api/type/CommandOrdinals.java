@@ -0,0 +1,117 @@
+package de.ehealth.evek.api.type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.ehealth.evek.api.entity.Address;
+import de.ehealth.evek.api.entity.Insurance;
+import de.ehealth.evek.api.entity.InsuranceData;
+import de.ehealth.evek.api.entity.Patient;
+import de.ehealth.evek.api.entity.ServiceProvider;
+import de.ehealth.evek.api.entity.TransportDetails;
+import de.ehealth.evek.api.entity.TransportDocument;
+import de.ehealth.evek.api.entity.User;
+
+/**
+ * CommandOrdinals
+ * <p>
+ * Ordinals of the commands of the entities, as used by the permission matrix of UserRole.
+ * <p>
+ * The commands are numbered in the order of the entities below and the permits clauses of their Command interfaces,
+ * so the ordinals are stable for one version of the API. Other classes have no ordinal.
+ */
+final class CommandOrdinals {
+
+	private static final Class<?>[] ENTITY_COMMANDS = {
+			Address.Command.class,
+			Insurance.Command.class,
+			InsuranceData.Command.class,
+			Patient.Command.class,
+			ServiceProvider.Command.class,
+			TransportDetails.Command.class,
+			TransportDocument.Command.class,
+			User.Command.class
+	};
+
+	private static final List<Class<?>> COMMANDS;
+
+	private static final Map<Class<?>, Integer> ORDINALS;
+
+	private static final ClassValue<Integer> CACHE = new ClassValue<>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return ORDINALS.getOrDefault(type, -1);
+		}
+	};
+
+	static {
+		List<Class<?>> commands = new ArrayList<>();
+		Map<Class<?>, Integer> ordinals = new HashMap<>();
+		for(Class<?> entityCommand : ENTITY_COMMANDS)
+			for(Class<?> command : entityCommand.getPermittedSubclasses()) {
+				ordinals.put(command, commands.size());
+				commands.add(command);
+			}
+		COMMANDS = Collections.unmodifiableList(commands);
+		ORDINALS = ordinals;
+	}
+
+	/**
+	 * private CommandOrdinals
+	 * <p>
+	 * Holder of the ordinals, not to be instantiated.
+	 */
+	private CommandOrdinals() {
+	}
+
+	/**
+	 * method ordinal
+	 * <p>
+	 * Method to get the ordinal of the given command class.
+	 *
+	 * @param command - the class of the command
+	 *
+	 * @return int - the ordinal of the command or -1, if the class is no command of an entity
+	 */
+	static int ordinal(Class<?> command) {
+		if(command == null)
+			return -1;
+		return CACHE.get(command);
+	}
+
+	/**
+	 * method commands
+	 * <p>
+	 * Method to get the command classes in the order of their ordinals.
+	 *
+	 * @return List<Class<?>> - the unmodifiable list of the command classes
+	 */
+	static List<Class<?>> commands() {
+		return COMMANDS;
+	}
+
+	/**
+	 * method toBits
+	 * <p>
+	 * Method to get the bit set of the given command classes, one bit per ordinal in words of 64 bits.
+	 *
+	 * @param commands - the command classes to set the bits of
+	 *
+	 * @return long[] - the words of the bit set
+	 *
+	 * @throws IllegalArgumentException - thrown when a class is no command of an entity
+	 */
+	static long[] toBits(Iterable<Class<?>> commands) {
+		long[] bits = new long[(COMMANDS.size() + 63) >>> 6];
+		for(Class<?> command : commands) {
+			int ordinal = ordinal(command);
+			if(ordinal < 0)
+				throw new IllegalArgumentException(String.format("Class %s is no command of an entity!", command));
+			bits[ordinal >>> 6] |= 1L << ordinal;
+		}
+		return bits;
+	}
+}
@@ -0,0 +1,14 @@
+package de.ehealth.evek.api.type;
+
+/**
+ * enum Expand
+ * <p>
+ * Enum for defining the referenced entities to return together with transport documents or transport details,
+ * as requested by the expand specification of their Get- and GetList-Commands.
+ * <p>
+ * References are followed from the requested entities to every entity of an expanded type,
+ * and on from those entities, as long as the referenced type is expanded as well.
+ */
+public enum Expand {
+	Documents, Patients, InsuranceData, Insurances, Addresses, ServiceProviders, Users;
+}
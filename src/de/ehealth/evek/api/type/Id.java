@@ -13,6 +13,25 @@ public record Id<T>(String value) implements Serializable {
 
 	private static final long serialVersionUID = 6495384926538862598L;
 	
+	/**
+	 * method of
+	 * <p>
+	 * Method to get the canonical Id of the given value, shared by every Id of the value obtained this way.
+	 * The Ids of received references are canonical, so loaded entities referring to the same entity
+	 * hold one Id instead of one copy each.
+	 * 
+	 * @param <T> - the type of the identified object
+	 * @param value - the value of the Id
+	 * 
+	 * @return Id<T> - the canonical Id of the value
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Id<T> of(String value) {
+		if(value == null)
+			return new Id<>(null);
+		return (Id<T>) IdPool.intern(value);
+	}
+	
 	@Override
 	public String toString() {
 		return value;
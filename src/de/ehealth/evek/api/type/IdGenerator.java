@@ -0,0 +1,113 @@
+package de.ehealth.evek.api.type;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdGenerator
+ * <p>
+ * Generator of time ordered ids in the UUID version 7 format, usable on client and server side.
+ * <p>
+ * The ids start with the milliseconds since the epoch, followed by a counter of 12 bits and 62 random bits,
+ * so their string values are sorted by their creation time. Ids generated by one process are strictly increasing:
+ * on the same millisecond the counter is incremented, and once it is exhausted the timestamp is advanced.
+ * The random bits are seeded once per process by SecureRandom, so ids generated by different clients do not collide.
+ * <p>
+ * Clients may pass the generated ids to the Create-Commands, so dependent entities can be created
+ * without waiting for the id assigned by the server.
+ */
+public final class IdGenerator {
+
+	private static final int COUNTER_BITS = 12;
+
+	private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+	private static final long PROCESS_SALT = new SecureRandom().nextLong();
+
+	private static final AtomicLong STATE = new AtomicLong();
+
+	/**
+	 * private IdGenerator
+	 * <p>
+	 * Holder of the generator, not to be instantiated.
+	 */
+	private IdGenerator() {
+	}
+
+	/**
+	 * method nextId
+	 * <p>
+	 * Method to generate a new time ordered id.
+	 *
+	 * @param <T> - the type of the identified object
+	 *
+	 * @return Id<T> - the generated id
+	 */
+	public static <T> Id<T> nextId() {
+		return new Id<>(next().toString());
+	}
+
+	/**
+	 * method next
+	 * <p>
+	 * Method to generate a new time ordered UUID of version 7.
+	 *
+	 * @return UUID - the generated UUID
+	 */
+	public static UUID next() {
+		long state = nextState();
+		long mostSigBits = (state >>> COUNTER_BITS) << 16
+				| 0x7000L
+				| (state & COUNTER_MASK);
+		long random = ThreadLocalRandom.current().nextLong() ^ PROCESS_SALT;
+		long leastSigBits = (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	/**
+	 * method timestampOf
+	 * <p>
+	 * Method to get the creation time of the given id.
+	 *
+	 * @param id - the id to get the creation time of
+	 *
+	 * @return long - the milliseconds since the epoch the id has been generated at,
+	 * 		or -1 if the id has not been generated as UUID of version 7
+	 */
+	public static long timestampOf(Id<?> id) {
+		if(id == null || id.value() == null || id.value().length() != 36)
+			return -1;
+		try {
+			UUID uuid = UUID.fromString(id.value());
+			if(uuid.version() != 7 || uuid.variant() != 2)
+				return -1;
+			return uuid.getMostSignificantBits() >>> 16;
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * private method nextState
+	 * <p>
+	 * Method to advance the timestamp and counter of the last generated id.
+	 * A new millisecond starts the counter at a random value in its lower half, leaving room to count.
+	 *
+	 * @return long - the timestamp shifted by the counter bits, combined with the counter
+	 */
+	private static long nextState() {
+		while(true) {
+			long previous = STATE.get();
+			long now = System.currentTimeMillis();
+			long next;
+			if(now > previous >>> COUNTER_BITS)
+				next = now << COUNTER_BITS | ThreadLocalRandom.current().nextLong(COUNTER_MASK >>> 1);
+			else
+				next = previous + 1;
+			if(STATE.compareAndSet(previous, next))
+				return next;
+		}
+	}
+}
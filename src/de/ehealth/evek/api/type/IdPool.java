@@ -0,0 +1,95 @@
+package de.ehealth.evek.api.type;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IdPool
+ * <p>
+ * Canonicalizing pool of the Id instances, as used by Id.of(String).
+ * <p>
+ * The pool holds its Ids weakly: an Id is kept as long as it is referenced by a loaded entity or reference,
+ * then its entry is removed on one of the next interning calls. Looking up a pooled Id takes no lock.
+ * Ids of different entity types with the same value share one instance, as they are equal anyway.
+ */
+final class IdPool {
+
+	private static final ConcurrentHashMap<String, Entry> POOL = new ConcurrentHashMap<>();
+
+	private static final ReferenceQueue<Id<?>> QUEUE = new ReferenceQueue<>();
+
+	/**
+	 * private IdPool
+	 * <p>
+	 * Holder of the pool, not to be instantiated.
+	 */
+	private IdPool() {
+	}
+
+	/**
+	 * method intern
+	 * <p>
+	 * Method to get the pooled Id of the given value, pooling a new Id if there is none.
+	 *
+	 * @param value - the value of the Id, not null
+	 *
+	 * @return Id - the pooled Id of the value
+	 */
+	static Id<?> intern(String value) {
+		Entry entry = POOL.get(value);
+		if(entry != null) {
+			Id<?> id = entry.get();
+			if(id != null)
+				return id;
+		}
+		purge();
+		Id<?> created = new Id<>(value);
+		while(true) {
+			entry = POOL.putIfAbsent(value, new Entry(created));
+			if(entry == null)
+				return created;
+			Id<?> id = entry.get();
+			if(id != null)
+				return id;
+			POOL.remove(value, entry);
+		}
+	}
+
+	/**
+	 * private method purge
+	 * <p>
+	 * Method to remove the entries of the Ids that are no longer referenced.
+	 */
+	private static void purge() {
+		Object cleared;
+		while((cleared = QUEUE.poll()) != null) {
+			Entry entry = (Entry) cleared;
+			POOL.remove(entry.value, entry);
+		}
+	}
+
+	/**
+	 * Entry
+	 * <p>
+	 * Weak entry of the pool, keeping the value to remove the entry by once the Id is no longer referenced.
+	 */
+	private static final class Entry extends WeakReference<Id<?>> {
+
+		private final String value;
+
+		/**
+		 * private Entry
+		 * <p>
+		 * Weak entry of the pool.
+		 * <p>
+		 * Constructor requiring the Id to pool.
+		 *
+		 * @param id - the Id to pool
+		 */
+		private Entry(Id<?> id) {
+			super(id, QUEUE);
+			this.value = id.value();
+		}
+	}
+}
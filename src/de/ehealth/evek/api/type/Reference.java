@@ -21,20 +21,33 @@ public record Reference<T>(Id<T> id) implements Serializable{
 	 * @return Reference<T> - the new reference to the object
 	 */
 	public static <T> Reference<T> to(String id){
-		return new Reference<>(new Id<>(id));
+		return new Reference<>(Id.of(id));
 	}
 	
 	/**
-	 * Method to create a reference object to a specified id
+	 * Method to create a reference object to a specified id, sharing the given id instance
 	 * @param <T> - the type of the referenced object
 	 * @param id - the id of the referenced object
 	 * 
 	 * @return Reference<T> - the new reference to the object
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> Reference<T> to(Id<?> id){
-		return new Reference<>(new Id<>(id.value()));
+		return new Reference<>((Id<T>) id);
 	}
 
+	/**
+	 * private method readResolve
+	 * <p>
+	 * Method replacing a deserialized reference by a reference to the canonical Id of its value.
+	 * 
+	 * @return Object - the reference to the canonical Id
+	 */
+	private Object readResolve() {
+		if(id == null || id.value() == null)
+			return this;
+		return new Reference<>(Id.<T>of(id.value()));
+	}
 	
 	@Override
 	public String toString() {
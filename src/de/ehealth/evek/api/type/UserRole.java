@@ -2,6 +2,7 @@ package de.ehealth.evek.api.type;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import de.ehealth.evek.api.entity.Address;
@@ -17,6 +18,9 @@ import de.ehealth.evek.api.entity.User;
  * enum UserRole
  * <p>
  * Enum for defining the user roles and their permissions
+ * <p>
+ * The permissions of every role are precomputed as bit set over the ordinals of the commands,
+ * so checking a permission by isAllowed(Class) is one bit test instead of searching the list of allowed commands.
  */
 public enum UserRole implements Serializable {
 	HealthcareAdmin(new Class[] {
@@ -143,7 +147,9 @@ public enum UserRole implements Serializable {
 	
 	private static final long serialVersionUID = -6591375785628765586L;
 
-	private List<Class<?>> allowedCommands = new ArrayList<>();
+	private final List<Class<?>> allowedCommands;
+	
+	private final long[] allowedBits;
 	
 	/**
 	 * UserRole
@@ -155,18 +161,24 @@ public enum UserRole implements Serializable {
 	 * @param commands - commands the users of this role are allowed to process
 	 */
 	private UserRole(Class<?>[] commands) {
+		List<Class<?>> allowedCommands = new ArrayList<>();
 		for(Class<?> o : commands)
 			allowedCommands.add(o);
 		allowedCommands.add(Address.Create.class);
 		allowedCommands.add(Address.GetList.class);
+		allowedCommands.add(Address.GetListByIDList.class);
 		allowedCommands.add(Address.Get.class);
 		allowedCommands.add(Insurance.GetList.class);
+		allowedCommands.add(Insurance.GetListByIDList.class);
 		allowedCommands.add(Insurance.Get.class);
 		allowedCommands.add(InsuranceData.GetList.class);
+		allowedCommands.add(InsuranceData.GetListByIDList.class);
 		allowedCommands.add(InsuranceData.Get.class);
 		allowedCommands.add(Patient.GetList.class);
+		allowedCommands.add(Patient.GetListByIDList.class);
 		allowedCommands.add(Patient.Get.class);
 		allowedCommands.add(ServiceProvider.GetList.class);
+		allowedCommands.add(ServiceProvider.GetListByIDList.class);
 		allowedCommands.add(ServiceProvider.Get.class);
 		allowedCommands.add(TransportDetails.Get.class);
 		allowedCommands.add(TransportDetails.GetList.class);
@@ -175,20 +187,76 @@ public enum UserRole implements Serializable {
 		allowedCommands.add(TransportDocument.GetList.class);
 		allowedCommands.add(TransportDocument.GetListByIDList.class);
 		allowedCommands.add(User.GetList.class);
+		allowedCommands.add(User.GetListByIDList.class);
 		allowedCommands.add(User.Get.class);
 		allowedCommands.add(User.LoginUser.class);
 		allowedCommands.add(User.Update.class);
 		allowedCommands.add(User.UpdateCredentials.class);
+		this.allowedCommands = Collections.unmodifiableList(allowedCommands);
+		this.allowedBits = CommandOrdinals.toBits(allowedCommands);
 	}
 	
 	/**
 	 * method getAllowedActions
 	 * <p>
-	 * Method to gget the commands the role is allowed to process.
+	 * Method to get the commands the role is allowed to process.
 	 * 
-	 * @return List<Class<?>> - the list of commands the users of this role is allowed to process
+	 * @return List<Class<?>> - the unmodifiable list of commands the users of this role are allowed to process
 	 */
 	public List<Class<?>> getAllowedActions(){
 		return allowedCommands;
 	}
+	
+	/**
+	 * method isAllowed
+	 * <p>
+	 * Method to get if the role is allowed to process commands of the given class, 
+	 * i.E. to refuse a command on client side before sending it.
+	 * 
+	 * @param command - the class of the command
+	 * 
+	 * @return boolean - true, if the users of this role are allowed to process the command
+	 */
+	public boolean isAllowed(Class<?> command) {
+		return isAllowed(CommandOrdinals.ordinal(command));
+	}
+	
+	/**
+	 * method isAllowed
+	 * <p>
+	 * Method to get if the role is allowed to process the command of the given ordinal.
+	 * 
+	 * @param commandOrdinal - the ordinal of the command, as returned by commandOrdinal(Class)
+	 * 
+	 * @return boolean - true, if the users of this role are allowed to process the command
+	 */
+	public boolean isAllowed(int commandOrdinal) {
+		return commandOrdinal >= 0 
+				&& (commandOrdinal >>> 6) < allowedBits.length
+				&& (allowedBits[commandOrdinal >>> 6] & (1L << commandOrdinal)) != 0;
+	}
+	
+	/**
+	 * method commandOrdinal
+	 * <p>
+	 * Method to get the ordinal of the given command class, numbering the commands of all entities.
+	 * 
+	 * @param command - the class of the command
+	 * 
+	 * @return int - the ordinal of the command or -1, if the class is no command of an entity
+	 */
+	public static int commandOrdinal(Class<?> command) {
+		return CommandOrdinals.ordinal(command);
+	}
+	
+	/**
+	 * method getCommands
+	 * <p>
+	 * Method to get the commands of all entities in the order of their ordinals.
+	 * 
+	 * @return List<Class<?>> - the unmodifiable list of the commands
+	 */
+	public static List<Class<?>> getCommands() {
+		return CommandOrdinals.commands();
+	}
 }
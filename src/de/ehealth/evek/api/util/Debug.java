@@ -39,6 +39,8 @@ public class Debug {
 	 */
 	public static void sendMessage(String message) {
 
+		if (!isDebug()) return;
+
 		sendMessage("[D]" + Log.logPrefix(), message);
 	}
 
@@ -51,6 +53,8 @@ public class Debug {
 	 */
 	public static void sendMessage(String message, boolean isLog) {
 
+		if (!isDebug()) return;
+
 		if (isLog)
 			sendMessage("[L]" + Log.logPrefix(), message);
 		else
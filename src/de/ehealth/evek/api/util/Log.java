@@ -59,6 +59,9 @@ public class Log {
 	 */
 	private static void sendMessage(String message, Throwable e) {
 
+		if (!isEnabled())
+			return;
+
 		if (writeToFile && file == null)
 			initLogging();
 
@@ -90,6 +93,17 @@ public class Log {
 		}
 	}
 
+	/**
+	 * Method to get, if Logs are written at all, to a file or as Debug-message; Used to skip formatting
+	 * of Log-messages, that would be discarded
+	 * 
+	 * @return boolean - if Logs are written
+	 */
+	public static boolean isEnabled() {
+
+		return writeToFile || Debug.isDebug();
+	}
+
 	/**
 	 * Method to Log a empty message; Gets written in Logfile
 	 */
@@ -4,6 +4,7 @@ module evek.api {
 	exports de.ehealth.evek.api.entity;
 	exports de.ehealth.evek.api.type;
 	exports de.ehealth.evek.api.network;
+	exports de.ehealth.evek.api.server;
 
 	requires transitive java.sql;
 }
\ No newline at end of file